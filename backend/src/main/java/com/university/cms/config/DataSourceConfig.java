@@ -0,0 +1,125 @@
+package com.university.cms.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two Hikari pools: a small OLTP pool for latency-sensitive traffic and a separate
+ * reporting pool (optionally on a read replica) for admin listings and exports.
+ * Both pools are beans, so their metrics are exported through actuator.
+ *
+ * Read replicas listed under app.datasource.replicas.urls each get their own pool
+ * and serve @Transactional(readOnly = true) work; see RoutingDataSource.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Value("${app.datasource.reporting.url:}")
+    private String reportingUrl;
+
+    @Value("${app.datasource.reporting.username:}")
+    private String reportingUsername;
+
+    @Value("${app.datasource.reporting.password:}")
+    private String reportingPassword;
+
+    @Value("${app.datasource.reporting.route-read-only:false}")
+    private boolean routeReadOnlyToReporting;
+
+    @Value("${app.datasource.replicas.urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replicas.username:}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replicas.password:}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replicas.sticky-window:5s}")
+    private Duration stickyWindow;
+
+    @Bean
+    @ConfigurationProperties("app.datasource.oltp.hikari")
+    public HikariDataSource oltpDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("app.datasource.reporting.hikari")
+    public HikariDataSource reportingDataSource(DataSourceProperties properties) {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(reportingUrl.isBlank() ? properties.determineUrl() : reportingUrl)
+                .username(reportingUsername.isBlank() ? properties.determineUsername() : reportingUsername)
+                .password(reportingPassword.isBlank() ? properties.determinePassword() : reportingPassword)
+                .build();
+    }
+
+    @Bean
+    public ReplicaRouter replicaRouter(DataSourceProperties properties, Environment environment,
+                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(url.trim())
+                    .username(replicaUsername.isBlank() ? properties.determineUsername() : replicaUsername)
+                    .password(replicaPassword.isBlank() ? properties.determinePassword() : replicaPassword)
+                    .build();
+            Binder.get(environment).bind("app.datasource.replicas.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("cms-replica-" + (replicas.size() + 1));
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.add(replica);
+        }
+        return new ReplicaRouter(replicas);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(stickyWindow);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("oltpDataSource") DataSource oltpDataSource,
+                                 @Qualifier("reportingDataSource") DataSource reportingDataSource,
+                                 ReplicaRouter replicaRouter,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(DataSourceRoute.PRIMARY, oltpDataSource);
+        targets.put(DataSourceRoute.REPORTING, reportingDataSource);
+
+        RoutingDataSource routingDataSource = new RoutingDataSource(routeReadOnlyToReporting, replicaRouter,
+                readYourWritesTracker);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(oltpDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,5 @@
+package com.university.cms.config;
+
+public enum DataSourceRoute {
+    PRIMARY, REPORTING, REPLICA
+}
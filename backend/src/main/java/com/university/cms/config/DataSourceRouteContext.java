@@ -0,0 +1,24 @@
+package com.university.cms.config;
+
+/**
+ * Thread-bound routing hint, set by {@link ReportingQueryAspect} for reporting queries
+ * and by {@link CatalogETagInterceptor} to pin a request to the primary.
+ */
+public final class DataSourceRouteContext {
+
+    private static final ThreadLocal<DataSourceRoute> CURRENT = new ThreadLocal<>();
+
+    private DataSourceRouteContext() {}
+
+    public static DataSourceRoute get() {
+        return CURRENT.get();
+    }
+
+    static void set(DataSourceRoute route) {
+        if (route == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(route);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.university.cms.config;
+
+import com.university.cms.service.ChangeVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class HttpCacheConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Value("${app.http-cache.degrees-max-age:300}")
+    private long degreesMaxAge;
+
+    @Value("${app.http-cache.catalog-max-age:0}")
+    private long catalogMaxAge;
+
+    // Same window as read-your-writes: how long replicas may lag behind the primary
+    @Value("${app.datasource.replicas.sticky-window:5s}")
+    private Duration primaryWindow;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Public reference data: shared caches may keep it briefly
+        registry.addInterceptor(new CatalogETagInterceptor(changeVersionService, primaryWindow,
+                        List.of("degrees"), false,
+                        "public, max-age=" + degreesMaxAge + ", must-revalidate"))
+                .addPathPatterns("/api/degrees", "/api/degrees/*");
+
+        // Course catalogs read courses, their degree and lecturer, seat counts and waitlists
+        registry.addInterceptor(new CatalogETagInterceptor(changeVersionService, primaryWindow,
+                        List.of("courses", "degrees", "lecturers", "enrollments", "course_seats", "waitlist_entries"), false,
+                        privateCacheControl()))
+                .addPathPatterns("/api/admin/courses");
+
+        registry.addInterceptor(new CatalogETagInterceptor(changeVersionService, primaryWindow,
+                        List.of("courses", "degrees", "lecturers", "enrollments", "course_seats", "waitlist_entries"), true,
+                        privateCacheControl()))
+                .addPathPatterns("/api/student/courses");
+
+        registry.addInterceptor(new CatalogETagInterceptor(changeVersionService, primaryWindow,
+                        List.of("courses", "degrees", "lecturers"), true,
+                        privateCacheControl()))
+                .addPathPatterns("/api/lecturer/courses/available");
+
+        // Material listings; access checks happen in the controller, a 304 reveals no content
+        registry.addInterceptor(new CatalogETagInterceptor(changeVersionService, primaryWindow,
+                        List.of("course_materials"), true,
+                        privateCacheControl()))
+                .addPathPatterns("/api/student/courses/*/materials", "/api/lecturer/courses/*/materials");
+    }
+
+    private String privateCacheControl() {
+        return catalogMaxAge > 0
+                ? "private, max-age=" + catalogMaxAge + ", must-revalidate"
+                : "private, no-cache";
+    }
+}
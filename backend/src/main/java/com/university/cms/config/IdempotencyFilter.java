@@ -0,0 +1,148 @@
+package com.university.cms.config;
+
+import com.university.cms.service.IdempotencyService;
+import com.university.cms.service.IdempotencyService.StoredResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Idempotency-Key support for writes that clients retry on timeout. The first
+ * request with a key runs normally and its response is stored; later requests with
+ * the same key from the same user replay that response without running the
+ * handler again. Registered as a plain servlet filter, so it runs after Spring
+ * Security has authenticated the caller.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    // "METHOD path-pattern" of the endpoints that honour the header
+    private static final List<String> ENDPOINTS = List.of(
+            "POST /api/student/enrollments",
+            "POST /api/student/assignments/*/submit",
+            "PUT /api/lecturer/submissions/*/grade",
+            "PUT /api/lecturer/courses/*/students/*/grade");
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Value("${app.idempotency.max-body-bytes:65536}")
+    private int maxBodyBytes;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (request.getHeader(HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String endpoint : ENDPOINTS) {
+            int space = endpoint.indexOf(' ');
+            if (endpoint.substring(0, space).equalsIgnoreCase(request.getMethod())
+                    && pathMatcher.match(endpoint.substring(space + 1), path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeMessage(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key header");
+            return;
+        }
+
+        String recordKey = idempotencyService.recordKey(authentication.getName(), request.getMethod(),
+                request.getRequestURI(), key);
+        StoredResponse stored = idempotencyService.find(recordKey);
+        if (stored != null) {
+            replay(response, stored);
+            return;
+        }
+
+        if (!idempotencyService.begin(recordKey)) {
+            writeMessage(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is already in progress");
+            return;
+        }
+        try {
+            // A duplicate may have completed between the lookup and begin()
+            stored = idempotencyService.find(recordKey);
+            if (stored != null) {
+                replay(response, stored);
+                return;
+            }
+
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+
+            byte[] body = wrapper.getContentAsByteArray();
+            if (isFinal(wrapper.getStatus()) && body.length <= maxBodyBytes) {
+                try {
+                    idempotencyService.store(recordKey, new StoredResponse(wrapper.getStatus(),
+                            wrapper.getContentType(), new String(body, StandardCharsets.UTF_8)));
+                } catch (Exception e) {
+                    // The request itself succeeded; a retry will just run it again
+                    System.err.println("Failed to store idempotency record: " + e.getMessage());
+                }
+            }
+            wrapper.copyBodyToResponse();
+        } finally {
+            idempotencyService.end(recordKey);
+        }
+    }
+
+    // Only successful writes are stored. The controllers answer 400 for any exception,
+    // transient database errors included, and a rejected write changed nothing, so the
+    // retry runs the handler again and gets a fresh answer.
+    private boolean isFinal(int status) {
+        return status >= 200 && status < 300;
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.statusCode());
+        response.setHeader("Idempotent-Replayed", "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null) {
+            response.getOutputStream().write(stored.body().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void writeMessage(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        String escaped = message.replace("\\", "\\\\").replace("\"", "\\\"");
+        response.getOutputStream().write(("{\"message\":\"" + escaped + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+}
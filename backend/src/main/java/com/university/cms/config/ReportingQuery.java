@@ -0,0 +1,16 @@
+package com.university.cms.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Routes the JDBC work of the annotated method (or every method of the annotated class)
+ * to the reporting pool, so long-running listings and exports don't take connections
+ * away from enrollment and login traffic.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReportingQuery {
+}
@@ -0,0 +1,22 @@
+package com.university.cms.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+@Aspect
+@Component
+public class ReportingQueryAspect {
+
+    @Around("@annotation(com.university.cms.config.ReportingQuery) || @within(com.university.cms.config.ReportingQuery)")
+    public Object routeToReporting(ProceedingJoinPoint joinPoint) throws Throwable {
+        DataSourceRoute previous = DataSourceRouteContext.get();
+        DataSourceRouteContext.set(DataSourceRoute.REPORTING);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRouteContext.set(previous);
+        }
+    }
+}
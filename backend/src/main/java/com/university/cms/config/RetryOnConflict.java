@@ -0,0 +1,18 @@
+package com.university.cms.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the annotated transactional method when it fails on an optimistic lock
+ * conflict. Only for updates that are safe to repeat from scratch, i.e. that
+ * re-read what they change and don't depend on what the caller saw earlier.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    int attempts() default 3;
+}
@@ -0,0 +1,92 @@
+package com.university.cms.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Picks the pool for a connection when it is first used. It is wrapped in a
+ * LazyConnectionDataSourceProxy so the transaction's read-only flag and the
+ * routing hint are both known by the time the physical connection is fetched.
+ *
+ * Writes go to the primary. Read-only transactions go to a healthy replica unless
+ * the current user wrote within the read-your-writes window, or the request is
+ * pinned to the primary, in which case they stay on the primary. Failed replica
+ * connections fall back to the primary.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    private final boolean routeReadOnlyToReporting;
+    private final ReplicaRouter replicaRouter;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public RoutingDataSource(boolean routeReadOnlyToReporting, ReplicaRouter replicaRouter,
+                             ReadYourWritesTracker readYourWritesTracker) {
+        this.routeReadOnlyToReporting = routeReadOnlyToReporting;
+        this.replicaRouter = replicaRouter;
+        this.readYourWritesTracker = readYourWritesTracker;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (DataSourceRouteContext.get() == DataSourceRoute.REPORTING) {
+            return DataSourceRoute.REPORTING;
+        }
+        if (DataSourceRouteContext.get() == DataSourceRoute.PRIMARY) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (readYourWritesTracker.wroteRecently()) {
+            return DataSourceRoute.PRIMARY;
+        }
+        if (routeReadOnlyToReporting) {
+            return DataSourceRoute.REPORTING;
+        }
+        return replicaRouter.hasReplicas() ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(username, password);
+    }
+
+    private Connection route(String username, String password) throws SQLException {
+        Object key = determineCurrentLookupKey();
+
+        if (key == DataSourceRoute.REPLICA) {
+            DataSource replica = replicaRouter.nextHealthy();
+            if (replica != null) {
+                try {
+                    return connect(replica, username, password);
+                } catch (SQLException e) {
+                    replicaRouter.markUnhealthy(replica);
+                }
+            }
+            return connect(primary(), username, password);
+        }
+
+        if (key == DataSourceRoute.PRIMARY && TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesTracker.recordWriteOnCommit();
+        }
+        return connect(determineTargetDataSource(), username, password);
+    }
+
+    private DataSource primary() {
+        return getResolvedDataSources().get(DataSourceRoute.PRIMARY);
+    }
+
+    private Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+}
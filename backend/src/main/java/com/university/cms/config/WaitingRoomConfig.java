@@ -0,0 +1,26 @@
+package com.university.cms.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.university.cms.service.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WaitingRoomConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Runs after the ETag interceptors, so cheap 304 revalidations are never queued
+        registry.addInterceptor(new WaitingRoomInterceptor(waitingRoomService, objectMapper))
+                .addPathPatterns("/api/student/courses", "/api/student/enrollments", "/api/student/enrollments/*")
+                .order(1);
+    }
+}
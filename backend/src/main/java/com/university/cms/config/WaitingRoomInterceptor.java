@@ -0,0 +1,61 @@
+package com.university.cms.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.university.cms.service.WaitingRoomService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds back registration requests from users the waiting room hasn't admitted yet.
+ * They get 503 with their ticket, queue position and estimated wait, and a
+ * Retry-After that keeps them polling often enough to hold on to their ticket.
+ */
+public class WaitingRoomInterceptor implements HandlerInterceptor {
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 5;
+
+    private final WaitingRoomService waitingRoomService;
+    private final ObjectMapper objectMapper;
+
+    public WaitingRoomInterceptor(WaitingRoomService waitingRoomService, ObjectMapper objectMapper) {
+        this.waitingRoomService = waitingRoomService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        Principal principal = request.getUserPrincipal();
+        if (principal == null) {
+            return true;
+        }
+
+        WaitingRoomService.Admission admission = waitingRoomService.check(principal.getName());
+        if (admission.admitted()) {
+            return true;
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("message", "Registration is busy. You are in the waiting room");
+        body.put("waitingRoom", true);
+        body.put("ticket", admission.ticket());
+        body.put("position", admission.position());
+        body.put("estimatedWaitSeconds", admission.estimatedWaitSeconds());
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.min(admission.estimatedWaitSeconds(), MAX_RETRY_AFTER_SECONDS)));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+        return false;
+    }
+}
@@ -1,11 +1,13 @@
 package com.university.cms.controller;
 
 import com.university.cms.service.AdminService;
+import com.university.cms.service.StudentQueryService;
+import com.university.cms.service.LecturerQueryService;
 import com.university.cms.service.AuthService;
 import com.university.cms.service.CourseService;
-import com.university.cms.service.StudentService;
-import com.university.cms.service.LecturerService;
 import com.university.cms.service.DegreeService;
+import com.university.cms.service.UploadReconciliationService;
+import com.university.cms.service.WaitingRoomService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,14 +31,20 @@ public class AdminController {
     private CourseService courseService;
     
     @Autowired
-    private StudentService studentService;
+    private StudentQueryService studentQueryService;
     
     @Autowired
-    private LecturerService lecturerService;
+    private LecturerQueryService lecturerQueryService;
     
     @Autowired
     private DegreeService degreeService;
 
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    @Autowired
+    private UploadReconciliationService uploadReconciliationService;
+
     // Dashboard stats
     @GetMapping("/dashboard/stats")
     @PreAuthorize("hasRole('ADMIN')")
@@ -45,8 +53,8 @@ public class AdminController {
             Map<String, Object> stats = new HashMap<>();
             
             // Get counts from each service
-            long totalStudents = studentService.getTotalStudentCount();
-            long totalLecturers = lecturerService.getTotalLecturerCount();
+            long totalStudents = studentQueryService.getTotalStudentCount();
+            long totalLecturers = lecturerQueryService.getTotalLecturerCount();
             long totalCourses = courseService.getTotalCourseCount();
             long totalDegrees = degreeService.getTotalDegreeCount();
             
@@ -60,4 +68,59 @@ public class AdminController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    // Hibernate second-level / query cache statistics
+    @GetMapping("/cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        try {
+            return ResponseEntity.ok(adminService.getCacheStatistics());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Registration waiting room
+    @GetMapping("/waiting-room")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getWaitingRoomStatus() {
+        return ResponseEntity.ok(waitingRoomService.getStatus());
+    }
+
+    @PutMapping("/waiting-room")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> configureWaitingRoom(@RequestBody Map<String, Object> settings) {
+        try {
+            Boolean enabled = settings.get("enabled") != null
+                    ? Boolean.valueOf(settings.get("enabled").toString()) : null;
+            Double admitPerSecond = settings.get("admitPerSecond") != null
+                    ? Double.valueOf(settings.get("admitPerSecond").toString()) : null;
+            waitingRoomService.configure(enabled, admitPerSecond);
+            return ResponseEntity.ok(waitingRoomService.getStatus());
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Upload store reconciliation: last report, and manual runs (dryRun only reports)
+    @GetMapping("/uploads/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getUploadReconciliationStatus() {
+        return ResponseEntity.ok(uploadReconciliationService.getStatus());
+    }
+
+    @PostMapping("/uploads/reconciliation")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> startUploadReconciliation(@RequestParam(defaultValue = "false") boolean dryRun) {
+        try {
+            uploadReconciliationService.startInBackground(dryRun);
+            return ResponseEntity.accepted().body(uploadReconciliationService.getStatus());
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(409).body(response);
+        }
+    }
 }
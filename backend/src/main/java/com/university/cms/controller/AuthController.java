@@ -4,13 +4,19 @@ import com.university.cms.dto.LoginRequest;
 import com.university.cms.dto.LoginResponse;
 import com.university.cms.dto.RegisterRequest;
 import com.university.cms.entity.User;
+import com.university.cms.security.InvalidRefreshTokenException;
+import com.university.cms.security.LoginThrottledException;
+import com.university.cms.security.PasswordHashingOverloadedException;
 import com.university.cms.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,10 +30,22 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest loginRequest, HttpServletRequest request) {
         try {
-            LoginResponse loginResponse = authService.login(loginRequest);
+            LoginResponse loginResponse = authService.login(loginRequest, request.getRemoteAddr());
             return ResponseEntity.ok(loginResponse);
+        } catch (LoginThrottledException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
+        } catch (PasswordHashingOverloadedException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -42,6 +60,12 @@ public class AuthController {
             Map<String, String> response = new HashMap<>();
             response.put("message", message);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingOverloadedException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -71,8 +95,29 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> body) {
+        try {
+            LoginResponse loginResponse = authService.refresh(body.get("refreshToken"));
+            return ResponseEntity.ok(loginResponse);
+        } catch (InvalidRefreshTokenException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(@RequestBody(required = false) Map<String, String> body,
+                                    HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        String accessToken = header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+        authService.logout(accessToken, body != null ? body.get("refreshToken") : null);
+
         Map<String, String> response = new HashMap<>();
         response.put("message", "User logged out successfully");
         return ResponseEntity.ok(response);
@@ -5,9 +5,11 @@ import com.university.cms.entity.Course;
 import com.university.cms.entity.User;
 import com.university.cms.entity.Student;
 import com.university.cms.service.CourseService;
+import com.university.cms.service.StudentQueryService;
 import com.university.cms.service.AuthService;
-import com.university.cms.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -31,7 +33,7 @@ public class CourseController {
     private AuthService authService;
     
     @Autowired
-    private StudentService studentService;
+    private StudentQueryService studentQueryService;
 
     // Admin endpoints
     @GetMapping("/admin/courses")
@@ -60,6 +62,11 @@ public class CourseController {
         try {
             Course course = courseService.updateCourse(id, courseRequest);
             return ResponseEntity.ok(course);
+        } catch (OptimisticLockingFailureException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "The course was changed by someone else. Review the current version and try again");
+            response.put("current", courseService.getLatestCourse(id));
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -143,7 +150,7 @@ public class CourseController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             List<Map<String, Object>> courses = courseService.getAvailableCoursesForStudent(student);
             return ResponseEntity.ok(courses);
@@ -1,21 +1,34 @@
 package com.university.cms.controller;
 
-import com.university.cms.entity.Assignment;
+import com.university.cms.entity.CourseMaterial;
 import com.university.cms.entity.Course;
 import com.university.cms.entity.Lecturer;
 import com.university.cms.entity.Student;
 import com.university.cms.entity.User;
 import com.university.cms.service.CourseService;
+import com.university.cms.service.StudentQueryService;
+import com.university.cms.service.LecturerQueryService;
 import com.university.cms.service.LecturerService;
-import com.university.cms.service.StudentService;
+import com.university.cms.service.MaterialPreviewService;
 import com.university.cms.service.AuthService;
+import com.university.cms.service.SubmissionArchiveService;
+import com.university.cms.service.SubmissionSimilarityService;
+import com.university.cms.service.UploadSessionService;
+import com.university.cms.security.PasswordHashingOverloadedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,20 +43,35 @@ public class LecturerController {
     
     @Autowired
     private LecturerService lecturerService;
+
+    @Autowired
+    private LecturerQueryService lecturerQueryService;
     
     @Autowired
-    private StudentService studentService;
+    private StudentQueryService studentQueryService;
     
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    @Autowired
+    private SubmissionArchiveService submissionArchiveService;
+
+    @Autowired
+    private MaterialPreviewService materialPreviewService;
+
+    @Autowired
+    private SubmissionSimilarityService submissionSimilarityService;
+
     // Course browsing
     @GetMapping("/courses/available")
     public ResponseEntity<List<Map<String, Object>>> getAvailableCourses(Authentication authentication) {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             List<Map<String, Object>> courses = courseService.getAvailableCoursesForLecturer(lecturer);
             return ResponseEntity.ok(courses);
@@ -59,9 +87,9 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
-            List<Map<String, Object>> coursesWithStats = lecturerService.getCoursesWithStats(lecturer);
+            List<Map<String, Object>> coursesWithStats = lecturerQueryService.getCoursesWithStats(lecturer);
             return ResponseEntity.ok(coursesWithStats);
         } catch (Exception e) {
             e.printStackTrace(); // Add logging to see the error
@@ -79,14 +107,14 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            Course course = courseService.getCourseById(courseId);
+            Course course = courseService.getCourseDetails(courseId);
             return ResponseEntity.ok(course);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -101,7 +129,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Register lecturer to the course
             courseService.registerLecturerToCourse(courseId, lecturer.getId());
@@ -120,7 +148,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Unregister lecturer from the course
             courseService.unregisterLecturerFromCourse(courseId, lecturer.getId());
@@ -139,14 +167,14 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            List<Map<String, Object>> students = lecturerService.getEnrolledStudents(courseId);
+            List<Map<String, Object>> students = lecturerQueryService.getEnrolledStudents(courseId);
             return ResponseEntity.ok(students);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -161,7 +189,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
@@ -169,7 +197,7 @@ public class LecturerController {
             }
             
             // Return materials for this course (from lecturer service)
-            List<Map<String, Object>> materials = lecturerService.getCourseMaterials(courseId);
+            List<Map<String, Object>> materials = lecturerQueryService.getCourseMaterials(courseId);
             System.out.println("Returning " + materials.size() + " materials for course " + courseId);
             return ResponseEntity.ok(materials);
             
@@ -189,7 +217,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
@@ -214,6 +242,89 @@ public class LecturerController {
         }
     }
 
+    // Resumable chunked uploads for materials too large for a single multipart request:
+    // create a session, PUT each chunk at its offset (in parallel if desired), then complete
+    @PostMapping("/courses/{courseId}/materials/uploads")
+    public ResponseEntity<?> createMaterialUpload(
+            @PathVariable Long courseId,
+            @RequestBody Map<String, Object> uploadData,
+            Authentication authentication) {
+        try {
+            User user = authService.getCurrentUser(authentication.getName());
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
+            if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
+                return ResponseEntity.status(403).body("Access denied");
+            }
+            return ResponseEntity.ok(uploadSessionService.createSession(courseId, user.getId(), uploadData));
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> getMaterialUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            User user = authService.getCurrentUser(authentication.getName());
+            return ResponseEntity.ok(uploadSessionService.getStatus(uploadId, user.getId()));
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // The raw request body is the chunk; it is streamed to disk, never buffered in memory
+    @PutMapping("/uploads/{uploadId}/chunks")
+    public ResponseEntity<?> uploadMaterialChunk(
+            @PathVariable String uploadId,
+            @RequestParam("offset") long offset,
+            @RequestHeader(value = "X-Chunk-Checksum", required = false) String checksum,
+            HttpServletRequest request,
+            Authentication authentication) {
+        try {
+            User user = authService.getCurrentUser(authentication.getName());
+            return ResponseEntity.ok(uploadSessionService.writeChunk(uploadId, user.getId(), offset, checksum,
+                    request.getInputStream()));
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<?> completeMaterialUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            User user = authService.getCurrentUser(authentication.getName());
+            CourseMaterial material = uploadSessionService.complete(uploadId, user.getId());
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Material uploaded successfully");
+            response.put("materialId", material.getId());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<?> abortMaterialUpload(@PathVariable String uploadId, Authentication authentication) {
+        try {
+            User user = authService.getCurrentUser(authentication.getName());
+            uploadSessionService.abort(uploadId, user.getId());
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Upload cancelled");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @PutMapping("/courses/{courseId}/materials/{materialId}")
     public ResponseEntity<String> updateCourseMaterial(
             @PathVariable Long courseId,
@@ -224,7 +335,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
@@ -254,7 +365,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
@@ -279,51 +390,86 @@ public class LecturerController {
     // Download course material - accessible by both lecturers and students
     @PreAuthorize("hasRole('LECTURER') or hasRole('STUDENT')")
     @GetMapping("/courses/{courseId}/materials/{materialId}/download")
-    public ResponseEntity<byte[]> downloadCourseMaterial(
+    public ResponseEntity<Resource> downloadCourseMaterial(
             @PathVariable Long courseId,
             @PathVariable Long materialId,
             Authentication authentication) {
         try {
-            String email = authentication.getName();
-            User user = authService.getCurrentUser(email);
-            
-            // Check if user has access to this course
-            boolean hasAccess = false;
-            
-            if ("LECTURER".equals(user.getRole().name())) {
-                Lecturer lecturer = lecturerService.getLecturerByUser(user);
-                hasAccess = courseService.isLecturerAssignedToCourse(lecturer, courseId);
-            } else if ("STUDENT".equals(user.getRole().name())) {
-                Student student = studentService.getStudentByUser(user);
-                hasAccess = studentService.isStudentEnrolledInCourse(student, courseId);
-            }
-            
-            if (!hasAccess) {
+            if (!hasCourseMaterialAccess(authentication, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            return lecturerService.downloadCourseMaterial(courseId, materialId);
+            return lecturerQueryService.downloadCourseMaterial(courseId, materialId);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Preview images of a material - same access rules as the download
+    @PreAuthorize("hasRole('LECTURER') or hasRole('STUDENT')")
+    @GetMapping("/courses/{courseId}/materials/{materialId}/preview/thumbnail")
+    public ResponseEntity<Resource> getMaterialThumbnail(
+            @PathVariable Long courseId,
+            @PathVariable Long materialId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication authentication) {
+        try {
+            if (!hasCourseMaterialAccess(authentication, courseId)) {
+                return ResponseEntity.status(403).build();
+            }
+            return materialPreviewService.thumbnail(courseId, materialId, ifNoneMatch);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PreAuthorize("hasRole('LECTURER') or hasRole('STUDENT')")
+    @GetMapping("/courses/{courseId}/materials/{materialId}/preview/pages/{page}")
+    public ResponseEntity<Resource> getMaterialPreviewPage(
+            @PathVariable Long courseId,
+            @PathVariable Long materialId,
+            @PathVariable int page,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            Authentication authentication) {
+        try {
+            if (!hasCourseMaterialAccess(authentication, courseId)) {
+                return ResponseEntity.status(403).build();
+            }
+            return materialPreviewService.page(courseId, materialId, page, ifNoneMatch);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    // Lecturers assigned to the course and students enrolled in it
+    private boolean hasCourseMaterialAccess(Authentication authentication, Long courseId) {
+        User user = authService.getCurrentUser(authentication.getName());
+        if ("LECTURER".equals(user.getRole().name())) {
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
+            return courseService.isLecturerAssignedToCourse(lecturer, courseId);
+        } else if ("STUDENT".equals(user.getRole().name())) {
+            Student student = studentQueryService.getStudentByUser(user);
+            return studentQueryService.isStudentEnrolledInCourse(student, courseId);
+        }
+        return false;
+    }
+
     // Assignment Management
     @GetMapping("/courses/{courseId}/assignments")
-    public ResponseEntity<List<Assignment>> getCourseAssignments(
+    public ResponseEntity<List<Map<String, Object>>> getCourseAssignments(
             @PathVariable Long courseId,
             Authentication authentication) {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            List<Assignment> assignments = lecturerService.getCourseAssignments(courseId);
+            List<Map<String, Object>> assignments = lecturerQueryService.getCourseAssignments(courseId);
             return ResponseEntity.ok(assignments);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -342,7 +488,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
@@ -375,10 +521,10 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this assignment via course
-            Long courseId = lecturerService.getCourseIdByAssignmentId(assignmentId);
+            Long courseId = lecturerQueryService.getCourseIdByAssignmentId(assignmentId);
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).body("Access denied");
             }
@@ -403,10 +549,10 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this assignment via course
-            Long courseId = lecturerService.getCourseIdByAssignmentId(assignmentId);
+            Long courseId = lecturerQueryService.getCourseIdByAssignmentId(assignmentId);
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).body("Access denied");
             }
@@ -420,21 +566,21 @@ public class LecturerController {
 
     @PreAuthorize("hasRole('LECTURER')")
     @GetMapping("/assignments/{assignmentId}/download")
-    public ResponseEntity<byte[]> downloadAssignmentFile(
+    public ResponseEntity<Resource> downloadAssignmentFile(
             @PathVariable Long assignmentId,
             Authentication authentication) {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this assignment via course
-            Long courseId = lecturerService.getCourseIdByAssignmentId(assignmentId);
+            Long courseId = lecturerQueryService.getCourseIdByAssignmentId(assignmentId);
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            return lecturerService.downloadAssignmentFile(assignmentId);
+            return lecturerQueryService.downloadAssignmentFile(assignmentId);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -448,15 +594,15 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this assignment via course
-            Long courseId = lecturerService.getCourseIdByAssignmentId(assignmentId);
+            Long courseId = lecturerQueryService.getCourseIdByAssignmentId(assignmentId);
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            List<Map<String, Object>> submissions = lecturerService.getAssignmentSubmissions(assignmentId);
+            List<Map<String, Object>> submissions = lecturerQueryService.getAssignmentSubmissions(assignmentId);
             return ResponseEntity.ok(submissions);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -470,37 +616,120 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this course
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            List<Map<String, Object>> submissions = lecturerService.getCourseSubmissions(courseId);
+            List<Map<String, Object>> submissions = lecturerQueryService.getCourseSubmissions(courseId);
             return ResponseEntity.ok(submissions);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    // Pairs of near-duplicate submissions within an assignment
+    @PreAuthorize("hasRole('LECTURER')")
+    @GetMapping("/assignments/{assignmentId}/similarity")
+    public ResponseEntity<?> getSubmissionSimilarity(
+            @PathVariable Long assignmentId,
+            @RequestParam(required = false) Double threshold,
+            Authentication authentication) {
+        try {
+            String email = authentication.getName();
+            User user = authService.getCurrentUser(email);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
+
+            Long courseId = lecturerQueryService.getCourseIdByAssignmentId(assignmentId);
+            if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
+                return ResponseEntity.status(403).build();
+            }
+            return ResponseEntity.ok(submissionSimilarityService.findSimilarPairs(assignmentId, threshold));
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // All submission files of an assignment as one ZIP, streamed while it is built
+    @PreAuthorize("hasRole('LECTURER')")
+    @GetMapping("/assignments/{assignmentId}/submissions/archive")
+    public void downloadAssignmentSubmissionsArchive(
+            @PathVariable Long assignmentId,
+            Authentication authentication,
+            HttpServletResponse response) throws IOException {
+        List<SubmissionArchiveService.ArchiveEntry> entries;
+        try {
+            String email = authentication.getName();
+            User user = authService.getCurrentUser(email);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
+
+            Long courseId = lecturerQueryService.getCourseIdByAssignmentId(assignmentId);
+            if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
+                response.sendError(403);
+                return;
+            }
+            entries = submissionArchiveService.entriesForAssignment(assignmentId);
+        } catch (Exception e) {
+            response.sendError(400, e.getMessage());
+            return;
+        }
+        streamArchive(response, "assignment-" + assignmentId + "-submissions.zip", entries);
+    }
+
+    @PreAuthorize("hasRole('LECTURER')")
+    @GetMapping("/courses/{courseId}/submissions/archive")
+    public void downloadCourseSubmissionsArchive(
+            @PathVariable Long courseId,
+            Authentication authentication,
+            HttpServletResponse response) throws IOException {
+        List<SubmissionArchiveService.ArchiveEntry> entries;
+        try {
+            String email = authentication.getName();
+            User user = authService.getCurrentUser(email);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
+
+            if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
+                response.sendError(403);
+                return;
+            }
+            entries = submissionArchiveService.entriesForCourse(courseId);
+        } catch (Exception e) {
+            response.sendError(400, e.getMessage());
+            return;
+        }
+        streamArchive(response, "course-" + courseId + "-submissions.zip", entries);
+    }
+
+    // No Content-Length: the archive size is only known once it has been sent
+    private void streamArchive(HttpServletResponse response, String fileName,
+                               List<SubmissionArchiveService.ArchiveEntry> entries) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        response.setHeader("X-Accel-Buffering", "no");
+        submissionArchiveService.write(entries, response.getOutputStream());
+    }
+
     @PreAuthorize("hasRole('LECTURER')")
     @GetMapping("/submissions/{submissionId}/download")
-    public ResponseEntity<byte[]> downloadSubmissionFile(
+    public ResponseEntity<Resource> downloadSubmissionFile(
             @PathVariable Long submissionId,
             Authentication authentication) {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this submission via course
-            Long courseId = lecturerService.getCourseIdBySubmissionId(submissionId);
+            Long courseId = lecturerQueryService.getCourseIdBySubmissionId(submissionId);
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            return lecturerService.downloadSubmissionFile(submissionId);
+            return lecturerQueryService.downloadSubmissionFile(submissionId);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -508,13 +737,15 @@ public class LecturerController {
 
     // Grade management placeholder
     @PutMapping("/courses/{courseId}/students/{studentId}/grade")
-    public ResponseEntity<String> updateStudentGrade(
+    public ResponseEntity<?> updateStudentGrade(
             @PathVariable Long courseId,
             @PathVariable Long studentId,
             @RequestBody Map<String, Object> gradeData) {
         try {
             lecturerService.updateStudentGrade(courseId, studentId, gradeData);
             return ResponseEntity.ok("Grade updated successfully");
+        } catch (OptimisticLockingFailureException e) {
+            return gradeConflict(lecturerService.getEnrollmentGradeState(courseId, studentId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error updating grade: " + e.getMessage());
         }
@@ -522,28 +753,38 @@ public class LecturerController {
 
     // Assignment submission grading endpoint
     @PutMapping("/submissions/{submissionId}/grade")
-    public ResponseEntity<String> gradeSubmission(
+    public ResponseEntity<?> gradeSubmission(
             @PathVariable Long submissionId,
             @RequestBody Map<String, Object> gradeData,
             Authentication authentication) {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             // Verify lecturer has access to this submission via course
-            Long courseId = lecturerService.getCourseIdBySubmissionId(submissionId);
+            Long courseId = lecturerQueryService.getCourseIdBySubmissionId(submissionId);
             if (!courseService.isLecturerAssignedToCourse(lecturer, courseId)) {
                 return ResponseEntity.status(403).body("Access denied");
             }
             
             lecturerService.gradeSubmission(submissionId, gradeData);
             return ResponseEntity.ok("Submission graded successfully");
+        } catch (OptimisticLockingFailureException e) {
+            return gradeConflict(lecturerService.getSubmissionGradeState(submissionId));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error grading submission: " + e.getMessage());
         }
     }
 
+    // Someone else graded in the meantime: send back what is stored now
+    private ResponseEntity<?> gradeConflict(Map<String, Object> current) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "The grade was changed by someone else. Review the current grade and try again");
+        response.put("current", current);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
     // Recent Activities
     @GetMapping("/recent-activities")
     @PreAuthorize("hasRole('LECTURER')")
@@ -551,9 +792,9 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
-            List<Map<String, Object>> activities = lecturerService.getRecentActivities(lecturer);
+            List<Map<String, Object>> activities = lecturerQueryService.getRecentActivities(lecturer);
             return ResponseEntity.ok(activities);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
@@ -569,9 +810,9 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
-            Map<String, Object> profile = lecturerService.getProfile(lecturer);
+            Map<String, Object> profile = lecturerQueryService.getProfile(lecturer);
             return ResponseEntity.ok(profile);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
@@ -588,7 +829,7 @@ public class LecturerController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Lecturer lecturer = lecturerService.getLecturerByUser(user);
+            Lecturer lecturer = lecturerQueryService.getLecturerByUser(user);
             
             lecturerService.updateProfile(lecturer, profileData);
             return ResponseEntity.ok("Profile updated successfully");
@@ -610,6 +851,12 @@ public class LecturerController {
             
             lecturerService.changePassword(user, passwordData);
             return ResponseEntity.ok("Password changed successfully");
+        } catch (PasswordHashingOverloadedException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", "Failed to change password: " + e.getMessage());
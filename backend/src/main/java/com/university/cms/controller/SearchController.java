@@ -0,0 +1,60 @@
+package com.university.cms.controller;
+
+import com.university.cms.entity.User;
+import com.university.cms.service.AuthService;
+import com.university.cms.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private AuthService authService;
+
+    // Search courses, materials and assignments visible to the current user
+    @GetMapping("/search")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> search(@RequestParam("q") String query,
+                                    @RequestParam(value = "limit", required = false) Integer limit,
+                                    Authentication authentication) {
+        try {
+            User user = authService.getCurrentUser(authentication.getName());
+            List<Map<String, Object>> results = searchService.search(user, query, limit);
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // Rebuild the index from the database
+    @PostMapping("/admin/search/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> reindex() {
+        try {
+            int indexed = searchService.rebuild();
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Search index rebuilt");
+            response.put("documents", indexed);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
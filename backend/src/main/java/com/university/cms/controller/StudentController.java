@@ -3,8 +3,18 @@ package com.university.cms.controller;
 import com.university.cms.entity.User;
 import com.university.cms.entity.Student;
 import com.university.cms.service.AuthService;
+import com.university.cms.service.CourseFullException;
+import com.university.cms.service.StudentQueryService;
 import com.university.cms.service.StudentService;
+import com.university.cms.service.WaitingRoomService;
+import com.university.cms.service.WaitlistService;
+import com.university.cms.security.PasswordHashingOverloadedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -20,10 +30,32 @@ public class StudentController {
 
     @Autowired
     private StudentService studentService;
+
+    @Autowired
+    private StudentQueryService studentQueryService;
     
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private WaitingRoomService waitingRoomService;
+
+    // Registration waiting room: takes a ticket if the student isn't admitted yet
+    @GetMapping("/waiting-room")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> getWaitingRoomStatus(Authentication authentication) {
+        WaitingRoomService.Admission admission = waitingRoomService.check(authentication.getName());
+        Map<String, Object> response = new HashMap<>();
+        response.put("admitted", admission.admitted());
+        response.put("ticket", admission.ticket());
+        response.put("position", admission.position());
+        response.put("estimatedWaitSeconds", admission.estimatedWaitSeconds());
+        return ResponseEntity.ok(response);
+    }
+
     // Enrollment endpoints
     @PostMapping("/enrollments")
     @PreAuthorize("hasRole('STUDENT')")
@@ -33,12 +65,18 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             Long courseId = Long.valueOf(enrollmentData.get("courseId").toString());
             
-            Map<String, Object> result = studentService.enrollInCourse(student, courseId);
-            return ResponseEntity.ok(result);
+            try {
+                Map<String, Object> result = studentService.enrollInCourse(student, courseId);
+                return ResponseEntity.ok(result);
+            } catch (CourseFullException e) {
+                // No seat left: queue the student instead of having them retry
+                Map<String, Object> result = waitlistService.join(student, courseId);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(result);
+            }
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -52,9 +90,9 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
-            return ResponseEntity.ok(studentService.getStudentEnrollments(student));
+            return ResponseEntity.ok(studentQueryService.getStudentEnrollments(student));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -70,7 +108,7 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             studentService.dropCourse(student, courseId);
             Map<String, String> response = new HashMap<>();
@@ -83,6 +121,68 @@ public class StudentController {
         }
     }
 
+    // Waitlist endpoints
+    @GetMapping("/waitlist")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> getMyWaitlist(Authentication authentication) {
+        try {
+            String email = authentication.getName();
+            User user = authService.getCurrentUser(email);
+            Student student = studentQueryService.getStudentByUser(user);
+
+            return ResponseEntity.ok(waitlistService.getStudentWaitlist(student));
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @GetMapping("/waitlist/{courseId}")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> getWaitlistPosition(
+            @PathVariable Long courseId,
+            Authentication authentication) {
+        try {
+            String email = authentication.getName();
+            User user = authService.getCurrentUser(email);
+            Student student = studentQueryService.getStudentByUser(user);
+
+            Integer position = waitlistService.getPosition(courseId, student.getId());
+            Map<String, Object> response = new HashMap<>();
+            response.put("courseId", courseId);
+            response.put("waitlisted", position != null);
+            response.put("position", position);
+            response.put("waitingCount", waitlistService.getWaitingCount(courseId));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @DeleteMapping("/waitlist/{courseId}")
+    @PreAuthorize("hasRole('STUDENT')")
+    public ResponseEntity<?> leaveWaitlist(
+            @PathVariable Long courseId,
+            Authentication authentication) {
+        try {
+            String email = authentication.getName();
+            User user = authService.getCurrentUser(email);
+            Student student = studentQueryService.getStudentByUser(user);
+
+            waitlistService.leave(student, courseId);
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Removed from the waitlist");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/courses/{courseId}")
     @PreAuthorize("hasRole('STUDENT')")
     public ResponseEntity<?> getCourseById(
@@ -91,9 +191,9 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
-            return ResponseEntity.ok(studentService.getCourseById(student, courseId));
+            return ResponseEntity.ok(studentQueryService.getCourseById(student, courseId));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -109,9 +209,9 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
-            return ResponseEntity.ok(studentService.getCourseMaterials(student, courseId));
+            return ResponseEntity.ok(studentQueryService.getCourseMaterials(student, courseId));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -127,9 +227,9 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
-            return ResponseEntity.ok(studentService.getCourseStudents(student, courseId));
+            return ResponseEntity.ok(studentQueryService.getCourseStudents(student, courseId));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -145,9 +245,9 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
-            return ResponseEntity.ok(studentService.getStudentGrade(student, courseId));
+            return ResponseEntity.ok(studentQueryService.getStudentGrade(student, courseId));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -162,9 +262,9 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
-            return ResponseEntity.ok(studentService.getStudentProfile(student));
+            return ResponseEntity.ok(studentQueryService.getStudentProfile(student));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -180,7 +280,7 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             studentService.updateStudentProfile(student, profileData);
             Map<String, String> response = new HashMap<>();
@@ -201,7 +301,7 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             String currentPassword = passwordData.get("currentPassword");
             String newPassword = passwordData.get("newPassword");
@@ -210,6 +310,12 @@ public class StudentController {
             Map<String, String> response = new HashMap<>();
             response.put("message", "Password changed successfully");
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingOverloadedException e) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -226,14 +332,14 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             // Verify student is enrolled in this course
-            if (!studentService.isStudentEnrolledInCourse(student, courseId)) {
+            if (!studentQueryService.isStudentEnrolledInCourse(student, courseId)) {
                 return ResponseEntity.status(403).body("Access denied: Not enrolled in this course");
             }
             
-            return ResponseEntity.ok(studentService.getCourseAssignments(courseId));
+            return ResponseEntity.ok(studentQueryService.getCourseAssignments(courseId));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
@@ -243,21 +349,21 @@ public class StudentController {
 
     @GetMapping("/assignments/{assignmentId}/download")
     @PreAuthorize("hasRole('STUDENT')")
-    public ResponseEntity<byte[]> downloadAssignmentFile(
+    public ResponseEntity<Resource> downloadAssignmentFile(
             @PathVariable Long assignmentId,
             Authentication authentication) {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             // Verify student has access to this assignment via course enrollment
-            Long courseId = studentService.getCourseIdByAssignmentId(assignmentId);
-            if (!studentService.isStudentEnrolledInCourse(student, courseId)) {
+            Long courseId = studentQueryService.getCourseIdByAssignmentId(assignmentId);
+            if (!studentQueryService.isStudentEnrolledInCourse(student, courseId)) {
                 return ResponseEntity.status(403).build();
             }
             
-            return studentService.downloadAssignmentFile(assignmentId);
+            return studentQueryService.downloadAssignmentFile(assignmentId);
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -274,15 +380,22 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             // Verify student has access to this assignment via course enrollment
-            Long courseId = studentService.getCourseIdByAssignmentId(assignmentId);
-            if (!studentService.isStudentEnrolledInCourse(student, courseId)) {
+            Long courseId = studentQueryService.getCourseIdByAssignmentId(assignmentId);
+            if (!studentQueryService.isStudentEnrolledInCourse(student, courseId)) {
                 return ResponseEntity.status(403).body("Access denied: Not enrolled in this course");
             }
             
-            studentService.submitAssignment(assignmentId, student, submissionText, file);
+            try {
+                studentService.submitAssignment(assignmentId, student, submissionText, file);
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                Map<String, Object> response = new HashMap<>();
+                response.put("message", "This assignment was submitted again in the meantime. Review the current submission and try again");
+                response.put("current", studentService.getSubmissionState(assignmentId, student));
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
             
             Map<String, String> response = new HashMap<>();
             response.put("message", "Assignment submitted successfully");
@@ -302,15 +415,15 @@ public class StudentController {
         try {
             String email = authentication.getName();
             User user = authService.getCurrentUser(email);
-            Student student = studentService.getStudentByUser(user);
+            Student student = studentQueryService.getStudentByUser(user);
             
             // Verify student has access to this assignment via course enrollment
-            Long courseId = studentService.getCourseIdByAssignmentId(assignmentId);
-            if (!studentService.isStudentEnrolledInCourse(student, courseId)) {
+            Long courseId = studentQueryService.getCourseIdByAssignmentId(assignmentId);
+            if (!studentQueryService.isStudentEnrolledInCourse(student, courseId)) {
                 return ResponseEntity.status(403).body("Access denied: Not enrolled in this course");
             }
             
-            return ResponseEntity.ok(studentService.getMySubmission(assignmentId, student));
+            return ResponseEntity.ok(studentQueryService.getMySubmission(assignmentId, student));
         } catch (Exception e) {
             Map<String, String> response = new HashMap<>();
             response.put("message", e.getMessage());
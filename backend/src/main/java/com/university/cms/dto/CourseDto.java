@@ -24,6 +24,16 @@ public class CourseDto {
     @NotBlank(message = "Department is required")  
     private String department;
     
+    // Maximum number of enrolled students; null means unlimited on create and unchanged on update
+    @Positive(message = "Capacity must be positive")
+    private Integer capacity;
+    
+    // Update only: true removes the course's capacity limit
+    private Boolean unlimitedCapacity;
+    
+    // Version the client last read; when set, the update fails if the course changed since
+    private Long version;
+    
     public CourseDto() {}
     
     public String getCourseCode() {
@@ -73,4 +83,28 @@ public class CourseDto {
     public void setDepartment(String department) {
         this.department = department;
     }
+    
+    public Integer getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+    
+    public Boolean getUnlimitedCapacity() {
+        return unlimitedCapacity;
+    }
+    
+    public void setUnlimitedCapacity(Boolean unlimitedCapacity) {
+        this.unlimitedCapacity = unlimitedCapacity;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
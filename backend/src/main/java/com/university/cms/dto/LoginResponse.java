@@ -9,6 +9,8 @@ public class LoginResponse {
     private String firstName;
     private String lastName;
     private Long userId;
+    private String refreshToken;
+    private Long expiresIn;
     
     public LoginResponse() {}
     
@@ -76,4 +78,21 @@ public class LoginResponse {
     public void setUserId(Long userId) {
         this.userId = userId;
     }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    // Access token lifetime in seconds
+    public Long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public void setExpiresIn(Long expiresIn) {
+        this.expiresIn = expiresIn;
+    }
 }
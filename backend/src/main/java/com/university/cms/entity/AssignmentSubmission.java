@@ -6,20 +6,22 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "assignment_submissions")
+@Table(name = "assignment_submissions", uniqueConstraints = @UniqueConstraint(
+        name = "uk_submissions_assignment_student", columnNames = {"assignment_id", "student_id"}))
 public class AssignmentSubmission {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assignment_id", nullable = false)
     private Assignment assignment;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     private Student student;
     
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "submission_text", columnDefinition = "TEXT")
     private String submissionText;
     
@@ -39,12 +41,17 @@ public class AssignmentSubmission {
     @Column(name = "grade")
     private Double grade;
     
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "feedback", columnDefinition = "TEXT")
     private String feedback;
     
     @Column(name = "graded_at")
     private LocalDateTime gradedAt;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructors
     public AssignmentSubmission() {}
     
@@ -142,4 +149,8 @@ public class AssignmentSubmission {
     public void setGradedAt(LocalDateTime gradedAt) {
         this.gradedAt = gradedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
 }
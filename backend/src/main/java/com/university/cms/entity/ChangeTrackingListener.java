@@ -0,0 +1,28 @@
+package com.university.cms.entity;
+
+import com.university.cms.service.ChangeVersionService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.Table;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Bumps the change counter of the entity's table on every insert, update or delete.
+ * Instantiated by Hibernate through Spring's bean container, so injection works here.
+ */
+public class ChangeTrackingListener {
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Table table = entity.getClass().getAnnotation(Table.class);
+        if (table != null) {
+            changeVersionService.markChanged(table.name());
+        }
+    }
+}
@@ -1,37 +1,55 @@
 package com.university.cms.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "courses")
+@NamedEntityGraph(name = "Course.catalog",
+        attributeNodes = {
+                @NamedAttributeNode("degree"),
+                @NamedAttributeNode(value = "lecturer", subgraph = "lecturer")
+        },
+        subgraphs = @NamedSubgraph(name = "lecturer", attributeNodes = @NamedAttributeNode("user")))
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@EntityListeners(ChangeTrackingListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 public class Course {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    @NaturalId(mutable = true)
     @Column(name = "course_code", unique = true, nullable = false)
     private String courseCode;
     
     @Column(nullable = false)
     private String title;
     
+    @Basic(fetch = FetchType.LAZY)
     @Column(columnDefinition = "TEXT")
     private String description;
     
     @Column(nullable = false)
     private Integer credits;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "degree_id")
     private Degree degree;
     
     @Column(nullable = false)
     private String department;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "lecturer_id")
     private Lecturer lecturer;
     
@@ -46,6 +64,11 @@ public class Course {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Incremented on every update; a stale write fails instead of overwriting
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructors
     public Course() {}
     
@@ -144,6 +167,10 @@ public class Course {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
     // Enums
     public enum Status {
         ACTIVE, INACTIVE
@@ -7,12 +7,13 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "course_materials")
+@EntityListeners(ChangeTrackingListener.class)
 public class CourseMaterial {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
     
@@ -35,6 +36,14 @@ public class CourseMaterial {
     @Column(name = "upload_date")
     private LocalDateTime uploadDate;
     
+    // SHA-256 of the file; set by the preview worker and keys the preview files
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+    
+    // NULL until previews have been generated, 0 when the file has none
+    @Column(name = "preview_pages")
+    private Integer previewPages;
+    
     // Constructors
     public CourseMaterial() {}
     
@@ -111,4 +120,20 @@ public class CourseMaterial {
     public void setUploadDate(LocalDateTime uploadDate) {
         this.uploadDate = uploadDate;
     }
+    
+    public String getContentHash() {
+        return contentHash;
+    }
+    
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+    
+    public Integer getPreviewPages() {
+        return previewPages;
+    }
+    
+    public void setPreviewPages(Integer previewPages) {
+        this.previewPages = previewPages;
+    }
 }
@@ -0,0 +1,56 @@
+package com.university.cms.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Capacity and enrolled count of a course. The count is only ever changed through
+ * the conditional updates in CourseSeatsRepository, never by saving this entity.
+ */
+@Entity
+@Table(name = "course_seats")
+@EntityListeners(ChangeTrackingListener.class)
+public class CourseSeats {
+    @Id
+    @Column(name = "course_id")
+    private Long courseId;
+
+    // null means unlimited
+    @Column(name = "capacity")
+    private Integer capacity;
+
+    @Column(name = "enrolled_count", nullable = false)
+    private Integer enrolledCount = 0;
+
+    // Constructors
+    public CourseSeats() {}
+
+    public CourseSeats(Long courseId, Integer capacity) {
+        this.courseId = courseId;
+        this.capacity = capacity;
+    }
+
+    // Getters and Setters
+    public Long getCourseId() {
+        return courseId;
+    }
+
+    public void setCourseId(Long courseId) {
+        this.courseId = courseId;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+
+    public Integer getEnrolledCount() {
+        return enrolledCount;
+    }
+
+    public Integer getAvailableSeats() {
+        return capacity == null ? null : Math.max(0, capacity - enrolledCount);
+    }
+}
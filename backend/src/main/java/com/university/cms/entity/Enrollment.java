@@ -6,17 +6,25 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "enrollments")
+@Table(name = "enrollments", uniqueConstraints = @UniqueConstraint(
+        name = "uk_enrollments_student_course", columnNames = {"student_id", "course_id"}))
+@NamedEntityGraph(name = "Enrollment.roster",
+        attributeNodes = @NamedAttributeNode(value = "student", subgraph = "student"),
+        subgraphs = @NamedSubgraph(name = "student", attributeNodes = @NamedAttributeNode("user")))
+@NamedEntityGraph(name = "Enrollment.withCourse",
+        attributeNodes = @NamedAttributeNode(value = "course", subgraph = "course"),
+        subgraphs = @NamedSubgraph(name = "course", attributeNodes = @NamedAttributeNode("lecturer")))
+@EntityListeners(ChangeTrackingListener.class)
 public class Enrollment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "student_id", nullable = false)
     private Student student;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "course_id", nullable = false)
     private Course course;
     
@@ -37,6 +45,10 @@ public class Enrollment {
     @Column(name = "graded_date")
     private LocalDateTime gradedDate;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructors
     public Enrollment() {}
     
@@ -110,6 +122,10 @@ public class Enrollment {
         this.gradedDate = gradedDate;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
     // Enums
     public enum Status {
         ENROLLED, DROPPED, COMPLETED
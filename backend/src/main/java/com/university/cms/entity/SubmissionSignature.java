@@ -0,0 +1,73 @@
+package com.university.cms.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * MinHash signature of a submission's text, used to find near-duplicates within an assignment.
+ */
+@Entity
+@Table(name = "submission_signatures")
+public class SubmissionSignature {
+    @Id
+    @Column(name = "submission_id")
+    private Long submissionId;
+
+    @Column(name = "assignment_id", nullable = false)
+    private Long assignmentId;
+
+    // null when the submission has no text
+    @Column(columnDefinition = "VARBINARY(512)")
+    private byte[] signature;
+
+    @Column(name = "shingle_count", nullable = false)
+    private Integer shingleCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public SubmissionSignature() {}
+
+    // Getters and Setters
+    public Long getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(Long submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public Long getAssignmentId() {
+        return assignmentId;
+    }
+
+    public void setAssignmentId(Long assignmentId) {
+        this.assignmentId = assignmentId;
+    }
+
+    public byte[] getSignature() {
+        return signature;
+    }
+
+    public void setSignature(byte[] signature) {
+        this.signature = signature;
+    }
+
+    public Integer getShingleCount() {
+        return shingleCount;
+    }
+
+    public void setShingleCount(Integer shingleCount) {
+        this.shingleCount = shingleCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
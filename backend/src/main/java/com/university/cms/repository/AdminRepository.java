@@ -2,6 +2,7 @@ package com.university.cms.repository;
 
 import com.university.cms.entity.Admin;
 import com.university.cms.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,6 +10,9 @@ import java.util.Optional;
 
 @Repository
 public interface AdminRepository extends JpaRepository<Admin, Long> {
+    @EntityGraph(attributePaths = "user")
     Admin findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "user")
     Optional<Admin> findByUser(User user);
 }
@@ -1,12 +1,28 @@
 package com.university.cms.repository;
 
 import com.university.cms.entity.Assignment;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface AssignmentRepository extends JpaRepository<Assignment, Long> {
     List<Assignment> findByCourseId(Long courseId);
+
+    // Course assignment list, lazy description included, read as plain columns in one query:
+    // id, title, description, due date, max points, file name, file size, created at
+    @Query("SELECT a.id, a.title, a.description, a.dueDate, a.maxPoints, a.fileName, a.fileSize, a.createdAt " +
+           "FROM Assignment a WHERE a.course.id = :courseId")
+    List<Object[]> findListRowsByCourseId(@Param("courseId") Long courseId);
+
+    // id, file path of every assignment with an attached file, streamed for reconciliation
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"))
+    @Query("SELECT a.id, a.filePath FROM Assignment a WHERE a.filePath IS NOT NULL")
+    Stream<Object[]> streamFilePaths();
 }
@@ -1,11 +1,16 @@
 package com.university.cms.repository;
 
 import com.university.cms.entity.AssignmentSubmission;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AssignmentSubmissionRepository extends JpaRepository<AssignmentSubmission, Long> {
@@ -13,4 +18,36 @@ public interface AssignmentSubmissionRepository extends JpaRepository<Assignment
     List<AssignmentSubmission> findByStudentId(Long studentId);
     Optional<AssignmentSubmission> findByAssignmentIdAndStudentId(Long assignmentId, Long studentId);
     List<AssignmentSubmission> findByAssignmentCourseId(Long courseId);
+
+    @Query("SELECT s.id FROM AssignmentSubmission s WHERE s.assignment.id = :assignmentId")
+    List<Long> findIdsByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    // Submission lists, lazy submissionText and feedback included, read as plain columns in one query:
+    // id, student number, first name, last name, assignment title, text, file name, file size,
+    // submitted at, grade, feedback, graded at
+    @Query("SELECT s.id, st.studentId, st.firstName, st.lastName, a.title, s.submissionText, s.fileName, " +
+           "s.fileSize, s.submittedAt, s.grade, s.feedback, s.gradedAt " +
+           "FROM AssignmentSubmission s JOIN s.student st JOIN s.assignment a WHERE a.id = :assignmentId")
+    List<Object[]> findListRowsByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT s.id, st.studentId, st.firstName, st.lastName, a.title, s.submissionText, s.fileName, " +
+           "s.fileSize, s.submittedAt, s.grade, s.feedback, s.gradedAt " +
+           "FROM AssignmentSubmission s JOIN s.student st JOIN s.assignment a WHERE a.course.id = :courseId")
+    List<Object[]> findListRowsByAssignmentCourseId(@Param("courseId") Long courseId);
+
+    // Submission archives: just what is needed to name and read each file, in archive order
+    @Query("SELECT s.student.studentId, s.assignment.id, s.assignment.title, s.fileName, s.filePath " +
+           "FROM AssignmentSubmission s WHERE s.assignment.id = :assignmentId AND s.filePath IS NOT NULL " +
+           "ORDER BY s.student.studentId")
+    List<Object[]> findArchiveFilesByAssignmentId(@Param("assignmentId") Long assignmentId);
+
+    @Query("SELECT s.student.studentId, s.assignment.id, s.assignment.title, s.fileName, s.filePath " +
+           "FROM AssignmentSubmission s WHERE s.assignment.course.id = :courseId AND s.filePath IS NOT NULL " +
+           "ORDER BY s.assignment.id, s.student.studentId")
+    List<Object[]> findArchiveFilesByCourseId(@Param("courseId") Long courseId);
+
+    // id, file path of every submitted file, streamed for reconciliation
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"))
+    @Query("SELECT s.id, s.filePath FROM AssignmentSubmission s WHERE s.filePath IS NOT NULL")
+    Stream<Object[]> streamFilePaths();
 }
@@ -1,12 +1,39 @@
 package com.university.cms.repository;
 
 import com.university.cms.entity.CourseMaterial;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface CourseMaterialRepository extends JpaRepository<CourseMaterial, Long> {
     List<CourseMaterial> findByCourseId(Long courseId);
+
+    boolean existsByContentHash(String contentHash);
+
+    // id, file name, file path of materials the preview worker hasn't processed yet
+    @Query("SELECT m.id, m.fileName, m.filePath FROM CourseMaterial m WHERE m.previewPages IS NULL ORDER BY m.id")
+    List<Object[]> findPendingPreviews(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE CourseMaterial m SET m.contentHash = :contentHash, m.previewPages = :previewPages WHERE m.id = :id")
+    int recordPreview(@Param("id") Long id, @Param("contentHash") String contentHash,
+                      @Param("previewPages") int previewPages);
+
+    // Streamed row by row (MySQL fetch size MIN_VALUE) by the upload reconciliation job; needs a surrounding transaction
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"))
+    @Query("SELECT m.id, m.filePath FROM CourseMaterial m WHERE m.filePath IS NOT NULL")
+    Stream<Object[]> streamFilePaths();
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "-2147483648"))
+    @Query("SELECT DISTINCT m.contentHash FROM CourseMaterial m WHERE m.contentHash IS NOT NULL")
+    Stream<String> streamContentHashes();
 }
@@ -2,17 +2,39 @@ package com.university.cms.repository;
 
 import com.university.cms.entity.Course;
 import com.university.cms.entity.Lecturer;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CourseRepository extends JpaRepository<Course, Long> {
+public interface CourseRepository extends JpaRepository<Course, Long>, CourseRepositoryCustom {
     boolean existsByCourseCode(String courseCode);
     Optional<Course> findByCourseCode(String courseCode);
     List<Course> findByLecturerId(Long lecturerId);
     List<Course> findByLecturer(Lecturer lecturer);
     List<Course> findByStatus(Course.Status status);
+
+    @EntityGraph("Course.catalog")
+    Optional<Course> findWithCatalogById(Long id);
+
+    // Catalog listings read degree and lecturer names for every course
+    @EntityGraph("Course.catalog")
+    @Query("SELECT c FROM Course c")
+    List<Course> findAllForCatalog();
+
+    // Admin course list, lazy description included, read as plain columns in one query:
+    // id, code, title, description, credits, version, department, status, createdAt, updatedAt,
+    // degree id, name, department, lecturer id, first name, last name
+    @Query("SELECT c.id, c.courseCode, c.title, c.description, c.credits, c.version, c.department, c.status, " +
+           "c.createdAt, c.updatedAt, d.id, d.name, d.department, l.id, l.firstName, l.lastName " +
+           "FROM Course c LEFT JOIN c.degree d LEFT JOIN c.lecturer l")
+    List<Object[]> findAdminListRows();
+
+    @Query("SELECT c.id FROM Course c WHERE c.lecturer.id = :lecturerId")
+    List<Long> findIdsByLecturerId(@Param("lecturerId") Long lecturerId);
 }
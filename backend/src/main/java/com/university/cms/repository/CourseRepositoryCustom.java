@@ -0,0 +1,10 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.Course;
+
+import java.util.Optional;
+
+public interface CourseRepositoryCustom {
+    // Resolves a course through the natural-id cache instead of a query on course_code
+    Optional<Course> findByNaturalCourseCode(String courseCode);
+}
@@ -0,0 +1,36 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.CourseSeats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CourseSeatsRepository extends JpaRepository<CourseSeats, Long> {
+
+    // Takes a seat if one is free; 0 rows updated means the course is full
+    @Modifying
+    @Query("UPDATE CourseSeats s SET s.enrolledCount = s.enrolledCount + 1 " +
+           "WHERE s.courseId = :courseId AND (s.capacity IS NULL OR s.enrolledCount < s.capacity)")
+    int tryReserve(@Param("courseId") Long courseId);
+
+    @Modifying
+    @Query("UPDATE CourseSeats s SET s.enrolledCount = s.enrolledCount - 1 " +
+           "WHERE s.courseId = :courseId AND s.enrolledCount > 0")
+    int release(@Param("courseId") Long courseId);
+
+    // Refuses to shrink below the current enrollment
+    @Modifying
+    @Query("UPDATE CourseSeats s SET s.capacity = :capacity " +
+           "WHERE s.courseId = :courseId AND (:capacity IS NULL OR s.enrolledCount <= :capacity)")
+    int updateCapacity(@Param("courseId") Long courseId, @Param("capacity") Integer capacity);
+
+    // For courses created outside CourseService (seed data); a no-op when the row exists
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO course_seats (course_id, capacity, enrolled_count) " +
+                   "SELECT :courseId, NULL, COUNT(*) FROM enrollments WHERE course_id = :courseId AND status = 'ENROLLED'",
+           nativeQuery = true)
+    int insertIfMissing(@Param("courseId") Long courseId);
+}
@@ -1,7 +1,9 @@
 package com.university.cms.repository;
 
 import com.university.cms.entity.Degree;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,5 +12,6 @@ import java.util.Optional;
 @Repository
 public interface DegreeRepository extends JpaRepository<Degree, Long> {
     Optional<Degree> findByName(String name);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Degree> findByDepartment(String department);
 }
@@ -1,7 +1,9 @@
 package com.university.cms.repository;
 
 import com.university.cms.entity.Enrollment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,15 +12,38 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long>, EnrollmentRepositoryCustom {
+    @EntityGraph("Enrollment.withCourse")
     List<Enrollment> findByStudentId(Long studentId);
+
     List<Enrollment> findByCourseId(Long courseId);
+
+    // Roster views: enrollment rows with the student and their user account
+    @EntityGraph("Enrollment.roster")
+    List<Enrollment> findRosterByCourseId(Long courseId);
+
     Optional<Enrollment> findByStudentIdAndCourseId(Long studentId, Long courseId);
+
+    // Conditional drop: only an active enrollment changes, so 1 means this call freed a seat
+    @Modifying
+    @Query("UPDATE Enrollment e SET e.status = com.university.cms.entity.Enrollment.Status.DROPPED, " +
+           "e.version = e.version + 1 " +
+           "WHERE e.student.id = :studentId AND e.course.id = :courseId AND e.status = 'ENROLLED'")
+    int dropIfEnrolled(@Param("studentId") Long studentId, @Param("courseId") Long courseId);
     
     // New methods for recent activities
+    @EntityGraph(attributePaths = "student")
     List<Enrollment> findByCourseIdOrderByEnrollmentDateDesc(Long courseId);
+    @EntityGraph(attributePaths = "student")
     List<Enrollment> findByCourseIdAndFinalGradeIsNotNullOrderByGradedDateDesc(Long courseId);
     
     @Query("SELECT COUNT(e) FROM Enrollment e WHERE e.course.id = :courseId AND e.status = 'ENROLLED'")
     long countEnrolledByCourseId(@Param("courseId") Long courseId);
+
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.student.id = :studentId AND e.status = 'ENROLLED'")
+    List<Long> findEnrolledCourseIdsByStudentId(@Param("studentId") Long studentId);
+
+    // Course id and status of every enrollment row the student has, dropped ones included
+    @Query("SELECT e.course.id, e.status FROM Enrollment e WHERE e.student.id = :studentId")
+    List<Object[]> findCourseStatusesByStudentId(@Param("studentId") Long studentId);
 }
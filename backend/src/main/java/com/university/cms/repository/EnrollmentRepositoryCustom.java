@@ -0,0 +1,10 @@
+package com.university.cms.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface EnrollmentRepositoryCustom {
+    // Inserts the enrollment or reactivates a dropped one in a single statement; returns the
+    // enrollment id when this call made it active, empty when it was already enrolled or completed
+    Optional<Long> enrollOrReactivate(Long studentId, Long courseId, LocalDateTime enrollmentDate);
+}
@@ -0,0 +1,51 @@
+package com.university.cms.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public class EnrollmentRepositoryImpl implements EnrollmentRepositoryCustom {
+
+    /*
+     * Relies on uk_enrollments_student_course. A new row is reported through the generated
+     * key. On a duplicate, LAST_INSERT_ID(expr) sets the reported id to the row's id when it
+     * was DROPPED (and is being reactivated) and to 0 otherwise, so no key comes back for a
+     * row that was already active. The status assignment comes last because MySQL applies
+     * the assignments left to right and the earlier ones test the old status.
+     */
+    private static final String UPSERT_SQL =
+            "INSERT INTO enrollments (student_id, course_id, enrollment_date, status, version) " +
+            "VALUES (?, ?, ?, 'ENROLLED', 0) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "enrollment_date = IF(LAST_INSERT_ID(IF(status = 'DROPPED', id, 0)) > 0, ?, enrollment_date), " +
+            "version = IF(status = 'DROPPED', version + 1, version), " +
+            "status = IF(status = 'DROPPED', 'ENROLLED', status)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Long> enrollOrReactivate(Long studentId, Long courseId, LocalDateTime enrollmentDate) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setLong(1, studentId);
+                statement.setLong(2, courseId);
+                statement.setObject(3, enrollmentDate);
+                statement.setObject(4, enrollmentDate);
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    if (keys.next() && keys.getLong(1) > 0) {
+                        return Optional.of(keys.getLong(1));
+                    }
+                    return Optional.empty();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    @Query("SELECT r FROM IdempotencyRecord r WHERE r.recordKey = :recordKey AND r.expiresAt > :now")
+    Optional<IdempotencyRecord> findLive(@Param("recordKey") String recordKey, @Param("now") LocalDateTime now);
+
+    // The first stored response wins if the same key completed on two nodes
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_records " +
+                   "(record_key, status_code, content_type, response_body, created_at, expires_at) " +
+                   "VALUES (:recordKey, :statusCode, :contentType, :responseBody, :createdAt, :expiresAt)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("recordKey") String recordKey,
+                       @Param("statusCode") int statusCode,
+                       @Param("contentType") String contentType,
+                       @Param("responseBody") String responseBody,
+                       @Param("createdAt") LocalDateTime createdAt,
+                       @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
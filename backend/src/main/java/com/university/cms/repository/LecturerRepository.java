@@ -2,14 +2,18 @@ package com.university.cms.repository;
 
 import com.university.cms.entity.Lecturer;
 import com.university.cms.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface LecturerRepository extends JpaRepository<Lecturer, Long> {
+public interface LecturerRepository extends JpaRepository<Lecturer, Long>, LecturerRepositoryCustom {
+    @EntityGraph(attributePaths = "user")
     Lecturer findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "user")
     Optional<Lecturer> findByUser(User user);
     boolean existsByEmployeeId(String employeeId);
 }
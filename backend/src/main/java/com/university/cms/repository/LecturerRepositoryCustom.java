@@ -0,0 +1,10 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.Lecturer;
+
+import java.util.Optional;
+
+public interface LecturerRepositoryCustom {
+    // Resolves a lecturer through the natural-id cache instead of a query on employee_id
+    Optional<Lecturer> findByNaturalEmployeeId(String employeeId);
+}
@@ -0,0 +1,21 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.Lecturer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+
+import java.util.Optional;
+
+public class LecturerRepositoryImpl implements LecturerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<Lecturer> findByNaturalEmployeeId(String employeeId) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Lecturer.class)
+                .loadOptional(employeeId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    @Query("SELECT DISTINCT r.sessionId FROM RefreshToken r WHERE r.userId = :userId AND r.revokedAt IS NULL")
+    List<String> findActiveSessionIdsByUserId(@Param("userId") Long userId);
+
+    // Sessions whose access tokens may still be unexpired
+    @Query("SELECT DISTINCT r.sessionId FROM RefreshToken r WHERE r.revokedAt > :since")
+    List<String> findSessionIdsRevokedSince(@Param("since") LocalDateTime since);
+
+    // Only one caller can rotate a given token
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.rotatedAt = :now WHERE r.id = :id AND r.rotatedAt IS NULL")
+    int markRotated(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.sessionId = :sessionId AND r.revokedAt IS NULL")
+    int revokeSession(@Param("sessionId") String sessionId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.revokedAt = :now WHERE r.userId = :userId AND r.revokedAt IS NULL")
+    int revokeAllForUser(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // Revoked rows are kept until no access token of the session can still be live
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now AND (r.revokedAt IS NULL OR r.revokedAt < :revokedBefore)")
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("revokedBefore") LocalDateTime revokedBefore);
+}
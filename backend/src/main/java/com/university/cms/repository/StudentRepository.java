@@ -2,13 +2,17 @@ package com.university.cms.repository;
 
 import com.university.cms.entity.Student;
 import com.university.cms.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
 public interface StudentRepository extends JpaRepository<Student, Long> {
+    @EntityGraph(attributePaths = "user")
     Student findByUserId(Long userId);
+
+    @EntityGraph(attributePaths = "user")
     Optional<Student> findByUser(User user);
     boolean existsByStudentId(String studentId);
 }
@@ -0,0 +1,47 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.SubmissionSignature;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SubmissionSignatureRepository extends JpaRepository<SubmissionSignature, Long> {
+
+    // The spaces hint keeps Hibernate from evicting every second-level cache region after this native write
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "submission_signatures"))
+    @Query(value = "INSERT INTO submission_signatures (submission_id, assignment_id, signature, shingle_count, updated_at) " +
+                   "VALUES (:submissionId, :assignmentId, :signature, :shingleCount, :updatedAt) " +
+                   "ON DUPLICATE KEY UPDATE signature = :signature, shingle_count = :shingleCount, updated_at = :updatedAt",
+           nativeQuery = true)
+    int upsert(@Param("submissionId") Long submissionId,
+               @Param("assignmentId") Long assignmentId,
+               @Param("signature") byte[] signature,
+               @Param("shingleCount") int shingleCount,
+               @Param("updatedAt") LocalDateTime updatedAt);
+
+    // submission id, signature of an assignment's submissions with enough text to compare
+    @Query("SELECT g.submissionId, g.signature FROM SubmissionSignature g " +
+           "WHERE g.assignmentId = :assignmentId AND g.signature IS NOT NULL AND g.shingleCount >= :minShingles")
+    List<Object[]> findComparable(@Param("assignmentId") Long assignmentId, @Param("minShingles") int minShingles);
+
+    // Changes whenever a signature of the assignment is added, updated or removed
+    @Query("SELECT COUNT(g), MAX(g.updatedAt), SUM(g.submissionId) FROM SubmissionSignature g " +
+           "WHERE g.assignmentId = :assignmentId")
+    List<Object[]> findIndexStamp(@Param("assignmentId") Long assignmentId);
+
+    // Submissions made before signatures existed
+    @Query("SELECT s.id FROM AssignmentSubmission s " +
+           "WHERE NOT EXISTS (SELECT g.submissionId FROM SubmissionSignature g WHERE g.submissionId = s.id) " +
+           "ORDER BY s.id")
+    List<Long> findUnsignedSubmissionIds(Pageable pageable);
+}
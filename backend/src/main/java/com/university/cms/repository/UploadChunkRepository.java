@@ -0,0 +1,35 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.UploadChunk;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+
+    // A re-sent chunk replaces the earlier record. The spaces hint keeps Hibernate from
+    // evicting every second-level cache region after this native write.
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "upload_chunks"))
+    @Query(value = "INSERT INTO upload_chunks (session_id, chunk_index, checksum, received_at) " +
+                   "VALUES (:sessionId, :chunkIndex, :checksum, :receivedAt) " +
+                   "ON DUPLICATE KEY UPDATE checksum = :checksum, received_at = :receivedAt",
+           nativeQuery = true)
+    int recordChunk(@Param("sessionId") String sessionId,
+                    @Param("chunkIndex") int chunkIndex,
+                    @Param("checksum") String checksum,
+                    @Param("receivedAt") LocalDateTime receivedAt);
+
+    long countBySessionId(String sessionId);
+
+    @Query("SELECT c.chunkIndex FROM UploadChunk c WHERE c.sessionId = :sessionId ORDER BY c.chunkIndex")
+    List<Integer> findChunkIndexes(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,46 @@
+package com.university.cms.repository;
+
+import com.university.cms.entity.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    Optional<WaitlistEntry> findByCourseIdAndStudentId(Long courseId, Long studentId);
+
+    // Locking read: sees an entry committed by a concurrent join after this transaction's snapshot
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    Optional<WaitlistEntry> findLockedByCourseIdAndStudentId(Long courseId, Long studentId);
+
+    // 1 if the student joined, 0 if already waiting (or the course is gone); never a key violation
+    @Modifying
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = "waitlist_entries"))
+    @Query(value = "INSERT IGNORE INTO waitlist_entries (course_id, student_id, joined_at) " +
+                   "VALUES (:courseId, :studentId, :joinedAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("courseId") Long courseId, @Param("studentId") Long studentId,
+                       @Param("joinedAt") LocalDateTime joinedAt);
+
+    List<WaitlistEntry> findByStudentIdOrderByJoinedAtAsc(Long studentId);
+
+    // Locks the head of the queue so concurrent promoters on other nodes serialize on it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<WaitlistEntry> findFirstByCourseIdOrderByIdAsc(Long courseId);
+
+    long countByCourseIdAndIdLessThan(Long courseId, Long id);
+
+    // Loads the in-memory position index
+    @Query("SELECT w.id, w.courseId, w.studentId FROM WaitlistEntry w ORDER BY w.id")
+    List<Object[]> findAllForIndex();
+}
@@ -0,0 +1,12 @@
+package com.university.cms.security;
+
+/**
+ * Thrown when a refresh token is unknown, expired, revoked or already used.
+ * Mapped to 401 so the client falls back to a fresh login.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -1,13 +1,15 @@
 package com.university.cms.security;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.university.cms.service.UserDetailsServiceImpl;
-
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,7 +20,7 @@ import java.io.IOException;
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private TokenRevocationList tokenRevocationList;
 
     @Autowired
     private JwtUtil jwtUtil;
@@ -34,13 +36,11 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwtToken = null;
-        
+        Claims claims = null;
+
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
+                claims = jwtUtil.parseClaims(requestTokenHeader.substring(7));
             } catch (Exception e) {
                 logger.warn("Unable to get JWT Token");
             }
@@ -48,17 +48,23 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             logger.warn("JWT Token does not begin with Bearer String");
         }
 
-        if (username != null && org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication() == null) {
+        // Identity and role come from the signed token; the only per-request check is an
+        // in-memory lookup of the session in the revocation list, so no database round trip
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            String sessionId = claims.get("sid", String.class);
+            String role = claims.get("role", String.class);
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
+            if (sessionId != null && role != null && !tokenRevocationList.isRevoked(sessionId)) {
+                UserDetails userDetails = User.withUsername(claims.getSubject())
+                        .password("")
+                        .authorities("ROLE_" + role)
+                        .build();
 
-                org.springframework.security.authentication.UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken = 
-                    new org.springframework.security.authentication.UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
+                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                org.springframework.security.core.context.SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
             }
         }
         chain.doFilter(request, response);
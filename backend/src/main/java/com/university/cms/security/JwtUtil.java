@@ -1,6 +1,7 @@
 package com.university.cms.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Component;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -34,6 +36,13 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifies the signature and expiry and returns the claims; throws a JwtException otherwise.
+     */
+    public Claims parseClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     private Claims extractAllClaims(String token) {
         return Jwts.parser().setSigningKey(secret).parseClaimsJws(token).getBody();
     }
@@ -47,16 +56,23 @@ public class JwtUtil {
         return createToken(claims, userDetails.getUsername());
     }
 
-    public String generateToken(String username, String role) {
+    // Access tokens carry the login session id so a revoked session rejects them before they expire
+    public String generateToken(String username, String role, String sessionId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
+        claims.put("sid", sessionId);
         return createToken(claims, username);
     }
 
+    public long getExpirationSeconds() {
+        return expiration / 1000;
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(SignatureAlgorithm.HS512, secret)
@@ -71,4 +87,13 @@ public class JwtUtil {
     public String extractRole(String token) {
         return extractClaim(token, claims -> claims.get("role", String.class));
     }
+
+    // Still readable from an expired token, so logout works after expiry
+    public String extractSessionId(String token) {
+        try {
+            return extractClaim(token, claims -> claims.get("sid", String.class));
+        } catch (ExpiredJwtException e) {
+            return e.getClaims().get("sid", String.class);
+        }
+    }
 }
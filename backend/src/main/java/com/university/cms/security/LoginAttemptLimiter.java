@@ -0,0 +1,177 @@
+package com.university.cms.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process throttling for login attempts, checked before any password hashing
+ * so a credential-stuffing burst is rejected for the cost of a hash lookup.
+ *
+ * Two layers:
+ * - a token bucket per account and per client IP, so one key running dry never
+ *   throttles another;
+ * - consecutive failure counters per account with exponential lockout, cleared on
+ *   a successful login.
+ *
+ * Keys come from the request, so every table is a bounded cache that forgets idle
+ * keys: an attacker cycling through emails or addresses cannot grow memory. An idle
+ * bucket expires once it would have refilled anyway, so forgetting it changes nothing.
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    @Value("${app.login-limit.max-tracked-keys:100000}")
+    private long maxTrackedKeys;
+
+    @Value("${app.login-limit.account.capacity:5}")
+    private int accountCapacity;
+
+    @Value("${app.login-limit.account.per-minute:5}")
+    private int accountPerMinute;
+
+    @Value("${app.login-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${app.login-limit.ip.per-minute:20}")
+    private int ipPerMinute;
+
+    @Value("${app.login-limit.lockout.after-failures:5}")
+    private int lockoutAfterFailures;
+
+    @Value("${app.login-limit.lockout.base-seconds:30}")
+    private long lockoutBaseSeconds;
+
+    @Value("${app.login-limit.lockout.max-seconds:900}")
+    private long lockoutMaxSeconds;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private Cache<String, TokenBucket> accountBuckets;
+    private Cache<String, TokenBucket> ipBuckets;
+    private Cache<String, FailureRecord> failures;
+
+    @PostConstruct
+    public void init() {
+        accountBuckets = bucketCache(accountCapacity, accountPerMinute);
+        ipBuckets = bucketCache(ipCapacity, ipPerMinute);
+        // Failure streaks are forgotten once they are older than the longest lockout
+        failures = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterWrite(Duration.ofSeconds(lockoutMaxSeconds))
+                .build();
+    }
+
+    /**
+     * Throws LoginThrottledException if the attempt should not reach the password check.
+     * Checks run cheapest-rejection first, and an attempt rejected by one layer leaves
+     * the budgets of the others untouched.
+     */
+    public void checkAllowed(String email, String clientIp) {
+        String account = normalize(email);
+
+        FailureRecord record = failures.getIfPresent(account);
+        if (record != null) {
+            long lockedForMillis = record.lockedUntilMillis - System.currentTimeMillis();
+            if (lockedForMillis > 0) {
+                reject("locked", "Too many failed login attempts. Try again later.", lockedForMillis);
+            }
+        }
+
+        TokenBucket accountBucket = accountBuckets.get(account, key -> new TokenBucket(accountCapacity, accountPerMinute));
+        long waitMillis = accountBucket.tryAcquire();
+        if (waitMillis > 0) {
+            reject("account", "Too many login attempts. Try again later.", waitMillis);
+        }
+
+        if (clientIp != null) {
+            waitMillis = ipBuckets.get(clientIp, key -> new TokenBucket(ipCapacity, ipPerMinute)).tryAcquire();
+            if (waitMillis > 0) {
+                accountBucket.refund();
+                reject("ip", "Too many login attempts. Try again later.", waitMillis);
+            }
+        }
+    }
+
+    public void recordFailure(String email) {
+        long now = System.currentTimeMillis();
+        failures.asMap().compute(normalize(email), (key, record) -> {
+            FailureRecord updated = record != null ? record : new FailureRecord();
+            updated.count++;
+            if (updated.count >= lockoutAfterFailures) {
+                int doublings = Math.min(updated.count - lockoutAfterFailures, 20);
+                long lockSeconds = Math.min(lockoutBaseSeconds << doublings, lockoutMaxSeconds);
+                updated.lockedUntilMillis = now + TimeUnit.SECONDS.toMillis(lockSeconds);
+            }
+            return updated;
+        });
+        meterRegistry.ifAvailable(registry -> registry.counter("cms.login.failures").increment());
+    }
+
+    public void recordSuccess(String email) {
+        failures.invalidate(normalize(email));
+    }
+
+    private Cache<String, TokenBucket> bucketCache(int capacity, int perMinute) {
+        long refillMillis = (long) Math.ceil(capacity * 60000.0 / Math.max(1, perMinute));
+        return Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofMillis(Math.max(refillMillis, 1000)))
+                .build();
+    }
+
+    private void reject(String reason, String message, long waitMillis) {
+        meterRegistry.ifAvailable(registry -> registry.counter("cms.login.rejected", "reason", reason).increment());
+        throw new LoginThrottledException(message, Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)));
+    }
+
+    private String normalize(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class FailureRecord {
+        int count;
+        long lockedUntilMillis;
+    }
+
+    private static class TokenBucket {
+        private final double capacity;
+        private final double tokensPerMilli;
+        private double tokens;
+        private long lastRefillMillis;
+
+        TokenBucket(int capacity, int perMinute) {
+            this.capacity = capacity;
+            this.tokensPerMilli = perMinute / 60000.0;
+            this.tokens = capacity;
+            this.lastRefillMillis = System.currentTimeMillis();
+        }
+
+        // Returns 0 when a token was taken, otherwise the wait until one is available
+        synchronized long tryAcquire() {
+            long now = System.currentTimeMillis();
+            tokens = Math.min(capacity, tokens + (now - lastRefillMillis) * tokensPerMilli);
+            lastRefillMillis = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerMilli);
+        }
+
+        // Gives back a token taken for an attempt that another layer then rejected
+        synchronized void refund() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
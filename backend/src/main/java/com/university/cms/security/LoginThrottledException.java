@@ -0,0 +1,19 @@
+package com.university.cms.security;
+
+/**
+ * Thrown when a login attempt is rejected by the LoginAttemptLimiter before the
+ * password is checked. Mapped to 429 Too Many Requests with a Retry-After header.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,19 @@
+package com.university.cms.security;
+
+/**
+ * Thrown when the password hashing pool is saturated. Mapped to 503 Service
+ * Unavailable with a Retry-After header so clients back off instead of piling up.
+ */
+public class PasswordHashingOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
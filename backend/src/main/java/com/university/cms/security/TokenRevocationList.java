@@ -0,0 +1,138 @@
+package com.university.cms.security;
+
+import com.university.cms.repository.RefreshTokenRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked login sessions whose access tokens may not have expired yet, checked by
+ * JwtRequestFilter on every request without touching the database.
+ *
+ * Lookups go through a Bloom filter first, so the common case (not revoked) is a
+ * few bit probes; the exact set only confirms filter hits. The list only needs to
+ * cover one access token lifetime, so it stays small, and each node reloads it from
+ * refresh_tokens periodically to pick up revocations made on other nodes.
+ */
+@Component
+public class TokenRevocationList {
+
+    @Value("${jwt.expiration}")
+    private long accessTokenMillis;
+
+    @Value("${jwt.revocation.clock-skew-ms:60000}")
+    private long clockSkewMillis;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private volatile Snapshot snapshot = Snapshot.of(Collections.emptySet());
+
+    // Revoked on this node, with the time; kept until they age out so a reload that
+    // started before the revoking transaction committed doesn't drop them
+    private final Map<String, Long> localRevocations = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+
+    public boolean isRevoked(String sessionId) {
+        Snapshot current = snapshot;
+        return current.filter.mightContain(sessionId) && current.sessionIds.contains(sessionId);
+    }
+
+    public void revoke(String sessionId) {
+        synchronized (lock) {
+            localRevocations.put(sessionId, System.currentTimeMillis());
+            Set<String> sessionIds = new HashSet<>(snapshot.sessionIds);
+            sessionIds.add(sessionId);
+            snapshot = Snapshot.of(sessionIds);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:10000}")
+    public void reload() {
+        long windowMillis = accessTokenMillis + clockSkewMillis;
+        List<String> revoked = refreshTokenRepository.findSessionIdsRevokedSince(
+                LocalDateTime.now().minusNanos(windowMillis * 1_000_000L));
+
+        synchronized (lock) {
+            long cutoff = System.currentTimeMillis() - windowMillis;
+            localRevocations.values().removeIf(revokedAt -> revokedAt < cutoff);
+            Set<String> sessionIds = new HashSet<>(revoked);
+            sessionIds.addAll(localRevocations.keySet());
+            snapshot = Snapshot.of(sessionIds);
+        }
+    }
+
+    private static final class Snapshot {
+        final Set<String> sessionIds;
+        final BloomFilter filter;
+
+        private Snapshot(Set<String> sessionIds, BloomFilter filter) {
+            this.sessionIds = sessionIds;
+            this.filter = filter;
+        }
+
+        static Snapshot of(Set<String> sessionIds) {
+            BloomFilter filter = new BloomFilter(sessionIds.size());
+            sessionIds.forEach(filter::add);
+            return new Snapshot(sessionIds, filter);
+        }
+    }
+
+    // About 1% false positives: ~10 bits and 7 probes per entry, double hashing over FNV-1a
+    private static final class BloomFilter {
+        private static final int PROBES = 7;
+
+        private final long[] bits;
+        private final int bitCount;
+
+        BloomFilter(int expectedEntries) {
+            int words = Math.max(1, (Math.max(expectedEntries, 64) * 10 + 63) / 64);
+            this.bits = new long[words];
+            this.bitCount = words * 64;
+        }
+
+        void add(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < PROBES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                bits[bit >>> 6] |= 1L << bit;
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < PROBES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
@@ -3,10 +3,17 @@ package com.university.cms.service;
 import com.university.cms.entity.Admin;
 import com.university.cms.entity.User;
 import com.university.cms.repository.AdminRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 @Transactional
 public class AdminService {
@@ -14,6 +21,9 @@ public class AdminService {
     @Autowired
     private AdminRepository adminRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     public Admin getAdminByUser(User user) {
         return adminRepository.findByUser(user)
                 .orElseThrow(() -> new RuntimeException("Admin not found for user"));
@@ -23,4 +33,36 @@ public class AdminService {
         return adminRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Admin not found"));
     }
+
+    // Second-level and query cache statistics for the reference data regions
+    public Map<String, Object> getCacheStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        stats.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        stats.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        stats.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        stats.put("naturalIdCacheHits", statistics.getNaturalIdCacheHitCount());
+        stats.put("naturalIdCacheMisses", statistics.getNaturalIdCacheMissCount());
+        stats.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        stats.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        stats.put("queryCachePuts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> regions = new HashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionData = new HashMap<>();
+            regionData.put("hits", region.getHitCount());
+            regionData.put("misses", region.getMissCount());
+            regionData.put("puts", region.getPutCount());
+            regionData.put("elementsInMemory", region.getElementCountInMemory());
+            regions.put(regionName, regionData);
+        }
+        stats.put("regions", regions);
+        return stats;
+    }
 }
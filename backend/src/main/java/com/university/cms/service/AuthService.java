@@ -5,24 +5,33 @@ import com.university.cms.dto.LoginResponse;
 import com.university.cms.dto.RegisterRequest;
 import com.university.cms.entity.Admin;
 import com.university.cms.entity.Lecturer;
+import com.university.cms.entity.RefreshToken;
 import com.university.cms.entity.Student;
 import com.university.cms.entity.User;
 import com.university.cms.repository.AdminRepository;
 import com.university.cms.repository.LecturerRepository;
 import com.university.cms.repository.StudentRepository;
 import com.university.cms.repository.UserRepository;
+import com.university.cms.security.InvalidRefreshTokenException;
 import com.university.cms.security.JwtUtil;
+import com.university.cms.security.LoginAttemptLimiter;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Transactional
@@ -50,25 +59,101 @@ public class AuthService {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private LoginAttemptLimiter loginAttemptLimiter;
 
-    public LoginResponse login(LoginRequest loginRequest) {
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Authenticates a user and issues a JWT. Throttled attempts are rejected by the
+     * LoginAttemptLimiter before the BCrypt check runs.
+     *
+     * Runs outside a transaction: the BCrypt check can wait seconds for the hashing
+     * pool, and must not hold an OLTP connection meanwhile. The user lookups and the
+     * refresh token write each take one only briefly.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LoginResponse login(LoginRequest loginRequest, String clientIp) {
+        loginAttemptLimiter.checkAllowed(loginRequest.getEmail(), clientIp);
+
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
         } catch (BadCredentialsException e) {
+            loginAttemptLimiter.recordFailure(loginRequest.getEmail());
             throw new RuntimeException("Invalid email or password", e);
+        } catch (DisabledException e) {
+            throw new RuntimeException("Account is deactivated", e);
         }
+        loginAttemptLimiter.recordSuccess(loginRequest.getEmail());
 
-        final UserDetails userDetails = userDetailsService.loadUserByUsername(loginRequest.getEmail());
-        final User user = userRepository.findByEmail(loginRequest.getEmail())
+        // The authenticated principal already carries the username; only the User row is still needed
+        final User user = userRepository.findByEmail(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        final String jwt = jwtUtil.generateToken(userDetails.getUsername(), user.getRole().toString());
+        return issueTokens(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and refresh token in the same
+     * session. Failures keep the session revocation made by RefreshTokenService.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public LoginResponse refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token is required");
+        }
+        RefreshToken current = refreshTokenService.rotate(refreshToken);
+
+        User user = userRepository.findById(current.getUserId())
+                .orElseThrow(() -> new InvalidRefreshTokenException("User not found"));
+        if (user.getStatus() != User.Status.ACTIVE) {
+            refreshTokenService.revokeSession(current.getSessionId());
+            throw new InvalidRefreshTokenException("Account is deactivated");
+        }
+
+        return issueTokens(user, current.getSessionId());
+    }
+
+    // Ends the session of the presented access token, or of the refresh token if that is all we have
+    public void logout(String accessToken, String refreshToken) {
+        String sessionId = null;
+        if (accessToken != null) {
+            try {
+                sessionId = jwtUtil.extractSessionId(accessToken);
+            } catch (Exception e) {
+                // Unparseable token: fall back to the refresh token
+            }
+        }
+        if (sessionId != null) {
+            refreshTokenService.revokeSession(sessionId);
+        } else if (refreshToken != null) {
+            refreshTokenService.revokeByToken(refreshToken);
+        }
+    }
+
+    private LoginResponse issueTokens(User user, String sessionId) {
+        final String jwt = jwtUtil.generateToken(user.getEmail(), user.getRole().toString(), sessionId);
 
-        return new LoginResponse(jwt, user.getEmail(), user.getRole().toString(), user.getFirstName(), user.getLastName(), user.getId());
+        LoginResponse response = new LoginResponse(jwt, user.getEmail(), user.getRole().toString(), user.getFirstName(), user.getLastName(), user.getId());
+        response.setRefreshToken(refreshTokenService.issue(user.getId(), sessionId));
+        response.setExpiresIn(jwtUtil.getExpirationSeconds());
+        return response;
     }
 
+    // Hashes the password before opening the transaction that writes the user, for the same reason as login
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String register(RegisterRequest registerRequest) {
         // Check if user already exists
         Optional<User> existingUser = userRepository.findByEmail(registerRequest.getEmail());
@@ -76,12 +161,18 @@ public class AuthService {
             throw new RuntimeException("Email is already registered");
         }
 
+        String encodedPassword = passwordEncoder.encode(registerRequest.getPassword());
+        transactionTemplate.executeWithoutResult(status -> createUser(registerRequest, encodedPassword));
+        return "User registered successfully";
+    }
+
+    private void createUser(RegisterRequest registerRequest, String encodedPassword) {
         // Create base user
         User user = new User();
         user.setFirstName(registerRequest.getFirstName());
         user.setLastName(registerRequest.getLastName());
         user.setEmail(registerRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
+        user.setPassword(encodedPassword);
         user.setRole(User.Role.valueOf(registerRequest.getRole()));
         user.setCreatedAt(LocalDateTime.now());
         user.setUpdatedAt(LocalDateTime.now());
@@ -99,6 +190,11 @@ public class AuthService {
                 break;
 
             case "LECTURER":
+                // Natural-id cache lookup; a duplicate would otherwise fail the insert on the unique key
+                if (registerRequest.getLecturerId() != null
+                        && lecturerRepository.findByNaturalEmployeeId(registerRequest.getLecturerId()).isPresent()) {
+                    throw new RuntimeException("Employee ID is already registered");
+                }
                 Lecturer lecturer = new Lecturer();
                 lecturer.setUser(savedUser);
                 lecturer.setFirstName(registerRequest.getFirstName());
@@ -128,8 +224,6 @@ public class AuthService {
             default:
                 throw new RuntimeException("Invalid role: " + registerRequest.getRole());
         }
-
-        return "User registered successfully";
     }
 
     public User getCurrentUser(String email) {
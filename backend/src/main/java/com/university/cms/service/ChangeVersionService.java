@@ -0,0 +1,67 @@
+package com.university.cms.service;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-table change counters used to build ETags for catalog and reference endpoints.
+ * Counters are bumped after the writing transaction commits, so a version is never
+ * published before the data it describes is visible to readers. Counters live in
+ * memory and are scoped to this node; the epoch keeps ETags from a previous run
+ * from matching after a restart. The time of each table's last change is kept too,
+ * so readers can tell when replicas may not have caught up yet.
+ */
+@Service
+public class ChangeVersionService {
+
+    private final long epoch = System.currentTimeMillis();
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    public void markChanged(String table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(table);
+                }
+            });
+        } else {
+            increment(table);
+        }
+    }
+
+    public long getVersion(String table) {
+        AtomicLong version = versions.get(table);
+        return version != null ? version.get() : 0L;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // True if any of the tables changed on this node within the last windowMillis
+    public boolean changedWithin(List<String> tables, long windowMillis) {
+        long cutoff = System.currentTimeMillis() - windowMillis;
+        for (String table : tables) {
+            Long changed = changedAt.get(table);
+            if (changed != null && changed >= cutoff) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void increment(String table) {
+        changedAt.put(table, System.currentTimeMillis());
+        versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+    }
+}
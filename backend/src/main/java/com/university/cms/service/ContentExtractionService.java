@@ -0,0 +1,362 @@
+package com.university.cms.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Background text extraction for uploaded course materials and submission files.
+ *
+ * Uploads are queued after their transaction commits and processed on a small,
+ * low-priority worker pool with a bounded queue, reading files through a shared
+ * byte-rate limit so a bulk backlog can't starve request threads of CPU or disk.
+ * The extracted text is written to the ExtractedTextStore, whose files double as
+ * "done" markers: anything uploaded without one (a full queue, a restart, an
+ * existing backlog) is picked up by the periodic sweep.
+ */
+@Service
+public class ContentExtractionService {
+
+    private static final Set<String> PLAIN_TEXT = Set.of(
+            "txt", "md", "csv", "json", "xml", "java", "py", "js", "ts", "c", "cpp", "h", "sql", "sh");
+    private static final Set<String> MARKUP = Set.of("html", "htm");
+    private static final Set<String> OFFICE_XML = Set.of("docx", "pptx", "xlsx", "odt", "odp", "ods");
+
+    // Parts of an Office Open XML / OpenDocument zip that hold the document text
+    private static final Pattern OFFICE_TEXT_PART = Pattern.compile(
+            "word/document\\.xml|ppt/slides/slide\\d+\\.xml|xl/sharedStrings\\.xml|content\\.xml");
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Value("${app.extraction.workers:2}")
+    private int workers;
+
+    @Value("${app.extraction.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.extraction.max-bytes-per-second:4194304}")
+    private long maxBytesPerSecond;
+
+    @Value("${app.extraction.max-file-size:52428800}")
+    private long maxFileSize;
+
+    @Value("${app.extraction.max-text-length:1000000}")
+    private int maxTextLength;
+
+    @Value("${app.extraction.sweep-batch:500}")
+    private int sweepBatch;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private ExtractedTextStore extractedTextStore;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private SubmissionSimilarityService submissionSimilarityService;
+
+    private ThreadPoolExecutor executor;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    // Last id each sweep checked; the next sweep resumes after it and wraps at the end
+    private final Map<String, Long> sweepCursors = new ConcurrentHashMap<>();
+
+    // Shared read budget: the time at which the next byte may be read
+    private final Object throttleLock = new Object();
+    private long nextReadNanos = System.nanoTime();
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "content-extraction-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    // Interrupted jobs write no marker, so they are picked up again after restart
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues extraction for an uploaded file once the current transaction commits.
+     */
+    public void extractAfterCommit(String type, Long id, String filePath) {
+        Job job = new Job(type, id, filePath);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(job);
+                }
+            });
+        } else {
+            submit(job);
+        }
+    }
+
+    /**
+     * Queues uploads that have no extracted text yet, up to the free queue capacity.
+     * Runs shortly after startup and then periodically, so a large backlog drains
+     * at the pool's pace instead of all at once. Each run checks at most one page of
+     * uploads per type, continuing where the previous run stopped.
+     */
+    @Scheduled(initialDelayString = "${app.extraction.sweep-initial-delay:30000}",
+            fixedDelayString = "${app.extraction.sweep-interval:300000}")
+    public void resumePending() {
+        int queued = sweep(SearchService.TYPE_MATERIAL, "CourseMaterial");
+        queued += sweep(SearchService.TYPE_SUBMISSION, "AssignmentSubmission");
+        if (queued > 0) {
+            System.out.println("Queued " + queued + " uploads for content extraction");
+        }
+    }
+
+    private int sweep(String type, String entity) {
+        long after = sweepCursors.getOrDefault(type, 0L);
+        List<Object[]> rows = entityManager.createQuery("SELECT e.id, e.filePath FROM " + entity + " e " +
+                        "WHERE e.filePath IS NOT NULL AND e.id > :after ORDER BY e.id", Object[].class)
+                .setParameter("after", after)
+                .setMaxResults(sweepBatch)
+                .getResultList();
+        int queued = 0;
+        for (Object[] row : rows) {
+            if (executor.getQueue().remainingCapacity() == 0) {
+                // Resume from this row once the workers have caught up
+                sweepCursors.put(type, after);
+                return queued;
+            }
+            Long id = (Long) row[0];
+            if (!extractedTextStore.exists(type, id) && submit(new Job(type, id, (String) row[1]))) {
+                queued++;
+            }
+            after = id;
+        }
+        sweepCursors.put(type, rows.size() < sweepBatch ? 0L : after);
+        return queued;
+    }
+
+    // A full queue is not an error: the job has no marker, so the next sweep retries it
+    private boolean submit(Job job) {
+        if (!pending.add(job.key())) {
+            return false;
+        }
+        try {
+            executor.execute(() -> run(job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(job.key());
+            return false;
+        }
+    }
+
+    private void run(Job job) {
+        try {
+            String text;
+            try {
+                text = extract(Paths.get(job.filePath()));
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                // Unreadable or corrupt files get an empty marker so they aren't retried forever
+                System.err.println("Content extraction failed for " + job.key() + ": " + e.getMessage());
+                text = "";
+            }
+            extractedTextStore.write(job.type(), job.id(), text);
+            if (!text.isEmpty()) {
+                searchService.reindexContent(job.type(), job.id());
+                if (SearchService.TYPE_SUBMISSION.equals(job.type())) {
+                    submissionSimilarityService.refresh(job.id());
+                }
+            }
+        } catch (InterruptedIOException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // The extracted text, once written, is kept; a search rebuild indexes it
+            System.err.println("Failed to record extraction result for " + job.key() + ": " + e.getMessage());
+        } finally {
+            pending.remove(job.key());
+        }
+    }
+
+    private String extract(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            throw new NoSuchFileException(file.toString());
+        }
+        if (Files.size(file) > maxFileSize) {
+            System.out.println("Skipping content extraction for large file " + file);
+            return "";
+        }
+
+        String extension = extension(file.getFileName().toString());
+        try (InputStream in = new ThrottledInputStream(Files.newInputStream(file))) {
+            String text;
+            if (PLAIN_TEXT.contains(extension)) {
+                text = readText(in);
+            } else if (MARKUP.contains(extension)) {
+                text = TAG.matcher(readText(in)).replaceAll(" ");
+            } else if ("pdf".equals(extension)) {
+                text = extractPdf(in);
+            } else if (OFFICE_XML.contains(extension)) {
+                text = extractOfficeXml(in);
+            } else {
+                return "";
+            }
+            return truncate(WHITESPACE.matcher(text).replaceAll(" ").trim());
+        }
+    }
+
+    private String readText(InputStream in) throws IOException {
+        StringBuilder text = new StringBuilder();
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+        char[] buffer = new char[8192];
+        int read;
+        while (text.length() < maxTextLength && (read = reader.read(buffer)) != -1) {
+            text.append(buffer, 0, read);
+        }
+        return text.toString();
+    }
+
+    // Temp-file buffering keeps large PDFs off the heap
+    private String extractPdf(InputStream in) throws IOException {
+        try (PDDocument document = PDDocument.load(in, MemoryUsageSetting.setupTempFileOnly())) {
+            return new PDFTextStripper().getText(document);
+        }
+    }
+
+    private String extractOfficeXml(InputStream in) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        StringBuilder text = new StringBuilder();
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null && text.length() < maxTextLength) {
+                if (!OFFICE_TEXT_PART.matcher(entry.getName()).matches()) {
+                    continue;
+                }
+                XMLStreamReader reader = factory.createXMLStreamReader(zip);
+                try {
+                    while (reader.hasNext() && text.length() < maxTextLength) {
+                        int event = reader.next();
+                        if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                            text.append(reader.getText());
+                        } else if (event == XMLStreamConstants.END_ELEMENT) {
+                            text.append(' ');
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Malformed document XML: " + e.getMessage(), e);
+        }
+        return text.toString();
+    }
+
+    private String truncate(String text) {
+        return text.length() > maxTextLength ? text.substring(0, maxTextLength) : text;
+    }
+
+    private String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private void throttle(int bytes) throws InterruptedIOException {
+        long waitNanos;
+        synchronized (throttleLock) {
+            long now = System.nanoTime();
+            long start = Math.max(nextReadNanos, now);
+            nextReadNanos = start + bytes * 1_000_000_000L / maxBytesPerSecond;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Content extraction interrupted");
+            }
+        }
+    }
+
+    private record Job(String type, Long id, String filePath) {
+        String key() {
+            return type + ":" + id;
+        }
+    }
+
+    // Reads count against the shared byte-rate budget
+    private class ThrottledInputStream extends FilterInputStream {
+
+        ThrottledInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                throttle(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                throttle(read);
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.university.cms.service;
+
+/**
+ * Thrown when an enrollment finds no free seat. Mapped to 409 Conflict.
+ */
+public class CourseFullException extends RuntimeException {
+
+    public CourseFullException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,12 @@
 package com.university.cms.service;
 
+import com.university.cms.config.ReportingQuery;
+import com.university.cms.config.RetryOnConflict;
 import com.university.cms.dto.CourseDto;
 import com.university.cms.entity.Course;
+import com.university.cms.entity.CourseSeats;
 import com.university.cms.entity.Degree;
+import com.university.cms.entity.Enrollment;
 import com.university.cms.entity.Lecturer;
 import com.university.cms.entity.Student;
 import com.university.cms.entity.User;
@@ -12,6 +16,7 @@ import com.university.cms.repository.LecturerRepository;
 import com.university.cms.repository.StudentRepository;
 import com.university.cms.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -43,8 +48,21 @@ public class CourseService {
     @Autowired
     private DegreeService degreeService;
 
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Transactional(readOnly = true)
     public List<Course> getAllCourses() {
-        List<Course> courses = courseRepository.findAll();
+        List<Course> courses = courseRepository.findAllForCatalog();
         System.out.println("DEBUG: getAllCourses returning " + courses.size() + " courses");
         for (Course course : courses) {
             System.out.println("DEBUG: Course - ID: " + course.getId() + 
@@ -58,39 +76,42 @@ public class CourseService {
     }
 
     // Admin-specific method to get courses with all related data
+    @Transactional(readOnly = true)
+    @ReportingQuery
     public List<Map<String, Object>> getAllCoursesForAdmin() {
-        List<Course> courses = courseRepository.findAll();
-        return courses.stream()
-                .map(course -> {
+        Map<Long, CourseSeats> seats = seatReservationService.getAllSeats();
+        return courseRepository.findAdminListRows().stream()
+                .map(row -> {
+                    Long courseId = (Long) row[0];
                     Map<String, Object> courseData = new HashMap<>();
-                    courseData.put("id", course.getId());
-                    courseData.put("courseCode", course.getCourseCode());
-                    courseData.put("title", course.getTitle());
-                    courseData.put("description", course.getDescription());
-                    courseData.put("credits", course.getCredits());
-                    courseData.put("department", course.getDepartment());
-                    courseData.put("status", course.getStatus());
-                    courseData.put("createdAt", course.getCreatedAt());
-                    courseData.put("updatedAt", course.getUpdatedAt());
+                    courseData.put("id", courseId);
+                    courseData.put("courseCode", row[1]);
+                    courseData.put("title", row[2]);
+                    courseData.put("description", row[3]);
+                    courseData.put("credits", row[4]);
+                    courseData.put("version", row[5]);
+                    courseData.put("department", row[6]);
+                    courseData.put("status", row[7]);
+                    courseData.put("createdAt", row[8]);
+                    courseData.put("updatedAt", row[9]);
                     
                     // Add degree information
-                    if (course.getDegree() != null) {
+                    if (row[10] != null) {
                         Map<String, Object> degreeData = new HashMap<>();
-                        degreeData.put("id", course.getDegree().getId());
-                        degreeData.put("name", course.getDegree().getName());
-                        degreeData.put("department", course.getDegree().getDepartment());
+                        degreeData.put("id", row[10]);
+                        degreeData.put("name", row[11]);
+                        degreeData.put("department", row[12]);
                         courseData.put("degree", degreeData);
                     } else {
                         courseData.put("degree", null);
                     }
                     
                     // Add lecturer information
-                    if (course.getLecturer() != null) {
-                        courseData.put("lecturerId", course.getLecturer().getId());
-                        courseData.put("lecturerName", 
-                            course.getLecturer().getFirstName() + " " + course.getLecturer().getLastName());
-                        courseData.put("lecturerFirstName", course.getLecturer().getFirstName());
-                        courseData.put("lecturerLastName", course.getLecturer().getLastName());
+                    if (row[13] != null) {
+                        courseData.put("lecturerId", row[13]);
+                        courseData.put("lecturerName", row[14] + " " + row[15]);
+                        courseData.put("lecturerFirstName", row[14]);
+                        courseData.put("lecturerLastName", row[15]);
                     } else {
                         courseData.put("lecturerId", null);
                         courseData.put("lecturerName", null);
@@ -98,23 +119,34 @@ public class CourseService {
                         courseData.put("lecturerLastName", null);
                     }
                     
-                    // Add enrollment count
-                    long enrollmentCount = enrollmentRepository.countEnrolledByCourseId(course.getId());
-                    courseData.put("enrollmentCount", enrollmentCount);
+                    // Add enrollment count and capacity
+                    CourseSeats courseSeats = seats.get(courseId);
+                    courseData.put("enrollmentCount", courseSeats != null ? courseSeats.getEnrolledCount() : 0);
+                    courseData.put("capacity", courseSeats != null ? courseSeats.getCapacity() : null);
+                    courseData.put("waitlistCount", waitlistService.getWaitingCount(courseId));
                     
                     return courseData;
                 })
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Course getCourseById(Long id) {
-        return courseRepository.findById(id)
+        return courseRepository.findWithCatalogById(id)
                 .orElseThrow(() -> new RuntimeException("Course not found with id: " + id));
     }
 
+    // Returned as JSON, so the lazy description is loaded before the transaction ends
+    @Transactional(readOnly = true)
+    public Course getCourseDetails(Long id) {
+        Course course = getCourseById(id);
+        course.getDescription();
+        return course;
+    }
+
     public Course createCourse(CourseDto courseRequest) {
         // Check if course code already exists
-        if (courseRepository.findByCourseCode(courseRequest.getCourseCode()).isPresent()) {
+        if (courseRepository.findByNaturalCourseCode(courseRequest.getCourseCode()).isPresent()) {
             throw new RuntimeException("Course with code " + courseRequest.getCourseCode() + " already exists");
         }
 
@@ -134,11 +166,24 @@ public class CourseService {
         course.setDepartment(courseRequest.getDepartment());
         
         course.setUpdatedAt(LocalDateTime.now());
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        seatReservationService.initialize(savedCourse.getId(), courseRequest.getCapacity());
+        searchService.indexCourse(savedCourse);
+        return savedCourse;
+    }
+
+    // Not read-only, so it is served by the primary rather than a lagging replica
+    public Course getLatestCourse(Long id) {
+        Course course = getCourseById(id);
+        course.getDescription();
+        return course;
     }
 
     public Course updateCourse(Long id, CourseDto courseRequest) {
         Course course = getCourseById(id);
+        if (courseRequest.getVersion() != null && !courseRequest.getVersion().equals(course.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Course.class, id);
+        }
 
         course.setCourseCode(courseRequest.getCourseCode());
         course.setTitle(courseRequest.getCourseName());
@@ -146,15 +191,29 @@ public class CourseService {
         course.setCredits(courseRequest.getCredits());
         course.setUpdatedAt(LocalDateTime.now());
 
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        // A payload without capacity leaves it as it is; removing the limit must be asked for
+        boolean unlimited = Boolean.TRUE.equals(courseRequest.getUnlimitedCapacity());
+        if (unlimited && courseRequest.getCapacity() != null) {
+            throw new RuntimeException("Capacity cannot be both set and unlimited");
+        }
+        if (unlimited || courseRequest.getCapacity() != null) {
+            seatReservationService.updateCapacity(id, unlimited ? null : courseRequest.getCapacity());
+            waitlistService.promoteAfterCommit(id);
+        }
+        searchService.indexCourse(savedCourse);
+        return savedCourse;
     }
 
     public void deleteCourse(Long id) {
         Course course = getCourseById(id);
         courseRepository.delete(course);
+        searchService.removeCourse(id);
     }
 
     // Admin methods for lecturer management
+    @Transactional(readOnly = true)
+    @ReportingQuery
     public List<Map<String, Object>> getAllLecturers() {
         List<Lecturer> lecturers = lecturerRepository.findAll();
         return lecturers.stream().map(lecturer -> {
@@ -227,6 +286,9 @@ public class CourseService {
             lecturer.getUser().setStatus(active ? User.Status.ACTIVE : User.Status.INACTIVE);
             lecturer.getUser().setUpdatedAt(LocalDateTime.now());
             lecturer.setUpdatedAt(LocalDateTime.now());
+            if (!active) {
+                refreshTokenService.revokeAllForUser(lecturer.getUser().getId());
+            }
             
             Lecturer savedLecturer = lecturerRepository.save(lecturer);
             
@@ -310,6 +372,9 @@ public class CourseService {
             student.getUser().setStatus(active ? User.Status.ACTIVE : User.Status.INACTIVE);
             student.getUser().setUpdatedAt(LocalDateTime.now());
             student.setUpdatedAt(LocalDateTime.now());
+            if (!active) {
+                refreshTokenService.revokeAllForUser(student.getUser().getId());
+            }
             
             Student savedStudent = studentRepository.save(student);
             
@@ -332,6 +397,8 @@ public class CourseService {
         }
     }
 
+    @Transactional(readOnly = true)
+    @ReportingQuery
     public List<Map<String, Object>> getAllStudents() {
         List<Student> students = studentRepository.findAll();
         return students.stream().map(student -> {
@@ -349,6 +416,8 @@ public class CourseService {
         }).collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    @ReportingQuery
     public Map<String, Object> getDashboardStats() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalCourses", courseRepository.count());
@@ -358,6 +427,7 @@ public class CourseService {
         return stats;
     }
 
+    @RetryOnConflict
     public Course registerLecturerToCourse(Long courseId, Long lecturerId) {
         Course course = getCourseById(courseId);
         
@@ -371,9 +441,12 @@ public class CourseService {
         }
         
         course.setUpdatedAt(LocalDateTime.now());
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        searchService.indexCourse(savedCourse);
+        return savedCourse;
     }
 
+    @RetryOnConflict
     public Course unregisterLecturerFromCourse(Long courseId, Long lecturerId) {
         Course course = getCourseById(courseId);
         
@@ -385,12 +458,15 @@ public class CourseService {
         // Remove lecturer assignment
         course.setLecturer(null);
         course.setUpdatedAt(LocalDateTime.now());
-        return courseRepository.save(course);
+        Course savedCourse = courseRepository.save(course);
+        searchService.indexCourse(savedCourse);
+        return savedCourse;
     }
 
     // Lecturer-specific methods
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getAvailableCoursesForLecturer(Lecturer lecturer) {
-        List<Course> allCourses = courseRepository.findAll();
+        List<Course> allCourses = courseRepository.findAllForCatalog();
         return allCourses.stream()
                 .map(course -> {
                     Map<String, Object> courseData = new HashMap<>();
@@ -400,7 +476,6 @@ public class CourseService {
                     courseData.put("department", course.getDepartment());
                     courseData.put("credits", course.getCredits());
                     courseData.put("status", course.getStatus());
-                    courseData.put("description", course.getDescription());
                     
                     // Add degree information
                     if (course.getDegree() != null) {
@@ -428,8 +503,15 @@ public class CourseService {
     }
 
     // Student-specific methods
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getAvailableCoursesForStudent(Student student) {
-        List<Course> allCourses = courseRepository.findAll();
+        List<Course> allCourses = courseRepository.findAllForCatalog();
+        Map<Long, CourseSeats> seats = seatReservationService.getAllSeats();
+        // One query for the student's enrollments instead of one per listed course
+        Map<Long, Enrollment.Status> enrollmentStatuses = new HashMap<>();
+        for (Object[] row : enrollmentRepository.findCourseStatusesByStudentId(student.getId())) {
+            enrollmentStatuses.put((Long) row[0], (Enrollment.Status) row[1]);
+        }
         return allCourses.stream()
                 .map(course -> {
                     Map<String, Object> courseData = new HashMap<>();
@@ -439,7 +521,6 @@ public class CourseService {
                     courseData.put("department", course.getDepartment());
                     courseData.put("credits", course.getCredits());
                     courseData.put("status", course.getStatus());
-                    courseData.put("description", course.getDescription());
                     
                     // Add degree information
                     if (course.getDegree() != null) {
@@ -460,29 +541,36 @@ public class CourseService {
                     }
                     
                     // Add enrollment information
-                    boolean isEnrolled = enrollmentRepository
-                            .findByStudentIdAndCourseId(student.getId(), course.getId())
-                            .isPresent();
-                    courseData.put("isEnrolled", isEnrolled);
+                    // A dropped enrollment can be reactivated, so only an active one counts as enrolled
+                    Enrollment.Status enrollmentStatus = enrollmentStatuses.get(course.getId());
+                    courseData.put("isEnrolled", enrollmentStatus == Enrollment.Status.ENROLLED);
+                    courseData.put("enrollmentStatus", enrollmentStatus);
                     
-                    // Add enrolled count
-                    long enrolledCount = enrollmentRepository.countEnrolledByCourseId(course.getId());
-                    courseData.put("enrolledCount", enrolledCount);
+                    // Add enrolled count and remaining seats
+                    CourseSeats courseSeats = seats.get(course.getId());
+                    courseData.put("enrolledCount", courseSeats != null ? courseSeats.getEnrolledCount() : 0);
+                    courseData.put("capacity", courseSeats != null ? courseSeats.getCapacity() : null);
+                    courseData.put("availableSeats", courseSeats != null ? courseSeats.getAvailableSeats() : null);
+                    courseData.put("waitlistPosition", waitlistService.getPosition(course.getId(), student.getId()));
                     
                     return courseData;
                 })
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<Course> getCoursesByLecturer(Lecturer lecturer) {
         return courseRepository.findByLecturer(lecturer);
     }
 
+    @Transactional(readOnly = true)
     public boolean isLecturerAssignedToCourse(Lecturer lecturer, Long courseId) {
         Course course = getCourseById(courseId);
         return course.getLecturer() != null && course.getLecturer().getId().equals(lecturer.getId());
     }
     
+    @Transactional(readOnly = true)
+    @ReportingQuery
     public long getTotalCourseCount() {
         return courseRepository.count();
     }
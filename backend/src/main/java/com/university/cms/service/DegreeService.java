@@ -1,5 +1,6 @@
 package com.university.cms.service;
 
+import com.university.cms.config.ReportingQuery;
 import com.university.cms.entity.Degree;
 import com.university.cms.repository.DegreeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,7 @@ public class DegreeService {
         return degreeRepository.findByDepartment(department);
     }
     
+    @ReportingQuery
     public long getTotalDegreeCount() {
         return degreeRepository.count();
     }
@@ -0,0 +1,62 @@
+package com.university.cms.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Text extracted from uploaded files, kept next to the uploads as one UTF-8 file
+ * per material or submission. A file's presence marks the upload as processed
+ * (an empty file means nothing could be extracted), which is what lets extraction
+ * resume after a restart and lets the search index be rebuilt without re-parsing.
+ */
+@Component
+public class ExtractedTextStore {
+
+    @Value("${app.extraction.text-dir:uploads/extracted}")
+    private String textDir;
+
+    public boolean exists(String type, Long id) {
+        return Files.exists(path(type, id));
+    }
+
+    public String read(String type, Long id) {
+        Path path = path(type, id);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Failed to read extracted text " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Written to a temp file and moved, so a crash never leaves a partial marker behind
+    public void write(String type, Long id, String text) throws IOException {
+        Path path = path(type, id);
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, text, StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void delete(String type, Long id) {
+        try {
+            Files.deleteIfExists(path(type, id));
+        } catch (IOException e) {
+            System.err.println("Failed to delete extracted text: " + e.getMessage());
+        }
+    }
+
+    private Path path(String type, Long id) {
+        return Paths.get(textDir, type + "-" + id + ".txt");
+    }
+}
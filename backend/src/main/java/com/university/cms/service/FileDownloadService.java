@@ -0,0 +1,63 @@
+package com.university.cms.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Builds download responses for stored upload files, once the caller has done the
+ * access checks.
+ *
+ * In "stream" mode the file is copied to the response from disk in small buffers.
+ * In "accel" mode, for deployments behind the bundled nginx, the response carries
+ * no body, only an X-Accel-Redirect to the internal location that maps onto the
+ * uploads directory: nginx then sends the file itself with sendfile, and the
+ * request thread is released as soon as the headers are written.
+ */
+@Service
+public class FileDownloadService {
+
+    @Value("${app.downloads.mode:stream}")
+    private String mode;
+
+    @Value("${app.downloads.storage-root:uploads}")
+    private String storageRoot;
+
+    @Value("${app.downloads.accel-location:/protected-files/}")
+    private String accelLocation;
+
+    public ResponseEntity<Resource> download(String filePath, String fileName) {
+        if (filePath == null) {
+            throw new RuntimeException("No file associated with this record");
+        }
+        Path path = Paths.get(filePath).toAbsolutePath().normalize();
+        if (!Files.exists(path)) {
+            throw new RuntimeException("File not found on server");
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(fileName != null ? fileName : path.getFileName().toString(), StandardCharsets.UTF_8)
+                .build());
+        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+
+        Path root = Paths.get(storageRoot).toAbsolutePath().normalize();
+        if ("accel".equalsIgnoreCase(mode) && path.startsWith(root)) {
+            headers.set("X-Accel-Redirect", accelLocation + UriUtils.encodePath(
+                    root.relativize(path).toString().replace('\\', '/'), StandardCharsets.UTF_8));
+            return ResponseEntity.ok().headers(headers).build();
+        }
+        return ResponseEntity.ok().headers(headers).body(new FileSystemResource(path));
+    }
+}
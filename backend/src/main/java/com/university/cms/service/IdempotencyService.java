@@ -0,0 +1,109 @@
+package com.university.cms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.university.cms.entity.IdempotencyRecord;
+import com.university.cms.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record store behind Idempotency-Key support.
+ *
+ * Completed responses are kept in idempotency_records until their TTL runs out,
+ * with a bounded in-memory cache in front, so a client retry costs a lookup. Keys
+ * being executed right now are tracked per node, and a duplicate arriving
+ * meanwhile is refused rather than run a second time.
+ */
+@Service
+public class IdempotencyService {
+
+    @Value("${app.idempotency.ttl:86400000}")
+    private long ttlMillis;
+
+    @Value("${app.idempotency.cache-size:10000}")
+    private long cacheSize;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private Cache<String, StoredResponse> cache;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+    }
+
+    // Scoped to the caller and the endpoint, so keys can't collide across users or routes
+    public String recordKey(String username, String method, String path, String idempotencyKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String scoped = username + "\n" + method + " " + path + "\n" + idempotencyKey;
+            return HexFormat.of().formatHex(digest.digest(scoped.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Read-write so it runs on the primary: a replica may not have the record yet
+    @Transactional
+    public StoredResponse find(String recordKey) {
+        StoredResponse cached = cache.getIfPresent(recordKey);
+        if (cached != null) {
+            return cached;
+        }
+        return idempotencyRecordRepository.findLive(recordKey, LocalDateTime.now())
+                .map(record -> {
+                    StoredResponse stored = new StoredResponse(
+                            record.getStatusCode(), record.getContentType(), record.getResponseBody());
+                    cache.put(recordKey, stored);
+                    return stored;
+                })
+                .orElse(null);
+    }
+
+    public boolean begin(String recordKey) {
+        return inFlight.add(recordKey);
+    }
+
+    public void end(String recordKey) {
+        inFlight.remove(recordKey);
+    }
+
+    @Transactional
+    public void store(String recordKey, StoredResponse response) {
+        LocalDateTime now = LocalDateTime.now();
+        idempotencyRecordRepository.insertIfAbsent(recordKey, response.statusCode(), response.contentType(),
+                response.body(), now, now.plusNanos(ttlMillis * 1_000_000L));
+        cache.put(recordKey, response);
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            System.out.println("Purged " + deleted + " expired idempotency records");
+        }
+    }
+
+    public record StoredResponse(int statusCode, String contentType, String body) {
+    }
+}
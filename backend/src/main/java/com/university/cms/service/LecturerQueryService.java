@@ -0,0 +1,470 @@
+package com.university.cms.service;
+
+import com.university.cms.config.ReportingQuery;
+import com.university.cms.entity.Assignment;
+import com.university.cms.entity.AssignmentSubmission;
+import com.university.cms.entity.CourseMaterial;
+import com.university.cms.entity.Lecturer;
+import com.university.cms.entity.User;
+import com.university.cms.entity.Course;
+import com.university.cms.entity.Enrollment;
+import com.university.cms.repository.AssignmentRepository;
+import com.university.cms.repository.AssignmentSubmissionRepository;
+import com.university.cms.repository.CourseMaterialRepository;
+import com.university.cms.repository.LecturerRepository;
+import com.university.cms.repository.CourseRepository;
+import com.university.cms.repository.EnrollmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeFormatter;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the lecturer workflows. Every method runs in a read-only transaction,
+ * so Hibernate loads entities without snapshots for dirty checking and never flushes.
+ * Writes go through LecturerService.
+ */
+@Service
+@Transactional(readOnly = true)
+public class LecturerQueryService {
+
+    @Autowired
+    private LecturerRepository lecturerRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    
+    @Autowired
+    private AssignmentSubmissionRepository assignmentSubmissionRepository;
+    
+    @Autowired
+    private CourseMaterialRepository courseMaterialRepository;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    public Lecturer getLecturerByUser(User user) {
+        return lecturerRepository.findByUser(user)
+                .orElseThrow(() -> new RuntimeException("Lecturer not found for user"));
+    }
+
+    public List<Map<String, Object>> getEnrolledStudents(Long courseId) {
+        return enrollmentRepository.findRosterByCourseId(courseId).stream()
+                .map(enrollment -> {
+                    Map<String, Object> studentData = new HashMap<>();
+                    studentData.put("id", enrollment.getStudent().getId());
+                    studentData.put("studentId", enrollment.getStudent().getStudentId());
+                    studentData.put("firstName", enrollment.getStudent().getFirstName());
+                    studentData.put("lastName", enrollment.getStudent().getLastName());
+                    studentData.put("email", enrollment.getStudent().getUser().getEmail());
+                    studentData.put("enrollmentDate", enrollment.getEnrollmentDate());
+                    studentData.put("status", enrollment.getStatus());
+                    studentData.put("grade", enrollment.getFinalGrade());
+                    return studentData;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public List<Lecturer> getAllLecturers() {
+        return lecturerRepository.findAll();
+    }
+
+    // Course Materials Management
+    public List<Map<String, Object>> getCourseMaterials(Long courseId) {
+        List<CourseMaterial> materials = courseMaterialRepository.findByCourseId(courseId);
+        return materials.stream().map(material -> {
+            Map<String, Object> materialData = new HashMap<>();
+            materialData.put("id", material.getId());
+            materialData.put("title", material.getTitle());
+            materialData.put("description", material.getDescription());
+            materialData.put("fileName", material.getFileName());
+            materialData.put("fileSize", material.getFileSize());
+            materialData.put("uploadDate", material.getUploadDate().toString());
+            // null while previews are being generated, 0 if the file has none
+            materialData.put("previewPages", material.getPreviewPages());
+            return materialData;
+        }).collect(Collectors.toList());
+    }
+
+    public ResponseEntity<Resource> downloadCourseMaterial(Long courseId, Long materialId) {
+        try {
+            CourseMaterial material = courseMaterialRepository.findById(materialId)
+                    .orElseThrow(() -> new RuntimeException("Material not found"));
+            
+            // Verify material belongs to the course
+            if (!material.getCourse().getId().equals(courseId)) {
+                throw new RuntimeException("Material does not belong to the specified course");
+            }
+            
+            return fileDownloadService.download(material.getFilePath(), material.getFileName());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download material file: " + e.getMessage());
+        }
+    }
+
+    public Lecturer getLecturerById(Long id) {
+        return lecturerRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Lecturer not found"));
+    }
+
+    @ReportingQuery
+    public long getTotalLecturerCount() {
+        return lecturerRepository.count();
+    }
+
+    public List<Map<String, Object>> getCoursesWithStats(Lecturer lecturer) {
+        List<Course> courses = courseRepository.findByLecturer(lecturer);
+        List<Map<String, Object>> coursesWithStats = new ArrayList<>();
+        
+        for (Course course : courses) {
+            Map<String, Object> courseData = new HashMap<>();
+            courseData.put("id", course.getId());
+            courseData.put("title", course.getTitle());
+            courseData.put("courseCode", course.getCourseCode());
+            courseData.put("credits", course.getCredits());
+            courseData.put("department", course.getDepartment());
+            courseData.put("status", course.getStatus());
+            
+            // Calculate enrolled count
+            List<Enrollment> enrollments = enrollmentRepository.findByCourseId(course.getId());
+            courseData.put("enrolledCount", enrollments.size());
+            
+            // Calculate average grade
+            List<Enrollment> gradedEnrollments = enrollments.stream()
+                .filter(e -> e.getFinalGrade() != null && !e.getFinalGrade().trim().isEmpty())
+                .collect(Collectors.toList());
+            
+            if (!gradedEnrollments.isEmpty()) {
+                double averageGrade = calculateAverageGrade(gradedEnrollments);
+                courseData.put("averageGrade", averageGrade);
+            } else {
+                courseData.put("averageGrade", null);
+            }
+            
+            coursesWithStats.add(courseData);
+        }
+        
+        return coursesWithStats;
+    }
+
+    private double calculateAverageGrade(List<Enrollment> gradedEnrollments) {
+        double totalPoints = 0;
+        int validGrades = 0;
+        
+        for (Enrollment enrollment : gradedEnrollments) {
+            String grade = enrollment.getFinalGrade().trim();
+            try {
+                double numericGrade = Double.parseDouble(grade);
+                if (numericGrade >= 0 && numericGrade <= 100) // Valid numeric grade
+                    totalPoints += numericGrade;
+                    validGrades++;
+                
+            } catch (NumberFormatException e) {
+                // Skip invalid grades
+                System.out.println("Invalid grade format: " + grade);
+            }
+        }
+        
+        return validGrades > 0 ? totalPoints / validGrades : 0.0;
+    }
+
+    public List<Map<String, Object>> getRecentActivities(Lecturer lecturer) {
+        List<Map<String, Object>> activities = new ArrayList<>();
+        
+        try {
+            // Get lecturer's courses
+            List<Course> courses = courseRepository.findByLecturer(lecturer);
+            System.out.println("Lecturer " + lecturer.getId() + " has " + courses.size() + " courses");
+            
+            // Activity 1: Recent Course Materials Uploaded
+            for (Course course : courses) {
+                List<CourseMaterial> recentMaterials = courseMaterialRepository.findByCourseId(course.getId());
+                for (CourseMaterial material : recentMaterials.stream()
+                        .sorted((a, b) -> b.getUploadDate().compareTo(a.getUploadDate()))
+                        .limit(2)
+                        .collect(Collectors.toList())) {
+                    Map<String, Object> activity = new HashMap<>();
+                    activity.put("id", "material-" + material.getId());
+                    activity.put("type", "material");
+                    activity.put("title", "Material Uploaded");
+                    activity.put("description", "Uploaded \"" + material.getTitle() + "\" to " + course.getTitle());
+                    activity.put("time", getTimeAgo(material.getUploadDate()));
+                    activity.put("icon", "file-text");
+                    activity.put("color", "#52c41a");
+                    activities.add(activity);
+                }
+            }
+            
+            // Activity 2: Recent Assignments Created
+            for (Course course : courses) {
+                List<Assignment> recentAssignments = assignmentRepository.findByCourseId(course.getId());
+                for (Assignment assignment : recentAssignments.stream()
+                        .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
+                        .limit(2)
+                        .collect(Collectors.toList())) {
+                    Map<String, Object> activity = new HashMap<>();
+                    activity.put("id", "assignment-" + assignment.getId());
+                    activity.put("type", "assignment");
+                    activity.put("title", "Assignment Created");
+                    activity.put("description", "Created \"" + assignment.getTitle() + "\" for " + course.getTitle());
+                    activity.put("time", getTimeAgo(assignment.getCreatedAt()));
+                    activity.put("icon", "edit");
+                    activity.put("color", "#1890ff");
+                    activities.add(activity);
+                }
+            }
+            
+            // Activity 3: Recent Student Enrollments
+            for (Course course : courses) {
+                try {
+                    List<Enrollment> recentEnrollments = enrollmentRepository
+                        .findByCourseIdOrderByEnrollmentDateDesc(course.getId());
+                    
+                    for (Enrollment enrollment : recentEnrollments.stream().limit(2).collect(Collectors.toList())) {
+                        Map<String, Object> activity = new HashMap<>();
+                        activity.put("id", "enrollment-" + enrollment.getId());
+                        activity.put("type", "enrollment");
+                        activity.put("title", "New Student Enrollment");
+                        activity.put("description", enrollment.getStudent().getFirstName() + " " + 
+                                   enrollment.getStudent().getLastName() + " enrolled in " + course.getTitle());
+                        activity.put("time", getTimeAgo(enrollment.getEnrollmentDate()));
+                        activity.put("icon", "user-add");
+                        activity.put("color", "#722ed1");
+                        activities.add(activity);
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error fetching enrollments for course " + course.getId() + ": " + e.getMessage());
+                }
+            }
+            
+            // Activity 4: Recent Grade Updates
+            for (Course course : courses) {
+                try {
+                    List<Enrollment> recentlyGraded = enrollmentRepository
+                        .findByCourseIdAndFinalGradeIsNotNullOrderByGradedDateDesc(course.getId());
+                    
+                    for (Enrollment enrollment : recentlyGraded.stream().limit(2).collect(Collectors.toList())) {
+                        if (enrollment.getGradedDate() != null) {
+                            Map<String, Object> activity = new HashMap<>();
+                            activity.put("id", "grade-" + enrollment.getId());
+                            activity.put("type", "grading");
+                            activity.put("title", "Grade Updated");
+                            activity.put("description", "Updated grade for " + enrollment.getStudent().getFirstName() + 
+                                       " " + enrollment.getStudent().getLastName() + " in " + course.getTitle());
+                            activity.put("time", getTimeAgo(enrollment.getGradedDate()));
+                            activity.put("icon", "check-circle");
+                            activity.put("color", "#f5222d");
+                            activities.add(activity);
+                        }
+                    }
+                } catch (Exception e) {
+                    System.err.println("Error fetching graded enrollments for course " + course.getId() + ": " + e.getMessage());
+                }
+            }
+            
+            // If no recent activities, add some default ones
+            if (activities.isEmpty()) {
+                for (Course course : courses.stream().limit(3).collect(Collectors.toList())) {
+                    Map<String, Object> activity = new HashMap<>();
+                    activity.put("id", "course-" + course.getId());
+                    activity.put("type", "course");
+                    activity.put("title", "Teaching Course");
+                    activity.put("description", "You are teaching " + course.getTitle());
+                    activity.put("time", getTimeAgo(course.getCreatedAt()));
+                    activity.put("icon", "book");
+                    activity.put("color", "#13c2c2");
+                    activities.add(activity);
+                }
+                
+                // Add a welcome activity if still empty
+                if (activities.isEmpty()) {
+                    Map<String, Object> activity = new HashMap<>();
+                    activity.put("id", "welcome");
+                    activity.put("type", "welcome");
+                    activity.put("title", "Welcome to CMS");
+                    activity.put("description", "Start by exploring your courses and uploading materials");
+                    activity.put("time", "Just now");
+                    activity.put("icon", "smile");
+                    activity.put("color", "#52c41a");
+                    activities.add(activity);
+                }
+            }
+            
+            // Sort by most recent and limit to 5
+            activities.sort((a, b) -> {
+                String timeA = a.get("time").toString();
+                String timeB = b.get("time").toString();
+                
+                // Handle "Just now" case
+                if (timeA.equals("Just now")) return -1;
+                if (timeB.equals("Just now")) return 1;
+                
+                // For other time formats, reverse sort (most recent first)
+                return timeB.compareTo(timeA);
+            });
+            
+            List<Map<String, Object>> result = activities.stream().limit(5).collect(Collectors.toList());
+            System.out.println("Returning " + result.size() + " activities for lecturer " + lecturer.getId());
+            
+            return result;
+            
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.err.println("Error in getRecentActivities: " + e.getMessage());
+            
+            // Return a default activity on error
+            List<Map<String, Object>> defaultActivities = new ArrayList<>();
+            Map<String, Object> activity = new HashMap<>();
+            activity.put("id", "error");
+            activity.put("type", "error");
+            activity.put("title", "Welcome");
+            activity.put("description", "Start exploring your lecturer dashboard");
+            activity.put("time", "Just now");
+            activity.put("icon", "info-circle");
+            activity.put("color", "#1890ff");
+            defaultActivities.add(activity);
+            
+            return defaultActivities;
+        }
+    }
+
+    private String getTimeAgo(LocalDateTime dateTime) {
+        if (dateTime == null) return "Unknown time";
+        
+        LocalDateTime now = LocalDateTime.now();
+        long minutes = ChronoUnit.MINUTES.between(dateTime, now);
+        long hours = ChronoUnit.HOURS.between(dateTime, now);
+        long days = ChronoUnit.DAYS.between(dateTime, now);
+        
+        if (minutes < 60) {
+            return minutes <= 1 ? "1 minute ago" : minutes + " minutes ago";
+        } else if (hours < 24) {
+            return hours == 1 ? "1 hour ago" : hours + " hours ago";
+        } else if (days < 7) {
+            return days == 1 ? "1 day ago" : days + " days ago";
+        } else {
+            return dateTime.format(DateTimeFormatter.ofPattern("MMM d, yyyy"));
+        }
+    }
+
+    // Assignment Management Methods
+    public List<Map<String, Object>> getCourseAssignments(Long courseId) {
+        List<Map<String, Object>> assignments = new ArrayList<>();
+        for (Object[] row : assignmentRepository.findListRowsByCourseId(courseId)) {
+            Map<String, Object> assignmentData = new HashMap<>();
+            assignmentData.put("id", row[0]);
+            assignmentData.put("courseId", courseId);
+            assignmentData.put("title", row[1]);
+            assignmentData.put("description", row[2]);
+            assignmentData.put("dueDate", row[3]);
+            assignmentData.put("maxPoints", row[4]);
+            assignmentData.put("fileName", row[5]);
+            assignmentData.put("fileSize", row[6]);
+            assignmentData.put("createdAt", row[7]);
+            assignments.add(assignmentData);
+        }
+        return assignments;
+    }
+
+    public ResponseEntity<Resource> downloadAssignmentFile(Long assignmentId) {
+        try {
+            Assignment assignment = assignmentRepository.findById(assignmentId)
+                    .orElseThrow(() -> new RuntimeException("Assignment not found"));
+            
+            return fileDownloadService.download(assignment.getFilePath(), assignment.getFileName());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download assignment file: " + e.getMessage());
+        }
+    }
+
+    public Long getCourseIdByAssignmentId(Long assignmentId) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        return assignment.getCourse().getId();
+    }
+
+    // Profile Management Methods
+    public Map<String, Object> getProfile(Lecturer lecturer) {
+        try {
+            Map<String, Object> profile = new HashMap<>();
+            User user = lecturer.getUser();
+            
+            profile.put("id", lecturer.getId());
+            profile.put("employeeId", lecturer.getEmployeeId());
+            profile.put("lecturerId", lecturer.getLecturerId());
+            profile.put("firstName", lecturer.getFirstName());
+            profile.put("lastName", lecturer.getLastName());
+            profile.put("email", user.getEmail());
+            profile.put("phone", lecturer.getPhone());
+            profile.put("department", lecturer.getDepartment());
+            profile.put("officeLocation", lecturer.getOfficeLocation());
+            
+            return profile;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get profile: " + e.getMessage());
+        }
+    }
+
+    // Assignment submission management methods
+    public List<Map<String, Object>> getAssignmentSubmissions(Long assignmentId) {
+        return assignmentSubmissionRepository.findListRowsByAssignmentId(assignmentId).stream()
+                .map(this::convertSubmissionRowToMap)
+                .collect(Collectors.toList());
+    }
+    
+    public List<Map<String, Object>> getCourseSubmissions(Long courseId) {
+        return assignmentSubmissionRepository.findListRowsByAssignmentCourseId(courseId).stream()
+                .map(this::convertSubmissionRowToMap)
+                .collect(Collectors.toList());
+    }
+
+    public Long getCourseIdBySubmissionId(Long submissionId) {
+        AssignmentSubmission submission = assignmentSubmissionRepository.findById(submissionId)
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+        return submission.getAssignment().getCourse().getId();
+    }
+
+    public ResponseEntity<Resource> downloadSubmissionFile(Long submissionId) {
+        try {
+            AssignmentSubmission submission = assignmentSubmissionRepository.findById(submissionId)
+                    .orElseThrow(() -> new RuntimeException("Submission not found"));
+            
+            return fileDownloadService.download(submission.getFilePath(), submission.getFileName());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download submission file: " + e.getMessage());
+        }
+    }
+
+    // Row layout from AssignmentSubmissionRepository.findListRowsBy*
+    private Map<String, Object> convertSubmissionRowToMap(Object[] row) {
+        Map<String, Object> submissionData = new HashMap<>();
+        submissionData.put("id", row[0]);
+        submissionData.put("studentId", row[1]);
+        submissionData.put("studentName", row[2] + " " + row[3]);
+        submissionData.put("assignmentName", row[4]);
+        submissionData.put("submissionText", row[5]);
+        submissionData.put("fileName", row[6]);
+        submissionData.put("fileSize", row[7]);
+        submissionData.put("submittedAt", String.valueOf(row[8]));
+        submissionData.put("grade", row[9]);
+        submissionData.put("feedback", row[10]);
+        submissionData.put("gradedAt", row[11] != null ? row[11].toString() : null);
+        return submissionData;
+    }
+}
@@ -13,27 +13,31 @@ import com.university.cms.repository.CourseMaterialRepository;
 import com.university.cms.repository.LecturerRepository;
 import com.university.cms.repository.CourseRepository;
 import com.university.cms.repository.EnrollmentRepository;
+import com.university.cms.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.ArrayList;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.time.format.DateTimeFormatter;
-import java.util.stream.Collectors;
 
+/**
+ * Write side of the lecturer workflows. Reads live in LecturerQueryService so they
+ * run in read-only transactions.
+ */
 @Service
-@Transactional
 public class LecturerService {
 
     @Autowired
@@ -54,47 +58,28 @@ public class LecturerService {
     @Autowired
     private CourseMaterialRepository courseMaterialRepository;
 
-    public Lecturer getLecturerByUser(User user) {
-        return lecturerRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("Lecturer not found for user"));
-    }
+    @Autowired
+    private UserRepository userRepository;
 
-    public List<Map<String, Object>> getEnrolledStudents(Long courseId) {
-        return enrollmentRepository.findByCourseId(courseId).stream()
-                .map(enrollment -> {
-                    Map<String, Object> studentData = new HashMap<>();
-                    studentData.put("id", enrollment.getStudent().getId());
-                    studentData.put("studentId", enrollment.getStudent().getStudentId());
-                    studentData.put("firstName", enrollment.getStudent().getFirstName());
-                    studentData.put("lastName", enrollment.getStudent().getLastName());
-                    studentData.put("email", enrollment.getStudent().getUser().getEmail());
-                    studentData.put("enrollmentDate", enrollment.getEnrollmentDate());
-                    studentData.put("status", enrollment.getStatus());
-                    studentData.put("grade", enrollment.getFinalGrade());
-                    return studentData;
-                })
-                .collect(Collectors.toList());
-    }
+    @Autowired
+    private PasswordEncoder passwordEncoder;
 
-    public List<Lecturer> getAllLecturers() {
-        return lecturerRepository.findAll();
-    }
-    
-    // Course Materials Management
-    public List<Map<String, Object>> getCourseMaterials(Long courseId) {
-        List<CourseMaterial> materials = courseMaterialRepository.findByCourseId(courseId);
-        return materials.stream().map(material -> {
-            Map<String, Object> materialData = new HashMap<>();
-            materialData.put("id", material.getId());
-            materialData.put("title", material.getTitle());
-            materialData.put("description", material.getDescription());
-            materialData.put("fileName", material.getFileName());
-            materialData.put("fileSize", material.getFileSize());
-            materialData.put("uploadDate", material.getUploadDate().toString());
-            return materialData;
-        }).collect(Collectors.toList());
-    }
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private ContentExtractionService contentExtractionService;
+
+    @Autowired
+    private ExtractedTextStore extractedTextStore;
+
+    @Autowired
+    private MaterialPreviewService materialPreviewService;
+
+    @Autowired
+    private MaterialPreviewStore materialPreviewStore;
     
+    @Transactional
     public void uploadCourseMaterial(Long courseId, String title, String description, MultipartFile file) {
         try {
             // Get course
@@ -117,21 +102,40 @@ public class LecturerService {
             // Save file
             Files.copy(file.getInputStream(), filePath);
             
-            // Create and save course material entity
-            CourseMaterial material = new CourseMaterial();
-            material.setCourse(course);
-            material.setTitle(title);
-            material.setDescription(description);
-            material.setFileName(fileName);
-            material.setFilePath(filePath.toString());
-            material.setFileSize(file.getSize());
-            
-            courseMaterialRepository.save(material);
+            saveMaterial(course, title, description, fileName, filePath, file.getSize());
         } catch (Exception e) {
             throw new RuntimeException("Failed to upload material: " + e.getMessage());
         }
     }
+
+    // Registers a file that is already in place under uploads/materials, e.g. a completed chunked upload
+    @Transactional
+    public CourseMaterial addCourseMaterial(Long courseId, String title, String description, String fileName,
+                                           Path filePath, long fileSize) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        return saveMaterial(course, title, description, fileName, filePath, fileSize);
+    }
+
+    private CourseMaterial saveMaterial(Course course, String title, String description, String fileName,
+                                        Path filePath, long fileSize) {
+        CourseMaterial material = new CourseMaterial();
+        material.setCourse(course);
+        material.setTitle(title);
+        material.setDescription(description);
+        material.setFileName(fileName);
+        material.setFilePath(filePath.toString());
+        material.setFileSize(fileSize);
+
+        courseMaterialRepository.save(material);
+        searchService.indexMaterial(material);
+        contentExtractionService.extractAfterCommit(SearchService.TYPE_MATERIAL, material.getId(),
+                material.getFilePath());
+        materialPreviewService.generateAfterCommit(material.getId(), fileName, material.getFilePath());
+        return material;
+    }
     
+    @Transactional
     public void updateCourseMaterial(Long courseId, Long materialId, String title, String description) {
         try {
             CourseMaterial material = courseMaterialRepository.findById(materialId)
@@ -146,11 +150,13 @@ public class LecturerService {
             material.setDescription(description);
             
             courseMaterialRepository.save(material);
+            searchService.indexMaterial(material);
         } catch (Exception e) {
             throw new RuntimeException("Failed to update material: " + e.getMessage());
         }
     }
     
+    @Transactional
     public void deleteCourseMaterial(Long courseId, Long materialId) {
         try {
             CourseMaterial material = courseMaterialRepository.findById(materialId)
@@ -173,54 +179,24 @@ public class LecturerService {
             
             // Delete from database
             courseMaterialRepository.deleteById(materialId);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to delete material: " + e.getMessage());
-        }
-    }
-
-    public ResponseEntity<byte[]> downloadCourseMaterial(Long courseId, Long materialId) {
-        try {
-            CourseMaterial material = courseMaterialRepository.findById(materialId)
-                    .orElseThrow(() -> new RuntimeException("Material not found"));
-            
-            // Verify material belongs to the course
-            if (!material.getCourse().getId().equals(courseId)) {
-                throw new RuntimeException("Material does not belong to the specified course");
+            extractedTextStore.delete(SearchService.TYPE_MATERIAL, materialId);
+            // Previews are shared by every material with the same content
+            String contentHash = material.getContentHash();
+            if (contentHash != null && !courseMaterialRepository.existsByContentHash(contentHash)) {
+                materialPreviewStore.delete(contentHash);
             }
-            
-            String filePath = material.getFilePath();
-            String fileName = material.getFileName();
-            
-            if (filePath == null) {
-                throw new RuntimeException("No file associated with this material");
-            }
-            
-            Path path = Paths.get(filePath);
-            if (!Files.exists(path)) {
-                throw new RuntimeException("File not found on server");
-            }
-            
-            byte[] fileContent = Files.readAllBytes(path);
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
-                    .header("Content-Type", "application/octet-stream")
-                    .body(fileContent);
-                    
+            searchService.remove(SearchService.TYPE_MATERIAL, materialId);
         } catch (Exception e) {
-            throw new RuntimeException("Failed to download material file: " + e.getMessage());
+            throw new RuntimeException("Failed to delete material: " + e.getMessage());
         }
     }
 
-    public Lecturer getLecturerById(Long id) {
-        return lecturerRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Lecturer not found"));
-    }
-
+    @Transactional
     public void updateStudentGrade(Long courseId, Long studentId, Map<String, Object> gradeData) {
         // Find the enrollment
         Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId)
                 .orElseThrow(() -> new RuntimeException("Enrollment not found"));
+        checkExpectedVersion(gradeData.get("version"), enrollment.getVersion(), Enrollment.class, enrollment.getId());
         
         // Update the grade and feedback
         if (gradeData.containsKey("grade")) {
@@ -235,253 +211,8 @@ public class LecturerService {
         enrollmentRepository.save(enrollment);
     }
     
-    public long getTotalLecturerCount() {
-        return lecturerRepository.count();
-    }
-    
-    public List<Map<String, Object>> getCoursesWithStats(Lecturer lecturer) {
-        List<Course> courses = courseRepository.findByLecturer(lecturer);
-        List<Map<String, Object>> coursesWithStats = new ArrayList<>();
-        
-        for (Course course : courses) {
-            Map<String, Object> courseData = new HashMap<>();
-            courseData.put("id", course.getId());
-            courseData.put("title", course.getTitle());
-            courseData.put("courseCode", course.getCourseCode());
-            courseData.put("description", course.getDescription());
-            courseData.put("credits", course.getCredits());
-            courseData.put("department", course.getDepartment());
-            courseData.put("status", course.getStatus());
-            
-            // Calculate enrolled count
-            List<Enrollment> enrollments = enrollmentRepository.findByCourseId(course.getId());
-            courseData.put("enrolledCount", enrollments.size());
-            
-            // Calculate average grade
-            List<Enrollment> gradedEnrollments = enrollments.stream()
-                .filter(e -> e.getFinalGrade() != null && !e.getFinalGrade().trim().isEmpty())
-                .collect(Collectors.toList());
-            
-            if (!gradedEnrollments.isEmpty()) {
-                double averageGrade = calculateAverageGrade(gradedEnrollments);
-                courseData.put("averageGrade", averageGrade);
-            } else {
-                courseData.put("averageGrade", null);
-            }
-            
-            coursesWithStats.add(courseData);
-        }
-        
-        return coursesWithStats;
-    }
-    
-    private double calculateAverageGrade(List<Enrollment> gradedEnrollments) {
-        double totalPoints = 0;
-        int validGrades = 0;
-        
-        for (Enrollment enrollment : gradedEnrollments) {
-            String grade = enrollment.getFinalGrade().trim();
-            try {
-                double numericGrade = Double.parseDouble(grade);
-                if (numericGrade >= 0 && numericGrade <= 100) // Valid numeric grade
-                    totalPoints += numericGrade;
-                    validGrades++;
-                
-            } catch (NumberFormatException e) {
-                // Skip invalid grades
-                System.out.println("Invalid grade format: " + grade);
-            }
-        }
-        
-        return validGrades > 0 ? totalPoints / validGrades : 0.0;
-    }
-    
-    // Remove the letter grade conversion method since we only use numeric grades now
-    
-    public List<Map<String, Object>> getRecentActivities(Lecturer lecturer) {
-        List<Map<String, Object>> activities = new ArrayList<>();
-        
-        try {
-            // Get lecturer's courses
-            List<Course> courses = courseRepository.findByLecturer(lecturer);
-            System.out.println("Lecturer " + lecturer.getId() + " has " + courses.size() + " courses");
-            
-            // Activity 1: Recent Course Materials Uploaded
-            for (Course course : courses) {
-                List<CourseMaterial> recentMaterials = courseMaterialRepository.findByCourseId(course.getId());
-                for (CourseMaterial material : recentMaterials.stream()
-                        .sorted((a, b) -> b.getUploadDate().compareTo(a.getUploadDate()))
-                        .limit(2)
-                        .collect(Collectors.toList())) {
-                    Map<String, Object> activity = new HashMap<>();
-                    activity.put("id", "material-" + material.getId());
-                    activity.put("type", "material");
-                    activity.put("title", "Material Uploaded");
-                    activity.put("description", "Uploaded \"" + material.getTitle() + "\" to " + course.getTitle());
-                    activity.put("time", getTimeAgo(material.getUploadDate()));
-                    activity.put("icon", "file-text");
-                    activity.put("color", "#52c41a");
-                    activities.add(activity);
-                }
-            }
-            
-            // Activity 2: Recent Assignments Created
-            for (Course course : courses) {
-                List<Assignment> recentAssignments = assignmentRepository.findByCourseId(course.getId());
-                for (Assignment assignment : recentAssignments.stream()
-                        .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                        .limit(2)
-                        .collect(Collectors.toList())) {
-                    Map<String, Object> activity = new HashMap<>();
-                    activity.put("id", "assignment-" + assignment.getId());
-                    activity.put("type", "assignment");
-                    activity.put("title", "Assignment Created");
-                    activity.put("description", "Created \"" + assignment.getTitle() + "\" for " + course.getTitle());
-                    activity.put("time", getTimeAgo(assignment.getCreatedAt()));
-                    activity.put("icon", "edit");
-                    activity.put("color", "#1890ff");
-                    activities.add(activity);
-                }
-            }
-            
-            // Activity 3: Recent Student Enrollments
-            for (Course course : courses) {
-                try {
-                    List<Enrollment> recentEnrollments = enrollmentRepository
-                        .findByCourseIdOrderByEnrollmentDateDesc(course.getId());
-                    
-                    for (Enrollment enrollment : recentEnrollments.stream().limit(2).collect(Collectors.toList())) {
-                        Map<String, Object> activity = new HashMap<>();
-                        activity.put("id", "enrollment-" + enrollment.getId());
-                        activity.put("type", "enrollment");
-                        activity.put("title", "New Student Enrollment");
-                        activity.put("description", enrollment.getStudent().getFirstName() + " " + 
-                                   enrollment.getStudent().getLastName() + " enrolled in " + course.getTitle());
-                        activity.put("time", getTimeAgo(enrollment.getEnrollmentDate()));
-                        activity.put("icon", "user-add");
-                        activity.put("color", "#722ed1");
-                        activities.add(activity);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error fetching enrollments for course " + course.getId() + ": " + e.getMessage());
-                }
-            }
-            
-            // Activity 4: Recent Grade Updates
-            for (Course course : courses) {
-                try {
-                    List<Enrollment> recentlyGraded = enrollmentRepository
-                        .findByCourseIdAndFinalGradeIsNotNullOrderByGradedDateDesc(course.getId());
-                    
-                    for (Enrollment enrollment : recentlyGraded.stream().limit(2).collect(Collectors.toList())) {
-                        if (enrollment.getGradedDate() != null) {
-                            Map<String, Object> activity = new HashMap<>();
-                            activity.put("id", "grade-" + enrollment.getId());
-                            activity.put("type", "grading");
-                            activity.put("title", "Grade Updated");
-                            activity.put("description", "Updated grade for " + enrollment.getStudent().getFirstName() + 
-                                       " " + enrollment.getStudent().getLastName() + " in " + course.getTitle());
-                            activity.put("time", getTimeAgo(enrollment.getGradedDate()));
-                            activity.put("icon", "check-circle");
-                            activity.put("color", "#f5222d");
-                            activities.add(activity);
-                        }
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error fetching graded enrollments for course " + course.getId() + ": " + e.getMessage());
-                }
-            }
-            
-            // If no recent activities, add some default ones
-            if (activities.isEmpty()) {
-                for (Course course : courses.stream().limit(3).collect(Collectors.toList())) {
-                    Map<String, Object> activity = new HashMap<>();
-                    activity.put("id", "course-" + course.getId());
-                    activity.put("type", "course");
-                    activity.put("title", "Teaching Course");
-                    activity.put("description", "You are teaching " + course.getTitle());
-                    activity.put("time", getTimeAgo(course.getCreatedAt()));
-                    activity.put("icon", "book");
-                    activity.put("color", "#13c2c2");
-                    activities.add(activity);
-                }
-                
-                // Add a welcome activity if still empty
-                if (activities.isEmpty()) {
-                    Map<String, Object> activity = new HashMap<>();
-                    activity.put("id", "welcome");
-                    activity.put("type", "welcome");
-                    activity.put("title", "Welcome to CMS");
-                    activity.put("description", "Start by exploring your courses and uploading materials");
-                    activity.put("time", "Just now");
-                    activity.put("icon", "smile");
-                    activity.put("color", "#52c41a");
-                    activities.add(activity);
-                }
-            }
-            
-            // Sort by most recent and limit to 5
-            activities.sort((a, b) -> {
-                String timeA = a.get("time").toString();
-                String timeB = b.get("time").toString();
-                
-                // Handle "Just now" case
-                if (timeA.equals("Just now")) return -1;
-                if (timeB.equals("Just now")) return 1;
-                
-                // For other time formats, reverse sort (most recent first)
-                return timeB.compareTo(timeA);
-            });
-            
-            List<Map<String, Object>> result = activities.stream().limit(5).collect(Collectors.toList());
-            System.out.println("Returning " + result.size() + " activities for lecturer " + lecturer.getId());
-            
-            return result;
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.err.println("Error in getRecentActivities: " + e.getMessage());
-            
-            // Return a default activity on error
-            List<Map<String, Object>> defaultActivities = new ArrayList<>();
-            Map<String, Object> activity = new HashMap<>();
-            activity.put("id", "error");
-            activity.put("type", "error");
-            activity.put("title", "Welcome");
-            activity.put("description", "Start exploring your lecturer dashboard");
-            activity.put("time", "Just now");
-            activity.put("icon", "info-circle");
-            activity.put("color", "#1890ff");
-            defaultActivities.add(activity);
-            
-            return defaultActivities;
-        }
-    }
-    
-    private String getTimeAgo(LocalDateTime dateTime) {
-        if (dateTime == null) return "Unknown time";
-        
-        LocalDateTime now = LocalDateTime.now();
-        long minutes = ChronoUnit.MINUTES.between(dateTime, now);
-        long hours = ChronoUnit.HOURS.between(dateTime, now);
-        long days = ChronoUnit.DAYS.between(dateTime, now);
-        
-        if (minutes < 60) {
-            return minutes <= 1 ? "1 minute ago" : minutes + " minutes ago";
-        } else if (hours < 24) {
-            return hours == 1 ? "1 hour ago" : hours + " hours ago";
-        } else if (days < 7) {
-            return days == 1 ? "1 day ago" : days + " days ago";
-        } else {
-            return dateTime.format(DateTimeFormatter.ofPattern("MMM d, yyyy"));
-        }
-    }
-    
-    // Assignment Management Methods
-    public List<Assignment> getCourseAssignments(Long courseId) {
-        return assignmentRepository.findByCourseId(courseId);
-    }
     
+    @Transactional
     public void createAssignment(Map<String, Object> assignmentData, MultipartFile file) {
         try {
             Assignment assignment = new Assignment();
@@ -525,11 +256,13 @@ public class LecturerService {
             }
             
             assignmentRepository.save(assignment);
+            searchService.indexAssignment(assignment);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create assignment: " + e.getMessage());
         }
     }
     
+    @Transactional
     public void updateAssignment(Long assignmentId, Map<String, Object> assignmentData, MultipartFile file) {
         try {
             Assignment assignment = assignmentRepository.findById(assignmentId)
@@ -579,15 +312,18 @@ public class LecturerService {
             }
             
             assignmentRepository.save(assignment);
+            searchService.indexAssignment(assignment);
         } catch (Exception e) {
             throw new RuntimeException("Failed to update assignment: " + e.getMessage());
         }
     }
     
+    @Transactional
     public void deleteAssignment(Long assignmentId) {
         try {
             Assignment assignment = assignmentRepository.findById(assignmentId)
                     .orElseThrow(() -> new RuntimeException("Assignment not found"));
+            List<Long> submissionIds = assignmentSubmissionRepository.findIdsByAssignmentId(assignmentId);
             
             // Delete associated file if exists
             if (assignment.getFilePath() != null) {
@@ -600,65 +336,14 @@ public class LecturerService {
             }
             
             assignmentRepository.deleteById(assignmentId);
+            searchService.removeAssignment(assignmentId);
+            deleteExtractedTextsAfterCommit(submissionIds);
         } catch (Exception e) {
             throw new RuntimeException("Failed to delete assignment: " + e.getMessage());
         }
     }
-    
-    public ResponseEntity<byte[]> downloadAssignmentFile(Long assignmentId) {
-        try {
-            Assignment assignment = assignmentRepository.findById(assignmentId)
-                    .orElseThrow(() -> new RuntimeException("Assignment not found"));
-            
-            if (assignment.getFilePath() == null) {
-                throw new RuntimeException("No file associated with this assignment");
-            }
-            
-            Path filePath = Paths.get(assignment.getFilePath());
-            if (!Files.exists(filePath)) {
-                throw new RuntimeException("File not found on server");
-            }
-            
-            byte[] fileContent = Files.readAllBytes(filePath);
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + assignment.getFileName() + "\"")
-                    .header("Content-Type", "application/octet-stream")
-                    .body(fileContent);
-                    
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to download assignment file: " + e.getMessage());
-        }
-    }
-    
-    public Long getCourseIdByAssignmentId(Long assignmentId) {
-        Assignment assignment = assignmentRepository.findById(assignmentId)
-                .orElseThrow(() -> new RuntimeException("Assignment not found"));
-        return assignment.getCourse().getId();
-    }
-
-    // Profile Management Methods
-    public Map<String, Object> getProfile(Lecturer lecturer) {
-        try {
-            Map<String, Object> profile = new HashMap<>();
-            User user = lecturer.getUser();
-            
-            profile.put("id", lecturer.getId());
-            profile.put("employeeId", lecturer.getEmployeeId());
-            profile.put("lecturerId", lecturer.getLecturerId());
-            profile.put("firstName", lecturer.getFirstName());
-            profile.put("lastName", lecturer.getLastName());
-            profile.put("email", user.getEmail());
-            profile.put("phone", lecturer.getPhone());
-            profile.put("department", lecturer.getDepartment());
-            profile.put("officeLocation", lecturer.getOfficeLocation());
-            
-            return profile;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get profile: " + e.getMessage());
-        }
-    }
 
+    @Transactional
     public void updateProfile(Lecturer lecturer, Map<String, Object> profileData) {
         try {
             // Update lecturer fields
@@ -684,99 +369,35 @@ public class LecturerService {
         }
     }
 
+    @Transactional
     public void changePassword(User user, Map<String, String> passwordData) {
-        try {
-            String currentPassword = passwordData.get("currentPassword");
-            String newPassword = passwordData.get("newPassword");
-            
-            // In a real implementation, you would verify the current password
-            // and hash the new password before saving
-            // For now, this is a placeholder implementation
-            
-            if (currentPassword == null || newPassword == null) {
-                throw new RuntimeException("Current password and new password are required");
-            }
-            
-            if (newPassword.length() < 6) {
-                throw new RuntimeException("New password must be at least 6 characters long");
-            }
-            
-            // TODO: Implement actual password verification and hashing
-            // user.setPassword(hashedNewPassword);
-            // userRepository.save(user);
-            
-            // For now, just validate the input
-            System.out.println("Password change requested for user: " + user.getEmail());
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to change password: " + e.getMessage());
+        String currentPassword = passwordData.get("currentPassword");
+        String newPassword = passwordData.get("newPassword");
+
+        if (currentPassword == null || newPassword == null) {
+            throw new RuntimeException("Current password and new password are required");
         }
-    }
-    
-    // Assignment submission management methods
-    public List<Map<String, Object>> getAssignmentSubmissions(Long assignmentId) {
-        List<AssignmentSubmission> submissions = assignmentSubmissionRepository.findByAssignmentId(assignmentId);
-        return submissions.stream().map(this::convertSubmissionToMap).collect(Collectors.toList());
-    }
-    
-    public List<Map<String, Object>> getCourseSubmissions(Long courseId) {
-        List<AssignmentSubmission> submissions = assignmentSubmissionRepository.findByAssignmentCourseId(courseId);
-        return submissions.stream().map(this::convertSubmissionToMap).collect(Collectors.toList());
-    }
-    
-    public Long getCourseIdBySubmissionId(Long submissionId) {
-        AssignmentSubmission submission = assignmentSubmissionRepository.findById(submissionId)
-                .orElseThrow(() -> new RuntimeException("Submission not found"));
-        return submission.getAssignment().getCourse().getId();
-    }
-    
-    public ResponseEntity<byte[]> downloadSubmissionFile(Long submissionId) {
-        try {
-            AssignmentSubmission submission = assignmentSubmissionRepository.findById(submissionId)
-                    .orElseThrow(() -> new RuntimeException("Submission not found"));
-            
-            if (submission.getFilePath() == null) {
-                throw new RuntimeException("No file associated with this submission");
-            }
-            
-            Path filePath = Paths.get(submission.getFilePath());
-            if (!Files.exists(filePath)) {
-                throw new RuntimeException("File not found on server");
-            }
-            
-            byte[] fileContent = Files.readAllBytes(filePath);
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + submission.getFileName() + "\"")
-                    .header("Content-Type", "application/octet-stream")
-                    .body(fileContent);
-                    
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to download submission file: " + e.getMessage());
+
+        if (newPassword.length() < 6) {
+            throw new RuntimeException("New password must be at least 6 characters long");
         }
-    }
-    
-    private Map<String, Object> convertSubmissionToMap(AssignmentSubmission submission) {
-        Map<String, Object> submissionData = new HashMap<>();
-        submissionData.put("id", submission.getId());
-        submissionData.put("studentId", submission.getStudent().getStudentId());
-        submissionData.put("studentName", submission.getStudent().getFirstName() + " " + submission.getStudent().getLastName());
-        submissionData.put("assignmentName", submission.getAssignment().getTitle());
-        submissionData.put("submissionText", submission.getSubmissionText());
-        submissionData.put("fileName", submission.getFileName());
-        submissionData.put("fileSize", submission.getFileSize());
-        submissionData.put("submittedAt", submission.getSubmittedAt().toString());
-        submissionData.put("grade", submission.getGrade());
-        submissionData.put("feedback", submission.getFeedback());
-        submissionData.put("gradedAt", submission.getGradedAt() != null ? submission.getGradedAt().toString() : null);
-        return submissionData;
+
+        // Verify current password
+        if (!passwordEncoder.matches(currentPassword, user.getPassword())) {
+            throw new RuntimeException("Current password is incorrect");
+        }
+
+        user.setPassword(passwordEncoder.encode(newPassword));
+        userRepository.save(user);
     }
 
     // Assignment submission grading method
+    @Transactional
     public void gradeSubmission(Long submissionId, Map<String, Object> gradeData) {
         try {
             AssignmentSubmission submission = assignmentSubmissionRepository.findById(submissionId)
                     .orElseThrow(() -> new RuntimeException("Submission not found"));
+            checkExpectedVersion(gradeData.get("version"), submission.getVersion(), AssignmentSubmission.class, submissionId);
             
             // Update grade and feedback
             if (gradeData.containsKey("grade")) {
@@ -799,8 +420,56 @@ public class LecturerService {
             submission.setGradedAt(LocalDateTime.now());
             
             assignmentSubmissionRepository.save(submission);
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to grade submission: " + e.getMessage());
         }
     }
+
+    // Current grading state, returned with a 409 so the client can merge and retry.
+    // Read-write transactions run on the primary, which already has the competing write.
+    @Transactional
+    public Map<String, Object> getSubmissionGradeState(Long submissionId) {
+        AssignmentSubmission submission = assignmentSubmissionRepository.findById(submissionId)
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+        Map<String, Object> state = new HashMap<>();
+        state.put("id", submission.getId());
+        state.put("grade", submission.getGrade());
+        state.put("feedback", submission.getFeedback());
+        state.put("gradedAt", submission.getGradedAt());
+        state.put("version", submission.getVersion());
+        return state;
+    }
+
+    @Transactional
+    public Map<String, Object> getEnrollmentGradeState(Long courseId, Long studentId) {
+        Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(studentId, courseId)
+                .orElseThrow(() -> new RuntimeException("Enrollment not found"));
+        Map<String, Object> state = new HashMap<>();
+        state.put("courseId", courseId);
+        state.put("studentId", studentId);
+        state.put("grade", enrollment.getFinalGrade());
+        state.put("feedback", enrollment.getFeedback());
+        state.put("gradedDate", enrollment.getGradedDate());
+        state.put("version", enrollment.getVersion());
+        return state;
+    }
+
+    // A client that sends the version it read is refused if someone else has written since
+    // Extracted text of deleted submissions is only removed once the delete has committed
+    private void deleteExtractedTextsAfterCommit(List<Long> submissionIds) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submissionIds.forEach(id -> extractedTextStore.delete(SearchService.TYPE_SUBMISSION, id));
+            }
+        });
+    }
+
+    private void checkExpectedVersion(Object expected, Long current, Class<?> type, Object id) {
+        if (expected != null && !Long.valueOf(expected.toString()).equals(current)) {
+            throw new ObjectOptimisticLockingFailureException(type, id);
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package com.university.cms.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Locality-sensitive hashing over MinHash signatures: each signature is cut into
+ * bands of rows, and two submissions become a candidate pair when any band matches
+ * exactly. With b bands of r rows a pair of similarity s is found with probability
+ * 1 - (1 - s^r)^b, so close pairs are almost always found while unrelated ones
+ * rarely share a bucket, and only candidates are compared.
+ *
+ * Not thread-safe; build it once and then only query it.
+ */
+public class LshIndex {
+
+    private final int bands;
+    private final int rows;
+    private final Map<Long, List<Long>> buckets = new HashMap<>();
+    private final Map<Long, int[]> signatures = new HashMap<>();
+
+    public LshIndex(int bands, int rows) {
+        if (bands < 1 || rows < 1 || bands * rows > MinHash.SIGNATURE_SIZE) {
+            throw new IllegalArgumentException("bands x rows must fit in a signature of " + MinHash.SIGNATURE_SIZE);
+        }
+        this.bands = bands;
+        this.rows = rows;
+    }
+
+    public void add(long id, int[] signature) {
+        if (signatures.put(id, signature) != null) {
+            throw new IllegalArgumentException("Signature " + id + " is already indexed");
+        }
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bucketKey(band, signature), key -> new ArrayList<>(2)).add(id);
+        }
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    /**
+     * Pairs whose estimated similarity is at least the threshold, most similar first.
+     * Buckets holding more than maxBucketSize signatures are skipped: they come from
+     * text nearly everyone shares (a template, the task statement) and comparing all
+     * of their members would bring back the quadratic cost.
+     */
+    public Result similarPairs(double threshold, int maxBucketSize) {
+        Set<PairKey> seen = new HashSet<>();
+        List<Pair> pairs = new ArrayList<>();
+        int skippedBuckets = 0;
+        for (List<Long> bucket : buckets.values()) {
+            if (bucket.size() < 2) {
+                continue;
+            }
+            if (bucket.size() > maxBucketSize) {
+                skippedBuckets++;
+                continue;
+            }
+            for (int i = 0; i < bucket.size(); i++) {
+                for (int j = i + 1; j < bucket.size(); j++) {
+                    long first = Math.min(bucket.get(i), bucket.get(j));
+                    long second = Math.max(bucket.get(i), bucket.get(j));
+                    if (!seen.add(new PairKey(first, second))) {
+                        continue;
+                    }
+                    double similarity = MinHash.similarity(signatures.get(first), signatures.get(second));
+                    if (similarity >= threshold) {
+                        pairs.add(new Pair(first, second, similarity));
+                    }
+                }
+            }
+        }
+        pairs.sort(Comparator.comparingDouble(Pair::similarity).reversed()
+                .thenComparingLong(Pair::first).thenComparingLong(Pair::second));
+        return new Result(pairs, seen.size(), skippedBuckets);
+    }
+
+    private long bucketKey(int band, int[] signature) {
+        long key = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            key = MinHash.mix(key * 31 + signature[i]);
+        }
+        return key;
+    }
+
+    public record Pair(long first, long second, double similarity) {}
+
+    // candidates: pairs compared; skippedBuckets: buckets over the size limit
+    public record Result(List<Pair> pairs, int candidates, int skippedBuckets) {}
+
+    private record PairKey(long first, long second) {}
+}
@@ -0,0 +1,438 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.CourseMaterial;
+import com.university.cms.repository.CourseMaterialRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Thumbnails and first-page previews of course materials, so students can see what
+ * a file is before downloading all of it.
+ *
+ * Like text extraction, generation runs after the upload commits on a small
+ * low-priority pool, with a periodic sweep for anything the queue didn't take.
+ * PDFs have their first pages rendered, images are scaled down, and Office/ODF
+ * files contribute the thumbnail their editor embedded. The images are stored by
+ * content hash, so re-uploads of the same file reuse them, and since a hash's images
+ * never change they are served with a year-long immutable Cache-Control.
+ */
+@Service
+public class MaterialPreviewService {
+
+    private static final Set<String> IMAGES = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+    private static final Set<String> OFFICE = Set.of("docx", "pptx", "xlsx", "odt", "odp", "ods");
+    private static final List<String> EMBEDDED_THUMBNAILS = List.of(
+            "docProps/thumbnail.jpeg", "docProps/thumbnail.jpg", "docProps/thumbnail.png", "Thumbnails/thumbnail.png");
+
+    private static final float JPEG_QUALITY = 0.8f;
+    // Enough to render a page at preview width; guards against absurd page sizes
+    private static final float MAX_RENDER_SCALE = 4f;
+
+    @Value("${app.previews.workers:1}")
+    private int workers;
+
+    @Value("${app.previews.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.previews.max-file-size:104857600}")
+    private long maxFileSize;
+
+    @Value("${app.previews.max-pages:3}")
+    private int maxPages;
+
+    @Value("${app.previews.thumbnail-width:320}")
+    private int thumbnailWidth;
+
+    @Value("${app.previews.page-width:1024}")
+    private int pageWidth;
+
+    @Value("${app.previews.max-image-pixels:50000000}")
+    private long maxImagePixels;
+
+    @Autowired
+    private CourseMaterialRepository courseMaterialRepository;
+
+    @Autowired
+    private MaterialPreviewStore previewStore;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor executor;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "material-preview-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    // Interrupted jobs record nothing, so the sweep picks them up after restart
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues preview generation for a new material once the current transaction commits.
+     */
+    public void generateAfterCommit(Long materialId, String fileName, String filePath) {
+        Job job = new Job(materialId, fileName, filePath);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(job);
+                }
+            });
+        } else {
+            submit(job);
+        }
+    }
+
+    /**
+     * Queues materials that haven't been processed yet, up to the free queue capacity.
+     */
+    @Scheduled(initialDelayString = "${app.previews.sweep-initial-delay:45000}",
+            fixedDelayString = "${app.previews.sweep-interval:300000}")
+    public void resumePending() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        int queued = 0;
+        for (Object[] row : courseMaterialRepository.findPendingPreviews(PageRequest.of(0, capacity))) {
+            if (submit(new Job((Long) row[0], (String) row[1], (String) row[2]))) {
+                queued++;
+            }
+        }
+        if (queued > 0) {
+            System.out.println("Queued " + queued + " materials for preview generation");
+        }
+    }
+
+    public ResponseEntity<Resource> thumbnail(Long courseId, Long materialId, String ifNoneMatch) {
+        CourseMaterial material = findWithPreview(courseId, materialId);
+        return serve(previewStore.thumbnail(material.getContentHash()),
+                "\"" + material.getContentHash() + "-t\"", ifNoneMatch);
+    }
+
+    public ResponseEntity<Resource> page(Long courseId, Long materialId, int page, String ifNoneMatch) {
+        CourseMaterial material = findWithPreview(courseId, materialId);
+        if (page < 1 || page > material.getPreviewPages()) {
+            throw new RuntimeException("Preview page not found");
+        }
+        return serve(previewStore.page(material.getContentHash(), page),
+                "\"" + material.getContentHash() + "-" + page + "\"", ifNoneMatch);
+    }
+
+    private CourseMaterial findWithPreview(Long courseId, Long materialId) {
+        CourseMaterial material = courseMaterialRepository.findById(materialId)
+                .orElseThrow(() -> new RuntimeException("Material not found"));
+        if (!material.getCourse().getId().equals(courseId)) {
+            throw new RuntimeException("Material does not belong to the specified course");
+        }
+        if (material.getContentHash() == null || material.getPreviewPages() == null
+                || material.getPreviewPages() == 0) {
+            throw new RuntimeException("No preview available for this material");
+        }
+        return material;
+    }
+
+    // Private: the images are only for users with access to the course
+    private ResponseEntity<Resource> serve(Path file, String etag, String ifNoneMatch) {
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable();
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        if (!Files.exists(file)) {
+            throw new RuntimeException("Preview file not found on server");
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(new FileSystemResource(file));
+    }
+
+    // A full queue is not an error: the material stays unprocessed and the next sweep retries it
+    private boolean submit(Job job) {
+        if (!pending.add(job.materialId())) {
+            return false;
+        }
+        try {
+            executor.execute(() -> run(job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            pending.remove(job.materialId());
+            return false;
+        }
+    }
+
+    private void run(Job job) {
+        try {
+            String extension = extension(job.fileName());
+            if (!IMAGES.contains(extension) && !OFFICE.contains(extension) && !"pdf".equals(extension)) {
+                record(job.materialId(), null, 0);
+                return;
+            }
+            Path file = Paths.get(job.filePath());
+            if (!Files.exists(file)) {
+                throw new NoSuchFileException(file.toString());
+            }
+            if (Files.size(file) > maxFileSize) {
+                System.out.println("Skipping preview generation for large file " + file);
+                record(job.materialId(), null, 0);
+                return;
+            }
+
+            String contentHash = sha256(file);
+            Integer pages = previewStore.pageCount(contentHash);
+            if (pages == null) {
+                pages = generate(file, extension, contentHash);
+            }
+            record(job.materialId(), contentHash, pages);
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            // Unreadable or corrupt files are recorded as having no preview so they aren't retried forever
+            System.err.println("Preview generation failed for material " + job.materialId() + ": " + e.getMessage());
+            try {
+                record(job.materialId(), null, 0);
+            } catch (RuntimeException recordError) {
+                System.err.println("Failed to record preview result: " + recordError.getMessage());
+            }
+        } finally {
+            pending.remove(job.materialId());
+        }
+    }
+
+    // The listing endpoints are ETag-cached on course_materials, so they must see the new preview
+    private void record(Long materialId, String contentHash, int pages) {
+        transactionTemplate.executeWithoutResult(status -> {
+            courseMaterialRepository.recordPreview(materialId, contentHash, pages);
+            changeVersionService.markChanged("course_materials");
+        });
+    }
+
+    private int generate(Path file, String extension, String contentHash) throws IOException {
+        Path workDir = previewStore.createWorkDir();
+        try {
+            int pages;
+            if ("pdf".equals(extension)) {
+                pages = renderPdf(file, workDir);
+            } else if (IMAGES.contains(extension)) {
+                pages = renderImage(readImage(file), workDir);
+            } else {
+                pages = renderImage(readEmbeddedThumbnail(file), workDir);
+            }
+            if (pages > 0) {
+                previewStore.publish(workDir, contentHash);
+            }
+            return pages;
+        } finally {
+            previewStore.deleteRecursively(workDir);
+        }
+    }
+
+    // One page in memory at a time; the thumbnail is scaled from the first rendered page
+    private int renderPdf(Path file, Path workDir) throws IOException {
+        try (PDDocument document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            PDFRenderer renderer = new PDFRenderer(document);
+            int pages = Math.min(document.getNumberOfPages(), maxPages);
+            for (int i = 0; i < pages; i++) {
+                PDPage page = document.getPage(i);
+                PDRectangle box = page.getCropBox();
+                float width = page.getRotation() % 180 == 0 ? box.getWidth() : box.getHeight();
+                float scale = Math.min(pageWidth / Math.max(width, 1f), MAX_RENDER_SCALE);
+                BufferedImage image = renderer.renderImage(i, scale, ImageType.RGB);
+                if (i == 0) {
+                    writeJpeg(scaleToWidth(image, thumbnailWidth), workDir.resolve(MaterialPreviewStore.THUMBNAIL));
+                }
+                writeJpeg(image, workDir.resolve(MaterialPreviewStore.pageFileName(i + 1)));
+            }
+            return pages;
+        }
+    }
+
+    private int renderImage(BufferedImage image, Path workDir) throws IOException {
+        if (image == null) {
+            return 0;
+        }
+        BufferedImage page = scaleToWidth(image, pageWidth);
+        writeJpeg(scaleToWidth(page, thumbnailWidth), workDir.resolve(MaterialPreviewStore.THUMBNAIL));
+        writeJpeg(page, workDir.resolve(MaterialPreviewStore.pageFileName(1)));
+        return 1;
+    }
+
+    private BufferedImage readImage(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            return readImage(in, file.toString());
+        }
+    }
+
+    // Checks dimensions before decoding and subsamples large photos while reading
+    private BufferedImage readImage(ImageInputStream in, String source) throws IOException {
+        Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+        if (readers == null || !readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            int width = reader.getWidth(0);
+            if ((long) width * reader.getHeight(0) > maxImagePixels) {
+                System.out.println("Skipping preview for oversized image " + source);
+                return null;
+            }
+            ImageReadParam param = reader.getDefaultReadParam();
+            int step = Math.max(1, width / (pageWidth * 2));
+            param.setSourceSubsampling(step, step, 0, 0);
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    // The embedded image is as untrusted as the document, so it gets the same size check
+    private BufferedImage readEmbeddedThumbnail(Path file) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            for (String name : EMBEDDED_THUMBNAILS) {
+                ZipEntry entry = zip.getEntry(name);
+                if (entry != null) {
+                    try (InputStream entryIn = zip.getInputStream(entry);
+                         ImageInputStream in = ImageIO.createImageInputStream(entryIn)) {
+                        return readImage(in, file + "!" + name);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    // Halves repeatedly before the last step: one big bilinear step drops most pixels and aliases
+    private BufferedImage scaleToWidth(BufferedImage image, int width) {
+        BufferedImage current = image;
+        int targetWidth = Math.min(width, image.getWidth());
+        do {
+            int nextWidth = Math.max(targetWidth, current.getWidth() / 2);
+            int nextHeight = Math.max(1, (int) ((long) current.getHeight() * nextWidth / current.getWidth()));
+            // Drawn onto white: JPEG has no alpha channel, transparent areas would turn black
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, nextWidth, nextHeight);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > targetWidth);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String extension(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private record Job(Long materialId, String fileName, String filePath) {}
+}
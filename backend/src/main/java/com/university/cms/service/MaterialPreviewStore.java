@@ -0,0 +1,97 @@
+package com.university.cms.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Preview images of course materials, one directory per file content hash:
+ * thumbnail.jpg plus page-1.jpg ... page-N.jpg. A set is built in a work directory
+ * and moved into place in one step, so a hash directory that exists is complete;
+ * its files never change afterwards, which is what makes them safe to cache
+ * forever on the client.
+ */
+@Component
+public class MaterialPreviewStore {
+
+    static final String THUMBNAIL = "thumbnail.jpg";
+
+    @Value("${app.previews.dir:uploads/previews}")
+    private String previewDir;
+
+    /**
+     * Number of page images stored for this hash, or null if there is no set yet.
+     */
+    public Integer pageCount(String contentHash) throws IOException {
+        Path dir = dir(contentHash);
+        if (!Files.isDirectory(dir)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return (int) files.filter(file -> file.getFileName().toString().startsWith("page-")).count();
+        }
+    }
+
+    public Path createWorkDir() throws IOException {
+        Path root = Paths.get(previewDir);
+        Files.createDirectories(root);
+        return Files.createDirectory(root.resolve(".work-" + UUID.randomUUID()));
+    }
+
+    // Another worker may have published the same hash meanwhile; its set is just as good
+    public void publish(Path workDir, String contentHash) throws IOException {
+        Path target = dir(contentHash);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(workDir, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            deleteRecursively(workDir);
+        }
+    }
+
+    public Path thumbnail(String contentHash) {
+        return dir(contentHash).resolve(THUMBNAIL);
+    }
+
+    public Path page(String contentHash, int page) {
+        return dir(contentHash).resolve(pageFileName(page));
+    }
+
+    public void delete(String contentHash) {
+        try {
+            deleteRecursively(dir(contentHash));
+        } catch (IOException e) {
+            System.err.println("Failed to delete previews for " + contentHash + ": " + e.getMessage());
+        }
+    }
+
+    static String pageFileName(int page) {
+        return "page-" + page + ".jpg";
+    }
+
+    void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    // Two-character fan-out keeps directory sizes reasonable with many materials
+    private Path dir(String contentHash) {
+        return Paths.get(previewDir, contentHash.substring(0, 2), contentHash);
+    }
+}
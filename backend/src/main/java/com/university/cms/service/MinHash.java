@@ -0,0 +1,124 @@
+package com.university.cms.service;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures of texts, for estimating how much two texts overlap without
+ * comparing them.
+ *
+ * A text is normalised to lower-case words and cut into overlapping five-word
+ * shingles. The signature holds, for each of SIGNATURE_SIZE independent hash
+ * functions, the smallest hash over all shingles; the fraction of positions where
+ * two signatures agree estimates the Jaccard similarity of their shingle sets.
+ */
+public final class MinHash {
+
+    public static final int SIGNATURE_SIZE = 128;
+    static final int SHINGLE_WORDS = 5;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Fixed, so signatures stored in the database stay comparable across restarts
+    private static final long[] SEEDS = new SplittableRandom(0x5EED_CAFE_F00DL).longs(SIGNATURE_SIZE).toArray();
+
+    private MinHash() {}
+
+    /**
+     * Distinct 64-bit hashes of the text's word shingles, sorted; empty if the text
+     * has no words. Texts shorter than one shingle become a single shingle.
+     */
+    public static long[] shingles(String text) {
+        if (text == null) {
+            return new long[0];
+        }
+        String[] words = NON_WORD.split(text.toLowerCase(Locale.ROOT));
+        long[] wordHashes = new long[words.length];
+        int count = 0;
+        for (String word : words) {
+            if (!word.isEmpty()) {
+                wordHashes[count++] = fnv1a(word);
+            }
+        }
+        if (count == 0) {
+            return new long[0];
+        }
+
+        int window = Math.min(SHINGLE_WORDS, count);
+        long[] shingles = new long[count - window + 1];
+        for (int start = 0; start < shingles.length; start++) {
+            long hash = 0;
+            for (int i = start; i < start + window; i++) {
+                hash = hash * 0x9E3779B97F4A7C15L + wordHashes[i];
+            }
+            shingles[start] = mix(hash);
+        }
+        Arrays.sort(shingles);
+        int distinct = 0;
+        for (int i = 0; i < shingles.length; i++) {
+            if (i == 0 || shingles[i] != shingles[i - 1]) {
+                shingles[distinct++] = shingles[i];
+            }
+        }
+        return Arrays.copyOf(shingles, distinct);
+    }
+
+    public static int[] signature(long[] shingles) {
+        if (shingles.length == 0) {
+            throw new IllegalArgumentException("A signature needs at least one shingle");
+        }
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, -1);
+        for (long shingle : shingles) {
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                // Upper 32 bits of a well-mixed value, compared unsigned
+                int value = (int) (mix(shingle ^ SEEDS[i]) >>> 32);
+                if (Integer.compareUnsigned(value, signature[i]) < 0) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] first, int[] second) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (first[i] == second[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    public static byte[] toBytes(int[] signature) {
+        ByteBuffer buffer = ByteBuffer.allocate(signature.length * Integer.BYTES);
+        buffer.asIntBuffer().put(signature);
+        return buffer.array();
+    }
+
+    public static int[] fromBytes(byte[] bytes) {
+        int[] signature = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(signature);
+        return signature;
+    }
+
+    // SplitMix64 finaliser
+    static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    private static long fnv1a(String word) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+}
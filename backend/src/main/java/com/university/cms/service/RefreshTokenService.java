@@ -0,0 +1,140 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.RefreshToken;
+import com.university.cms.repository.RefreshTokenRepository;
+import com.university.cms.security.InvalidRefreshTokenException;
+import com.university.cms.security.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Issues and rotates opaque refresh tokens. Each login starts a session; every
+ * refresh exchanges the presented token for a new one in the same session, and
+ * presenting an already-exchanged token is treated as theft and revokes the session.
+ */
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    @Value("${jwt.refresh-expiration:604800000}")
+    private long refreshExpirationMillis;
+
+    @Value("${jwt.expiration}")
+    private long accessTokenMillis;
+
+    @Value("${jwt.refresh-reuse-grace:10000}")
+    private long reuseGraceMillis;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TokenRevocationList tokenRevocationList;
+
+    private final SecureRandom random = new SecureRandom();
+
+    public String issue(Long userId, String sessionId) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusNanos(refreshExpirationMillis * 1_000_000L);
+        refreshTokenRepository.save(new RefreshToken(userId, sessionId, hash(token), expiresAt));
+        return token;
+    }
+
+    /**
+     * Validates and consumes a refresh token. The caller issues the replacement in
+     * the same session. Reuse revokes the session, so that write must survive the
+     * exception.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public RefreshToken rotate(String token) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        if (refreshToken.getRevokedAt() != null) {
+            throw new InvalidRefreshTokenException("Session has been revoked");
+        }
+        if (refreshToken.getRotatedAt() != null) {
+            // Just rotated: most likely a second tab of the same browser refreshing at the
+            // same moment, which picks up the stored successor instead. Rejected, not revoked.
+            if (refreshToken.getRotatedAt().isAfter(LocalDateTime.now().minusNanos(reuseGraceMillis * 1_000_000L))) {
+                throw new InvalidRefreshTokenException("Refresh token has already been used");
+            }
+            revokeSession(refreshToken.getSessionId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        if (refreshToken.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        // Lost a race with a concurrent refresh of the same token
+        if (refreshTokenRepository.markRotated(refreshToken.getId(), LocalDateTime.now()) == 0) {
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        return refreshToken;
+    }
+
+    public void revokeSession(String sessionId) {
+        refreshTokenRepository.revokeSession(sessionId, LocalDateTime.now());
+        revokeAfterCommit(List.of(sessionId));
+    }
+
+    public void revokeByToken(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(refreshToken -> revokeSession(refreshToken.getSessionId()));
+    }
+
+    // Used when an account is deactivated
+    public void revokeAllForUser(Long userId) {
+        List<String> sessionIds = refreshTokenRepository.findActiveSessionIdsByUserId(userId);
+        refreshTokenRepository.revokeAllForUser(userId, LocalDateTime.now());
+        revokeAfterCommit(sessionIds);
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = refreshTokenRepository.deleteExpired(now, now.minusNanos(accessTokenMillis * 1_000_000L));
+        if (deleted > 0) {
+            System.out.println("Purged " + deleted + " expired refresh tokens");
+        }
+    }
+
+    // Other nodes pick the revocation up on their next reload; this one applies it immediately
+    private void revokeAfterCommit(List<String> sessionIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sessionIds.forEach(tokenRevocationList::revoke);
+                }
+            });
+        } else {
+            sessionIds.forEach(tokenRevocationList::revoke);
+        }
+    }
+
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.Assignment;
+import com.university.cms.entity.AssignmentSubmission;
+import com.university.cms.entity.Course;
+import com.university.cms.entity.CourseMaterial;
+import com.university.cms.entity.Lecturer;
+import com.university.cms.entity.Student;
+import com.university.cms.entity.User;
+import com.university.cms.repository.CourseRepository;
+import com.university.cms.repository.EnrollmentRepository;
+import com.university.cms.repository.LecturerRepository;
+import com.university.cms.repository.StudentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.StoredFields;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over courses, course materials, assignments and submissions,
+ * backed by an embedded Lucene index on local disk. Text extracted from uploaded
+ * files (see ContentExtractionService) is indexed in a separate content field.
+ *
+ * Services call the index* / remove* methods from inside their write transaction;
+ * the document is built there and applied to the index after commit, so a rolled
+ * back write never shows up in search. Searches run against a near-real-time reader
+ * that is refreshed after each change, and the index is committed to disk on a
+ * schedule and at shutdown. An empty index is rebuilt from the database at startup.
+ */
+@Service
+public class SearchService {
+
+    public static final String TYPE_COURSE = "course";
+    public static final String TYPE_MATERIAL = "material";
+    public static final String TYPE_ASSIGNMENT = "assignment";
+    public static final String TYPE_SUBMISSION = "submission";
+
+    private static final String FIELD_UID = "uid";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_COURSE_ID = "courseId";
+    private static final String FIELD_STUDENT_ID = "studentId";
+    private static final String FIELD_ASSIGNMENT_ID = "assignmentId";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CODE = "code";
+    private static final String FIELD_BODY = "body";
+    private static final String FIELD_CONTENT = "content";
+
+    private static final String MATERIAL_ROWS =
+            "SELECT m.id, m.course.id, m.title, m.description FROM CourseMaterial m";
+    private static final String SUBMISSION_ROWS =
+            "SELECT s.id, a.course.id, s.student.id, a.id, a.title, s.submissionText "
+                    + "FROM AssignmentSubmission s JOIN s.assignment a";
+    // MySQL streams rows one at a time with this fetch size instead of buffering the result
+    private static final int STREAM_ROWS = Integer.MIN_VALUE;
+
+    @Value("${app.search.index-dir:search-index}")
+    private String indexDir;
+
+    @Value("${app.search.max-results:50}")
+    private int maxResults;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private LecturerRepository lecturerRepository;
+
+    @Autowired
+    private ExtractedTextStore extractedTextStore;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = FSDirectory.open(Paths.get(indexDir));
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        writer = new IndexWriter(directory, config);
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildIfEmpty() {
+        if (writer.getDocStats().numDocs == 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Re-indexes every course, material, assignment and submission from the database.
+     * Reads plain projections so lazy text columns are fetched in the same query;
+     * file content comes from the extracted text store rather than being re-parsed.
+     * Materials and submissions are streamed rather than loaded all at once.
+     */
+    @Transactional(readOnly = true)
+    public int rebuild() {
+        try {
+            writer.deleteAll();
+            int count = 0;
+
+            List<Object[]> courses = entityManager.createQuery(
+                    "SELECT c.id, c.title, c.courseCode, c.description FROM Course c", Object[].class)
+                    .getResultList();
+            for (Object[] row : courses) {
+                writer.addDocument(courseDocument((Long) row[0], (String) row[1], (String) row[2], (String) row[3]));
+                count++;
+            }
+
+            count += addStreamed(MATERIAL_ROWS, this::materialDocument);
+
+            List<Object[]> assignments = entityManager.createQuery(
+                    "SELECT a.id, a.course.id, a.title FROM Assignment a", Object[].class)
+                    .getResultList();
+            for (Object[] row : assignments) {
+                writer.addDocument(assignmentDocument((Long) row[0], (Long) row[1], (String) row[2]));
+                count++;
+            }
+
+            count += addStreamed(SUBMISSION_ROWS, this::submissionDocument);
+
+            writer.commit();
+            searcherManager.maybeRefresh();
+            System.out.println("Search index rebuilt with " + count + " documents");
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to rebuild search index", e);
+        }
+    }
+
+    private int addStreamed(String jpql, Function<Object[], Document> toDocument) throws IOException {
+        int count = 0;
+        try (Stream<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                .setHint("org.hibernate.fetchSize", STREAM_ROWS)
+                .getResultStream()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writer.addDocument(toDocument.apply(iterator.next()));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Incremental updates, applied after the calling transaction commits
+
+    public void indexCourse(Course course) {
+        Document document = courseDocument(course.getId(), course.getTitle(), course.getCourseCode(),
+                course.getDescription());
+        afterCommit(() -> writer.updateDocument(new Term(FIELD_UID, uid(TYPE_COURSE, course.getId())), document));
+    }
+
+    public void indexMaterial(CourseMaterial material) {
+        Document document = materialDocument(material.getId(), material.getCourse().getId(), material.getTitle(),
+                material.getDescription(), extractedTextStore.read(TYPE_MATERIAL, material.getId()));
+        afterCommit(() -> writer.updateDocument(new Term(FIELD_UID, uid(TYPE_MATERIAL, material.getId())), document));
+    }
+
+    public void indexAssignment(Assignment assignment) {
+        Document document = assignmentDocument(assignment.getId(), assignment.getCourse().getId(),
+                assignment.getTitle());
+        afterCommit(() -> writer.updateDocument(new Term(FIELD_UID, uid(TYPE_ASSIGNMENT, assignment.getId())), document));
+    }
+
+    public void indexSubmission(AssignmentSubmission submission) {
+        Assignment assignment = submission.getAssignment();
+        Document document = submissionDocument(submission.getId(), assignment.getCourse().getId(),
+                submission.getStudent().getId(), assignment.getId(), assignment.getTitle(),
+                submission.getSubmissionText(), extractedTextStore.read(TYPE_SUBMISSION, submission.getId()));
+        afterCommit(() -> writer.updateDocument(new Term(FIELD_UID, uid(TYPE_SUBMISSION, submission.getId())), document));
+    }
+
+    /**
+     * Re-reads a material or submission after its file content has been extracted.
+     */
+    @Transactional(readOnly = true)
+    public void reindexContent(String type, Long id) {
+        boolean material = TYPE_MATERIAL.equals(type);
+        String jpql = material ? MATERIAL_ROWS + " WHERE m.id = :id" : SUBMISSION_ROWS + " WHERE s.id = :id";
+        List<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                .setParameter("id", id)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return;
+        }
+        Document document = material ? materialDocument(rows.get(0)) : submissionDocument(rows.get(0));
+        afterCommit(() -> writer.updateDocument(new Term(FIELD_UID, uid(type, id)), document));
+    }
+
+    public void remove(String type, Long id) {
+        afterCommit(() -> writer.deleteDocuments(new Term(FIELD_UID, uid(type, id))));
+    }
+
+    /**
+     * Removes an assignment together with its submissions.
+     */
+    public void removeAssignment(Long assignmentId) {
+        afterCommit(() -> {
+            writer.deleteDocuments(new Term(FIELD_UID, uid(TYPE_ASSIGNMENT, assignmentId)));
+            writer.deleteDocuments(new Term(FIELD_ASSIGNMENT_ID, String.valueOf(assignmentId)));
+        });
+    }
+
+    /**
+     * Removes a course together with its materials, assignments and submissions.
+     */
+    public void removeCourse(Long courseId) {
+        afterCommit(() -> {
+            writer.deleteDocuments(new Term(FIELD_UID, uid(TYPE_COURSE, courseId)));
+            writer.deleteDocuments(new Term(FIELD_COURSE_ID, String.valueOf(courseId)));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.commit-interval:30000}")
+    public void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to commit search index: " + e.getMessage());
+        }
+    }
+
+    // Querying
+
+    /**
+     * Searches on behalf of a user. Courses are visible to everyone, as in the
+     * catalog; materials and assignments only for courses the user teaches or is
+     * enrolled in. Submissions are visible to the course lecturer and to the student
+     * who made them. Admins see everything.
+     */
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> search(User user, String queryText, Integer limit) {
+        List<String> terms = analyze(queryText);
+        if (terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(termQuery(term), BooleanClause.Occur.MUST);
+        }
+
+        Query scope = scope(user);
+        if (scope != null) {
+            query.add(scope, BooleanClause.Occur.FILTER);
+        }
+
+        int size = limit == null ? maxResults : Math.max(1, Math.min(limit, maxResults));
+        return execute(query.build(), size);
+    }
+
+    private List<Map<String, Object>> execute(Query query, int size) {
+        try {
+            searcherManager.maybeRefresh();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, size);
+                StoredFields storedFields = searcher.storedFields();
+                List<Map<String, Object>> results = new ArrayList<>();
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    Document document = storedFields.document(scoreDoc.doc);
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("type", document.get(FIELD_TYPE));
+                    result.put("id", Long.valueOf(document.get(FIELD_ID)));
+                    result.put("courseId", Long.valueOf(document.get(FIELD_COURSE_ID)));
+                    result.put("title", document.get(FIELD_TITLE));
+                    result.put("courseCode", document.get(FIELD_CODE));
+                    result.put("score", scoreDoc.score);
+                    results.add(result);
+                }
+                return results;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Search failed: " + e.getMessage());
+        }
+    }
+
+    // Each query term must match somewhere: exact matches rank highest, then prefix
+    // matches (search-as-you-type), then fuzzy matches for typos in longer words.
+    private Query termQuery(String term) {
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        builder.add(new BoostQuery(new TermQuery(new Term(FIELD_CODE, term)), 4f), BooleanClause.Occur.SHOULD);
+        builder.add(new BoostQuery(new TermQuery(new Term(FIELD_TITLE, term)), 3f), BooleanClause.Occur.SHOULD);
+        builder.add(new TermQuery(new Term(FIELD_BODY, term)), BooleanClause.Occur.SHOULD);
+        builder.add(new BoostQuery(new PrefixQuery(new Term(FIELD_CODE, term)), 2f), BooleanClause.Occur.SHOULD);
+        builder.add(new BoostQuery(new PrefixQuery(new Term(FIELD_TITLE, term)), 1.5f), BooleanClause.Occur.SHOULD);
+        builder.add(new PrefixQuery(new Term(FIELD_BODY, term)), BooleanClause.Occur.SHOULD);
+        builder.add(new BoostQuery(new TermQuery(new Term(FIELD_CONTENT, term)), 0.8f), BooleanClause.Occur.SHOULD);
+        if (term.length() >= 4) {
+            int maxEdits = term.length() >= 7 ? 2 : 1;
+            builder.add(new BoostQuery(new FuzzyQuery(new Term(FIELD_TITLE, term), maxEdits, 1), 0.5f),
+                    BooleanClause.Occur.SHOULD);
+            builder.add(new BoostQuery(new FuzzyQuery(new Term(FIELD_BODY, term), maxEdits, 1), 0.3f),
+                    BooleanClause.Occur.SHOULD);
+        }
+        return builder.build();
+    }
+
+    // null means unrestricted
+    private Query scope(User user) {
+        BooleanQuery.Builder scope = new BooleanQuery.Builder();
+        scope.add(new TermQuery(new Term(FIELD_TYPE, TYPE_COURSE)), BooleanClause.Occur.SHOULD);
+        switch (user.getRole()) {
+            case ADMIN:
+                return null;
+            case LECTURER:
+                Lecturer lecturer = lecturerRepository.findByUser(user)
+                        .orElseThrow(() -> new RuntimeException("Lecturer not found for user"));
+                List<Long> taught = courseRepository.findIdsByLecturerId(lecturer.getId());
+                if (!taught.isEmpty()) {
+                    scope.add(courseIdIn(taught), BooleanClause.Occur.SHOULD);
+                }
+                break;
+            case STUDENT:
+                Student student = studentRepository.findByUser(user)
+                        .orElseThrow(() -> new RuntimeException("Student not found"));
+                List<Long> enrolled = enrollmentRepository.findEnrolledCourseIdsByStudentId(student.getId());
+                if (!enrolled.isEmpty()) {
+                    BooleanQuery.Builder courseContent = new BooleanQuery.Builder();
+                    courseContent.add(courseIdIn(enrolled), BooleanClause.Occur.FILTER);
+                    courseContent.add(new TermQuery(new Term(FIELD_TYPE, TYPE_SUBMISSION)), BooleanClause.Occur.MUST_NOT);
+                    scope.add(courseContent.build(), BooleanClause.Occur.SHOULD);
+                }
+                scope.add(new TermQuery(new Term(FIELD_STUDENT_ID, String.valueOf(student.getId()))),
+                        BooleanClause.Occur.SHOULD);
+                break;
+            default:
+                break;
+        }
+        return scope.build();
+    }
+
+    private Query courseIdIn(List<Long> courseIds) {
+        List<BytesRef> ids = courseIds.stream()
+                .map(id -> new BytesRef(String.valueOf(id)))
+                .collect(Collectors.toList());
+        return new TermInSetQuery(FIELD_COURSE_ID, ids);
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream stream = analyzer.tokenStream(FIELD_BODY, text)) {
+            CharTermAttribute attribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken() && terms.size() < 10) {
+                terms.add(attribute.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    // Documents
+
+    private Document courseDocument(Long id, String title, String code, String description) {
+        Document document = baseDocument(TYPE_COURSE, id, id, title);
+        if (code != null) {
+            document.add(new TextField(FIELD_CODE, code, Field.Store.YES));
+        }
+        if (description != null) {
+            document.add(new TextField(FIELD_BODY, description, Field.Store.NO));
+        }
+        return document;
+    }
+
+    private Document materialDocument(Object[] row) {
+        Long id = (Long) row[0];
+        return materialDocument(id, (Long) row[1], (String) row[2], (String) row[3],
+                extractedTextStore.read(TYPE_MATERIAL, id));
+    }
+
+    private Document materialDocument(Long id, Long courseId, String title, String description, String content) {
+        Document document = baseDocument(TYPE_MATERIAL, id, courseId, title);
+        if (description != null) {
+            document.add(new TextField(FIELD_BODY, description, Field.Store.NO));
+        }
+        if (content != null && !content.isEmpty()) {
+            document.add(new TextField(FIELD_CONTENT, content, Field.Store.NO));
+        }
+        return document;
+    }
+
+    private Document assignmentDocument(Long id, Long courseId, String title) {
+        return baseDocument(TYPE_ASSIGNMENT, id, courseId, title);
+    }
+
+    private Document submissionDocument(Object[] row) {
+        Long id = (Long) row[0];
+        return submissionDocument(id, (Long) row[1], (Long) row[2], (Long) row[3], (String) row[4], (String) row[5],
+                extractedTextStore.read(TYPE_SUBMISSION, id));
+    }
+
+    private Document submissionDocument(Long id, Long courseId, Long studentId, Long assignmentId,
+                                        String assignmentTitle, String text, String content) {
+        Document document = baseDocument(TYPE_SUBMISSION, id, courseId, assignmentTitle);
+        document.add(new StringField(FIELD_STUDENT_ID, String.valueOf(studentId), Field.Store.NO));
+        document.add(new StringField(FIELD_ASSIGNMENT_ID, String.valueOf(assignmentId), Field.Store.NO));
+        if (text != null) {
+            document.add(new TextField(FIELD_BODY, text, Field.Store.NO));
+        }
+        if (content != null && !content.isEmpty()) {
+            document.add(new TextField(FIELD_CONTENT, content, Field.Store.NO));
+        }
+        return document;
+    }
+
+    private Document baseDocument(String type, Long id, Long courseId, String title) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_UID, uid(type, id), Field.Store.NO));
+        document.add(new StringField(FIELD_TYPE, type, Field.Store.YES));
+        document.add(new StoredField(FIELD_ID, String.valueOf(id)));
+        document.add(new StringField(FIELD_COURSE_ID, String.valueOf(courseId), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, title != null ? title : "", Field.Store.YES));
+        return document;
+    }
+
+    private String uid(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    private void afterCommit(IndexUpdate update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(update);
+                }
+            });
+        } else {
+            apply(update);
+        }
+    }
+
+    private void apply(IndexUpdate update) {
+        try {
+            update.run();
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            System.err.println("Failed to update search index: " + e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexUpdate {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,124 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.CourseSeats;
+import com.university.cms.repository.CourseSeatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Course seat accounting.
+ *
+ * A seat is taken with one conditional UPDATE on the course's course_seats row, so
+ * the check and the increment are a single atomic step and concurrent enrollments
+ * can never overbook. Callers run it as the last statement of their transaction,
+ * which keeps the row lock held only for the commit. Once a course is seen full,
+ * this node answers "full" from memory for a short while, so a crowd retrying a
+ * full course doesn't queue on that row lock; any release here clears it at once,
+ * releases on other nodes are picked up when it expires.
+ */
+@Service
+public class SeatReservationService {
+
+    @Value("${app.enrollment.full-cache-ttl-ms:2000}")
+    private long fullCacheTtlMillis;
+
+    @Autowired
+    private CourseSeatsRepository courseSeatsRepository;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    // courseId -> time until which the course is assumed full
+    private final Map<Long, Long> knownFull = new ConcurrentHashMap<>();
+
+    public boolean isKnownFull(Long courseId) {
+        Long until = knownFull.get(courseId);
+        if (until == null) {
+            return false;
+        }
+        if (until < System.currentTimeMillis()) {
+            knownFull.remove(courseId, until);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes a seat in the current transaction; returns false if the course is full.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean tryReserve(Long courseId) {
+        if (isKnownFull(courseId)) {
+            return false;
+        }
+        int updated = courseSeatsRepository.tryReserve(courseId);
+        if (updated == 0 && !courseSeatsRepository.existsById(courseId)) {
+            courseSeatsRepository.insertIfMissing(courseId);
+            updated = courseSeatsRepository.tryReserve(courseId);
+        }
+        if (updated == 0) {
+            knownFull.put(courseId, System.currentTimeMillis() + fullCacheTtlMillis);
+            return false;
+        }
+        changeVersionService.markChanged("course_seats");
+        return true;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long courseId) {
+        courseSeatsRepository.release(courseId);
+        changeVersionService.markChanged("course_seats");
+        afterCommit(() -> knownFull.remove(courseId));
+    }
+
+    @Transactional
+    public void initialize(Long courseId, Integer capacity) {
+        courseSeatsRepository.save(new CourseSeats(courseId, capacity));
+    }
+
+    @Transactional
+    public void updateCapacity(Long courseId, Integer capacity) {
+        if (!courseSeatsRepository.existsById(courseId)) {
+            courseSeatsRepository.insertIfMissing(courseId);
+        }
+        if (courseSeatsRepository.updateCapacity(courseId, capacity) == 0) {
+            throw new RuntimeException("Capacity cannot be lower than the number of enrolled students");
+        }
+        changeVersionService.markChanged("course_seats");
+        afterCommit(() -> knownFull.remove(courseId));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, CourseSeats> getAllSeats() {
+        return courseSeatsRepository.findAll().stream()
+                .collect(Collectors.toMap(CourseSeats::getCourseId, Function.identity()));
+    }
+
+    @Transactional(readOnly = true)
+    public CourseSeats getSeats(Long courseId) {
+        return courseSeatsRepository.findById(courseId).orElse(null);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
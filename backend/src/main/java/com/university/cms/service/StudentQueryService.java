@@ -0,0 +1,239 @@
+package com.university.cms.service;
+
+import com.university.cms.config.ReportingQuery;
+import com.university.cms.entity.*;
+import com.university.cms.repository.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of the student workflows. Every method runs in a read-only transaction,
+ * so Hibernate loads entities without snapshots for dirty checking and never flushes.
+ * Writes go through StudentService.
+ */
+@Service
+@Transactional(readOnly = true)
+public class StudentQueryService {
+
+    @Autowired
+    private StudentRepository studentRepository;
+    
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+    
+    @Autowired
+    private CourseRepository courseRepository;
+    
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+    
+    @Autowired
+    private AssignmentSubmissionRepository assignmentSubmissionRepository;
+    
+    @Autowired
+    private LecturerQueryService lecturerQueryService;
+
+    @Autowired
+    private FileDownloadService fileDownloadService;
+
+    public Student getStudentByUser(User user) {
+        return studentRepository.findByUser(user)
+                .orElseThrow(() -> new RuntimeException("Student not found"));
+    }
+
+    public List<Map<String, Object>> getStudentEnrollments(Student student) {
+        return enrollmentRepository.findByStudentId(student.getId()).stream()
+                .map(enrollment -> {
+                    Map<String, Object> enrollmentData = new HashMap<>();
+                    Course course = enrollment.getCourse();
+                    
+                    enrollmentData.put("id", enrollment.getId());
+                    enrollmentData.put("enrollmentDate", enrollment.getEnrollmentDate());
+                    enrollmentData.put("status", enrollment.getStatus());
+                    enrollmentData.put("finalGrade", enrollment.getFinalGrade());
+                    
+                    // Course information
+                    enrollmentData.put("courseId", course.getId());
+                    enrollmentData.put("courseCode", course.getCourseCode());
+                    enrollmentData.put("title", course.getTitle());
+                    enrollmentData.put("credits", course.getCredits());
+                    enrollmentData.put("department", course.getDepartment());
+                    
+                    // Lecturer information
+                    if (course.getLecturer() != null) {
+                        enrollmentData.put("lecturerName", 
+                            course.getLecturer().getFirstName() + " " + course.getLecturer().getLastName());
+                    }
+                    
+                    return enrollmentData;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Get course by ID for student
+    public Map<String, Object> getCourseById(Student student, Long courseId) {
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        
+        // Check if student is enrolled
+        boolean isEnrolled = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId).isPresent();
+        if (!isEnrolled) {
+            throw new RuntimeException("You are not enrolled in this course");
+        }
+        
+        Map<String, Object> courseData = new HashMap<>();
+        courseData.put("id", course.getId());
+        courseData.put("courseCode", course.getCourseCode());
+        courseData.put("title", course.getTitle());
+        courseData.put("description", course.getDescription());
+        courseData.put("credits", course.getCredits());
+        courseData.put("department", course.getDepartment());
+        courseData.put("status", course.getStatus());
+        
+        if (course.getLecturer() != null) {
+            courseData.put("lecturerName", 
+                course.getLecturer().getFirstName() + " " + course.getLecturer().getLastName());
+        }
+        
+        return courseData;
+    }
+
+    // Get course materials for student
+    public List<Map<String, Object>> getCourseMaterials(Student student, Long courseId) {
+        // Check if student is enrolled
+        boolean isEnrolled = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId).isPresent();
+        if (!isEnrolled) {
+            throw new RuntimeException("You are not enrolled in this course");
+        }
+        
+        // Get materials from lecturer service
+        return lecturerQueryService.getCourseMaterials(courseId);
+    }
+
+    // Get enrolled students in a course (for student to see classmates)
+    public List<Map<String, Object>> getCourseStudents(Student student, Long courseId) {
+        // Check if student is enrolled
+        boolean isEnrolled = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId).isPresent();
+        if (!isEnrolled) {
+            throw new RuntimeException("You are not enrolled in this course");
+        }
+        
+        return enrollmentRepository.findRosterByCourseId(courseId).stream()
+                .filter(enrollment -> enrollment.getStatus() == Enrollment.Status.ENROLLED)
+                .map(enrollment -> {
+                    Student enrolledStudent = enrollment.getStudent();
+                    Map<String, Object> studentData = new HashMap<>();
+                    studentData.put("id", enrolledStudent.getId());
+                    studentData.put("studentId", enrolledStudent.getStudentId());
+                    studentData.put("firstName", enrolledStudent.getFirstName());
+                    studentData.put("lastName", enrolledStudent.getLastName());
+                    studentData.put("email", enrolledStudent.getUser().getEmail());
+                    return studentData;
+                })
+                .collect(Collectors.toList());
+    }
+
+    // Get student's grade for a specific course
+    public Map<String, Object> getStudentGrade(Student student, Long courseId) {
+        Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId)
+                .orElseThrow(() -> new RuntimeException("You are not enrolled in this course"));
+        
+        if (enrollment.getFinalGrade() == null) {
+            return null; // No grade assigned yet
+        }
+        
+        Map<String, Object> gradeData = new HashMap<>();
+        // Try to parse grade as number, otherwise keep as string
+        try {
+            gradeData.put("grade", Double.parseDouble(enrollment.getFinalGrade()));
+        } catch (NumberFormatException e) {
+            gradeData.put("grade", enrollment.getFinalGrade());
+        }
+        gradeData.put("feedback", enrollment.getFeedback());
+        gradeData.put("gradedDate", enrollment.getGradedDate());
+        return gradeData;
+    }
+
+    // Get student profile
+    public Map<String, Object> getStudentProfile(Student student) {
+        Map<String, Object> profileData = new HashMap<>();
+        
+        // Student information
+        profileData.put("id", student.getId());
+        profileData.put("studentId", student.getStudentId());
+        profileData.put("firstName", student.getFirstName());
+        profileData.put("lastName", student.getLastName());
+        profileData.put("email", student.getUser().getEmail());
+        profileData.put("phone", student.getPhone());
+        profileData.put("address", student.getAddress());
+        profileData.put("program", student.getProgram());
+        profileData.put("yearOfStudy", student.getYearOfStudy());
+        profileData.put("gpa", student.getGpa());
+        profileData.put("createdAt", student.getCreatedAt());
+        
+        return profileData;
+    }
+
+    @ReportingQuery
+    public long getTotalStudentCount() {
+        return studentRepository.count();
+    }
+
+    // Assignment-related methods for students
+    public List<Map<String, Object>> getCourseAssignments(Long courseId) {
+        return lecturerQueryService.getCourseAssignments(courseId);
+    }
+
+    public Long getCourseIdByAssignmentId(Long assignmentId) {
+        Assignment assignment = assignmentRepository.findById(assignmentId)
+                .orElseThrow(() -> new RuntimeException("Assignment not found"));
+        return assignment.getCourse().getId();
+    }
+
+    public ResponseEntity<Resource> downloadAssignmentFile(Long assignmentId) {
+        try {
+            Assignment assignment = assignmentRepository.findById(assignmentId)
+                    .orElseThrow(() -> new RuntimeException("Assignment not found"));
+            
+            return fileDownloadService.download(assignment.getFilePath(), assignment.getFileName());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download assignment file: " + e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMySubmission(Long assignmentId, Student student) {
+        Optional<AssignmentSubmission> submission = 
+                assignmentSubmissionRepository.findByAssignmentIdAndStudentId(assignmentId, student.getId());
+        
+        if (submission.isPresent()) {
+            AssignmentSubmission sub = submission.get();
+            Map<String, Object> submissionData = new HashMap<>();
+            submissionData.put("id", sub.getId());
+            submissionData.put("submissionText", sub.getSubmissionText());
+            submissionData.put("fileName", sub.getFileName());
+            submissionData.put("fileSize", sub.getFileSize());
+            submissionData.put("submittedAt", sub.getSubmittedAt().toString());
+            submissionData.put("grade", sub.getGrade());
+            submissionData.put("feedback", sub.getFeedback());
+            submissionData.put("gradedAt", sub.getGradedAt() != null ? sub.getGradedAt().toString() : null);
+            return submissionData;
+        } else {
+            return null; // No submission found
+        }
+    }
+
+    public boolean isStudentEnrolledInCourse(Student student, Long courseId) {
+        Optional<Enrollment> enrollment = enrollmentRepository
+                .findByStudentIdAndCourseId(student.getId(), courseId);
+        return enrollment.isPresent() && enrollment.get().getStatus() == Enrollment.Status.ENROLLED;
+    }
+}
@@ -3,10 +3,13 @@ package com.university.cms.service;
 import com.university.cms.entity.*;
 import com.university.cms.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -15,11 +18,13 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Write side of the student workflows. Reads live in StudentQueryService so they
+ * run in read-only transactions.
+ */
 @Service
 public class StudentService {
 
@@ -38,192 +43,92 @@ public class StudentService {
     @Autowired
     private AssignmentSubmissionRepository assignmentSubmissionRepository;
     
-    @Autowired
-    private LecturerService lecturerService;
-
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
     private UserRepository userRepository;
 
-    public Student getStudentByUser(User user) {
-        return studentRepository.findByUser(user)
-                .orElseThrow(() -> new RuntimeException("Student not found"));
-    }
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private ContentExtractionService contentExtractionService;
+
+    @Autowired
+    private SubmissionSimilarityService submissionSimilarityService;
+
+    @Autowired
+    private ExtractedTextStore extractedTextStore;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
 
     @Transactional
     public Map<String, Object> enrollInCourse(Student student, Long courseId) {
-        // Check if course exists
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
+        // Fail fast without touching the seat row while the course is known to be full,
+        // and don't let a direct enrollment overtake students already on the waitlist
+        if (seatReservationService.isKnownFull(courseId) || waitlistService.hasWaiting(courseId)) {
+            throw new CourseFullException("Course is full");
+        }
 
-        // Check if already enrolled
-        Optional<Enrollment> existingEnrollment = enrollmentRepository
-                .findByStudentIdAndCourseId(student.getId(), courseId);
-        if (existingEnrollment.isPresent()) {
+        // One statement creates the enrollment or reactivates a dropped one; the unique
+        // (student, course) key makes concurrent attempts for the same pair safe
+        LocalDateTime enrollmentDate = LocalDateTime.now();
+        Optional<Long> enrollmentId;
+        try {
+            enrollmentId = enrollmentRepository.enrollOrReactivate(student.getId(), courseId, enrollmentDate);
+        } catch (DataIntegrityViolationException e) {
+            throw new RuntimeException("Course not found");
+        }
+        if (enrollmentId.isEmpty()) {
             throw new RuntimeException("Already enrolled in this course");
         }
+        changeVersionService.markChanged("enrollments");
 
-        // Create enrollment
-        Enrollment enrollment = new Enrollment(student, course);
-        enrollment.setEnrollmentDate(LocalDateTime.now());
-        enrollment.setStatus(Enrollment.Status.ENROLLED);
-        
-        enrollmentRepository.save(enrollment);
+        // Taken last so the seat row is locked only until commit; a full course rolls back the insert
+        if (!seatReservationService.tryReserve(courseId)) {
+            throw new CourseFullException("Course is full");
+        }
+
+        // Served from the second-level cache
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new RuntimeException("Course not found"));
 
         Map<String, Object> result = new HashMap<>();
         result.put("message", "Successfully enrolled in course");
+        result.put("enrollmentId", enrollmentId.get());
         result.put("courseCode", course.getCourseCode());
         result.put("courseTitle", course.getTitle());
-        result.put("enrollmentDate", enrollment.getEnrollmentDate());
+        result.put("enrollmentDate", enrollmentDate);
         return result;
     }
 
-    public List<Map<String, Object>> getStudentEnrollments(Student student) {
-        return enrollmentRepository.findByStudentId(student.getId()).stream()
-                .map(enrollment -> {
-                    Map<String, Object> enrollmentData = new HashMap<>();
-                    Course course = enrollment.getCourse();
-                    
-                    enrollmentData.put("id", enrollment.getId());
-                    enrollmentData.put("enrollmentDate", enrollment.getEnrollmentDate());
-                    enrollmentData.put("status", enrollment.getStatus());
-                    enrollmentData.put("finalGrade", enrollment.getFinalGrade());
-                    
-                    // Course information
-                    enrollmentData.put("courseId", course.getId());
-                    enrollmentData.put("courseCode", course.getCourseCode());
-                    enrollmentData.put("title", course.getTitle());
-                    enrollmentData.put("credits", course.getCredits());
-                    enrollmentData.put("department", course.getDepartment());
-                    
-                    // Lecturer information
-                    if (course.getLecturer() != null) {
-                        enrollmentData.put("lecturerName", 
-                            course.getLecturer().getFirstName() + " " + course.getLecturer().getLastName());
-                    }
-                    
-                    return enrollmentData;
-                })
-                .collect(Collectors.toList());
-    }
-
     @Transactional
     public void dropCourse(Student student, Long courseId) {
-        Enrollment enrollment = enrollmentRepository
-                .findByStudentIdAndCourseId(student.getId(), courseId)
-                .orElseThrow(() -> new RuntimeException("Enrollment not found"));
-        
-        enrollment.setStatus(Enrollment.Status.DROPPED);
-        enrollmentRepository.save(enrollment);
-    }
-
-    // Get course by ID for student
-    public Map<String, Object> getCourseById(Student student, Long courseId) {
-        Course course = courseRepository.findById(courseId)
-                .orElseThrow(() -> new RuntimeException("Course not found"));
-        
-        // Check if student is enrolled
-        boolean isEnrolled = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId).isPresent();
-        if (!isEnrolled) {
-            throw new RuntimeException("You are not enrolled in this course");
-        }
-        
-        Map<String, Object> courseData = new HashMap<>();
-        courseData.put("id", course.getId());
-        courseData.put("courseCode", course.getCourseCode());
-        courseData.put("title", course.getTitle());
-        courseData.put("description", course.getDescription());
-        courseData.put("credits", course.getCredits());
-        courseData.put("department", course.getDepartment());
-        courseData.put("status", course.getStatus());
-        
-        if (course.getLecturer() != null) {
-            courseData.put("lecturerName", 
-                course.getLecturer().getFirstName() + " " + course.getLecturer().getLastName());
-        }
-        
-        return courseData;
-    }
-
-    // Get course materials for student
-    public List<Map<String, Object>> getCourseMaterials(Student student, Long courseId) {
-        // Check if student is enrolled
-        boolean isEnrolled = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId).isPresent();
-        if (!isEnrolled) {
-            throw new RuntimeException("You are not enrolled in this course");
-        }
-        
-        // Get materials from lecturer service
-        return lecturerService.getCourseMaterials(courseId);
-    }
-
-    // Get enrolled students in a course (for student to see classmates)
-    public List<Map<String, Object>> getCourseStudents(Student student, Long courseId) {
-        // Check if student is enrolled
-        boolean isEnrolled = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId).isPresent();
-        if (!isEnrolled) {
-            throw new RuntimeException("You are not enrolled in this course");
-        }
-        
-        return enrollmentRepository.findByCourseId(courseId).stream()
-                .filter(enrollment -> enrollment.getStatus() == Enrollment.Status.ENROLLED)
-                .map(enrollment -> {
-                    Student enrolledStudent = enrollment.getStudent();
-                    Map<String, Object> studentData = new HashMap<>();
-                    studentData.put("id", enrolledStudent.getId());
-                    studentData.put("studentId", enrolledStudent.getStudentId());
-                    studentData.put("firstName", enrolledStudent.getFirstName());
-                    studentData.put("lastName", enrolledStudent.getLastName());
-                    studentData.put("email", enrolledStudent.getUser().getEmail());
-                    return studentData;
-                })
-                .collect(Collectors.toList());
-    }
-
-    // Get student's grade for a specific course
-    public Map<String, Object> getStudentGrade(Student student, Long courseId) {
-        Enrollment enrollment = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId)
-                .orElseThrow(() -> new RuntimeException("You are not enrolled in this course"));
-        
-        if (enrollment.getFinalGrade() == null) {
-            return null; // No grade assigned yet
-        }
-        
-        Map<String, Object> gradeData = new HashMap<>();
-        // Try to parse grade as number, otherwise keep as string
-        try {
-            gradeData.put("grade", Double.parseDouble(enrollment.getFinalGrade()));
-        } catch (NumberFormatException e) {
-            gradeData.put("grade", enrollment.getFinalGrade());
+        if (enrollmentRepository.dropIfEnrolled(student.getId(), courseId) == 0) {
+            // Nothing active to drop; only now is it worth finding out why
+            Enrollment enrollment = enrollmentRepository
+                    .findByStudentIdAndCourseId(student.getId(), courseId)
+                    .orElseThrow(() -> new RuntimeException("Enrollment not found"));
+            if (enrollment.getStatus() == Enrollment.Status.COMPLETED) {
+                throw new RuntimeException("A completed course cannot be dropped");
+            }
+            return;
         }
-        gradeData.put("feedback", enrollment.getFeedback());
-        gradeData.put("gradedDate", enrollment.getGradedDate());
-        return gradeData;
-    }
-
-    // Get student profile
-    public Map<String, Object> getStudentProfile(Student student) {
-        Map<String, Object> profileData = new HashMap<>();
-        
-        // Student information
-        profileData.put("id", student.getId());
-        profileData.put("studentId", student.getStudentId());
-        profileData.put("firstName", student.getFirstName());
-        profileData.put("lastName", student.getLastName());
-        profileData.put("email", student.getUser().getEmail());
-        profileData.put("phone", student.getPhone());
-        profileData.put("address", student.getAddress());
-        profileData.put("program", student.getProgram());
-        profileData.put("yearOfStudy", student.getYearOfStudy());
-        profileData.put("gpa", student.getGpa());
-        profileData.put("createdAt", student.getCreatedAt());
-        
-        return profileData;
+        changeVersionService.markChanged("enrollments");
+        seatReservationService.release(courseId);
+        waitlistService.promoteAfterCommit(courseId);
     }
 
     // Update student profile
+    @Transactional
     public void updateStudentProfile(Student student, Map<String, Object> profileData) {
         // Update student fields
         if (profileData.containsKey("firstName") && profileData.get("firstName") != null) {
@@ -270,47 +175,6 @@ public class StudentService {
         userRepository.save(user);
     }
     
-    public long getTotalStudentCount() {
-        return studentRepository.count();
-    }
-    
-    // Assignment-related methods for students
-    public List<Assignment> getCourseAssignments(Long courseId) {
-        return assignmentRepository.findByCourseId(courseId);
-    }
-    
-    public Long getCourseIdByAssignmentId(Long assignmentId) {
-        Assignment assignment = assignmentRepository.findById(assignmentId)
-                .orElseThrow(() -> new RuntimeException("Assignment not found"));
-        return assignment.getCourse().getId();
-    }
-    
-    public ResponseEntity<byte[]> downloadAssignmentFile(Long assignmentId) {
-        try {
-            Assignment assignment = assignmentRepository.findById(assignmentId)
-                    .orElseThrow(() -> new RuntimeException("Assignment not found"));
-            
-            if (assignment.getFilePath() == null) {
-                throw new RuntimeException("No file associated with this assignment");
-            }
-            
-            Path filePath = Paths.get(assignment.getFilePath());
-            if (!Files.exists(filePath)) {
-                throw new RuntimeException("File not found on server");
-            }
-            
-            byte[] fileContent = Files.readAllBytes(filePath);
-            
-            return ResponseEntity.ok()
-                    .header("Content-Disposition", "attachment; filename=\"" + assignment.getFileName() + "\"")
-                    .header("Content-Type", "application/octet-stream")
-                    .body(fileContent);
-                    
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to download assignment file: " + e.getMessage());
-        }
-    }
-    
     // Assignment submission methods
     @Transactional
     public void submitAssignment(Long assignmentId, Student student, String submissionText, MultipartFile file) {
@@ -323,18 +187,15 @@ public class StudentService {
                     assignmentSubmissionRepository.findByAssignmentIdAndStudentId(assignmentId, student.getId());
             
             AssignmentSubmission submission;
+            String replacedFilePath = null;
             if (existingSubmission.isPresent()) {
                 // Update existing submission
                 submission = existingSubmission.get();
                 submission.setSubmissionText(submissionText);
                 
-                // Delete old file if exists and new file is provided
-                if (file != null && !file.isEmpty() && submission.getFilePath() != null) {
-                    try {
-                        Files.deleteIfExists(Paths.get(submission.getFilePath()));
-                    } catch (IOException e) {
-                        System.err.println("Failed to delete old submission file: " + e.getMessage());
-                    }
+                // The old file is deleted once the new one is committed
+                if (file != null && !file.isEmpty()) {
+                    replacedFilePath = submission.getFilePath();
                 }
             } else {
                 // Create new submission
@@ -366,38 +227,59 @@ public class StudentService {
                 submission.setFileName(fileName);
                 submission.setFilePath(filePath.toString());
                 submission.setFileSize(file.getSize());
+                cleanUpFilesOnCompletion(replacedFilePath, filePath.toString());
             }
             
             assignmentSubmissionRepository.save(submission);
+            searchService.indexSubmission(submission);
+
+            // Re-extract when the file changes; the old text no longer applies
+            if (file != null && !file.isEmpty()) {
+                extractedTextStore.delete(SearchService.TYPE_SUBMISSION, submission.getId());
+                contentExtractionService.extractAfterCommit(SearchService.TYPE_SUBMISSION, submission.getId(),
+                        submission.getFilePath());
+            }
+            submissionSimilarityService.updateSignature(submission.getId(), assignmentId, submissionText,
+                    file == null || file.isEmpty());
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // A concurrent submission of the same assignment won; the controller reports 409
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to submit assignment: " + e.getMessage());
         }
     }
-    
-    public Map<String, Object> getMySubmission(Long assignmentId, Student student) {
-        Optional<AssignmentSubmission> submission = 
-                assignmentSubmissionRepository.findByAssignmentIdAndStudentId(assignmentId, student.getId());
-        
-        if (submission.isPresent()) {
-            AssignmentSubmission sub = submission.get();
-            Map<String, Object> submissionData = new HashMap<>();
-            submissionData.put("id", sub.getId());
-            submissionData.put("submissionText", sub.getSubmissionText());
-            submissionData.put("fileName", sub.getFileName());
-            submissionData.put("fileSize", sub.getFileSize());
-            submissionData.put("submittedAt", sub.getSubmittedAt().toString());
-            submissionData.put("grade", sub.getGrade());
-            submissionData.put("feedback", sub.getFeedback());
-            submissionData.put("gradedAt", sub.getGradedAt() != null ? sub.getGradedAt().toString() : null);
-            return submissionData;
-        } else {
-            return null; // No submission found
-        }
+
+    // Current submission, returned with a 409. Read-write, so it comes from the primary.
+    @Transactional
+    public Map<String, Object> getSubmissionState(Long assignmentId, Student student) {
+        AssignmentSubmission submission = assignmentSubmissionRepository
+                .findByAssignmentIdAndStudentId(assignmentId, student.getId())
+                .orElseThrow(() -> new RuntimeException("Submission not found"));
+        Map<String, Object> state = new HashMap<>();
+        state.put("id", submission.getId());
+        state.put("submissionText", submission.getSubmissionText());
+        state.put("fileName", submission.getFileName());
+        state.put("submittedAt", submission.getSubmittedAt());
+        state.put("version", submission.getVersion());
+        return state;
     }
 
-    public boolean isStudentEnrolledInCourse(Student student, Long courseId) {
-        Optional<Enrollment> enrollment = enrollmentRepository
-                .findByStudentIdAndCourseId(student.getId(), courseId);
-        return enrollment.isPresent() && enrollment.get().getStatus() == Enrollment.Status.ENROLLED;
+    // Keeps disk and database in step: a committed resubmission removes the file it
+    // replaced, a rolled back one (e.g. lost a version conflict) removes its own upload
+    private void cleanUpFilesOnCompletion(String replacedFilePath, String newFilePath) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                String obsolete = status == STATUS_COMMITTED ? replacedFilePath : newFilePath;
+                if (obsolete == null) {
+                    return;
+                }
+                try {
+                    Files.deleteIfExists(Paths.get(obsolete));
+                } catch (IOException e) {
+                    System.err.println("Failed to delete submission file: " + e.getMessage());
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,174 @@
+package com.university.cms.service;
+
+import com.university.cms.repository.AssignmentSubmissionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP bundles of submission files, written straight to the response while the
+ * files are read, so memory use doesn't depend on the number or size of files.
+ *
+ * Formats that are already compressed are STORED: deflating them again costs CPU
+ * and saves nothing. A STORED entry needs its CRC and size before its data, so
+ * those files are read twice; the second read usually comes from the page cache.
+ */
+@Service
+public class SubmissionArchiveService {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "jar",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub",
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "mp3", "mp4", "m4a", "mov", "avi", "mkv", "webm");
+
+    @Autowired
+    private AssignmentSubmissionRepository assignmentSubmissionRepository;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    public record ArchiveEntry(String name, String filePath) {}
+
+    // <student id>/<file name>
+    @Transactional(readOnly = true)
+    public List<ArchiveEntry> entriesForAssignment(Long assignmentId) {
+        List<ArchiveEntry> entries = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        for (Object[] row : assignmentSubmissionRepository.findArchiveFilesByAssignmentId(assignmentId)) {
+            String name = segment((String) row[0]) + "/" + segment((String) row[3]);
+            entries.add(new ArchiveEntry(unique(name, used), (String) row[4]));
+        }
+        return entries;
+    }
+
+    // <assignment id>-<assignment title>/<student id>/<file name>
+    @Transactional(readOnly = true)
+    public List<ArchiveEntry> entriesForCourse(Long courseId) {
+        List<ArchiveEntry> entries = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        for (Object[] row : assignmentSubmissionRepository.findArchiveFilesByCourseId(courseId)) {
+            String name = segment(row[1] + "-" + row[2]) + "/" + segment((String) row[0])
+                    + "/" + segment((String) row[3]);
+            entries.add(new ArchiveEntry(unique(name, used), (String) row[4]));
+        }
+        return entries;
+    }
+
+    /**
+     * Writes the archive to the stream. Files missing from disk are listed in a
+     * MISSING_FILES.txt entry instead of failing the whole download.
+     */
+    public void write(List<ArchiveEntry> entries, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        long bytes = 0;
+        int files = 0;
+        List<String> missing = new ArrayList<>();
+        byte[] buffer = new byte[BUFFER_BYTES];
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_BYTES));
+        zip.setLevel(Deflater.BEST_SPEED);
+        for (ArchiveEntry entry : entries) {
+            Path path = entry.filePath() != null ? Paths.get(entry.filePath()) : null;
+            if (path == null || !Files.isRegularFile(path)) {
+                missing.add(entry.name());
+                continue;
+            }
+
+            ZipEntry zipEntry = new ZipEntry(entry.name());
+            zipEntry.setLastModifiedTime(Files.getLastModifiedTime(path));
+            if (isCompressed(entry.name())) {
+                long size = Files.size(path);
+                zipEntry.setMethod(ZipEntry.STORED);
+                zipEntry.setSize(size);
+                zipEntry.setCompressedSize(size);
+                zipEntry.setCrc(crc32(path, buffer));
+            }
+            zip.putNextEntry(zipEntry);
+            try (InputStream in = Files.newInputStream(path)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                    bytes += read;
+                }
+            }
+            zip.closeEntry();
+            files++;
+        }
+        if (!missing.isEmpty()) {
+            zip.putNextEntry(new ZipEntry("MISSING_FILES.txt"));
+            zip.write(("Not found on the server:\n" + String.join("\n", missing) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+
+        long elapsedNanos = System.nanoTime() - started;
+        long totalBytes = bytes;
+        meterRegistry.ifAvailable(registry -> {
+            registry.timer("cms.submissions.archive").record(elapsedNanos, TimeUnit.NANOSECONDS);
+            registry.counter("cms.submissions.archive.bytes").increment(totalBytes);
+        });
+        double seconds = Math.max(elapsedNanos / 1e9, 0.001);
+        System.out.printf("Streamed submission archive: %d files, %.1f MB in %.2f s (%.1f MB/s), %d missing%n",
+                files, totalBytes / 1048576.0, seconds, totalBytes / 1048576.0 / seconds, missing.size());
+    }
+
+    private static long crc32(Path path, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    // One path segment: no separators or control characters from user-supplied names
+    private static String segment(String value) {
+        String cleaned = value == null ? "" : value.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+        return cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..") ? "_" : cleaned;
+    }
+
+    // Cleaning can map different names onto the same path; later ones get a numeric suffix
+    private static String unique(String name, Set<String> used) {
+        String candidate = name;
+        for (int i = 2; !used.add(candidate); i++) {
+            int dot = name.lastIndexOf('.');
+            candidate = dot > name.lastIndexOf('/')
+                    ? name.substring(0, dot) + " (" + i + ")" + name.substring(dot)
+                    : name + " (" + i + ")";
+        }
+        return candidate;
+    }
+}
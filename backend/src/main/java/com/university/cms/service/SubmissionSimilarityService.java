@@ -0,0 +1,234 @@
+package com.university.cms.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.university.cms.repository.SubmissionSignatureRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Near-duplicate detection between the submissions of an assignment.
+ *
+ * Each submission's text, plus the text extracted from its file, is reduced to a
+ * MinHash signature when it is submitted, and again once extraction of a new file
+ * finishes. A report loads the assignment's signatures into an LSH index and
+ * compares only the pairs that share a band, so a class of thousands costs
+ * roughly linear time instead of comparing every pair. Indexes are cached per
+ * assignment and rebuilt when any of its signatures has changed.
+ */
+@Service
+public class SubmissionSimilarityService {
+
+    @Value("${app.similarity.bands:32}")
+    private int bands;
+
+    @Value("${app.similarity.rows:4}")
+    private int rows;
+
+    @Value("${app.similarity.threshold:0.5}")
+    private double defaultThreshold;
+
+    @Value("${app.similarity.min-shingles:20}")
+    private int minShingles;
+
+    @Value("${app.similarity.max-bucket-size:500}")
+    private int maxBucketSize;
+
+    @Value("${app.similarity.max-pairs:200}")
+    private int maxPairs;
+
+    @Value("${app.similarity.cached-assignments:50}")
+    private long cachedAssignments;
+
+    @Value("${app.similarity.backfill-batch-size:200}")
+    private int backfillBatchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private SubmissionSignatureRepository submissionSignatureRepository;
+
+    @Autowired
+    private ExtractedTextStore extractedTextStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Cache<Long, CachedIndex> indexes;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        indexes = Caffeine.newBuilder()
+                .maximumSize(cachedAssignments)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    /**
+     * Signs a submission within the caller's transaction. Extracted file text is left
+     * out when the file has just been replaced: its extraction is still pending and
+     * will sign the submission again when it finishes.
+     */
+    public void updateSignature(Long submissionId, Long assignmentId, String submissionText,
+                                boolean includeExtractedText) {
+        String text = submissionText != null ? submissionText : "";
+        if (includeExtractedText) {
+            String extracted = extractedTextStore.read(SearchService.TYPE_SUBMISSION, submissionId);
+            if (extracted != null && !extracted.isEmpty()) {
+                text = text + "\n" + extracted;
+            }
+        }
+        long[] shingles = MinHash.shingles(text);
+        byte[] signature = shingles.length > 0 ? MinHash.toBytes(MinHash.signature(shingles)) : null;
+        submissionSignatureRepository.upsert(submissionId, assignmentId, signature, shingles.length,
+                LocalDateTime.now());
+    }
+
+    /**
+     * Re-signs a stored submission from its current text and extracted file text.
+     */
+    public void refresh(Long submissionId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Object[]> found = entityManager.createQuery(
+                            "SELECT s.assignment.id, s.submissionText FROM AssignmentSubmission s WHERE s.id = :id",
+                            Object[].class)
+                    .setParameter("id", submissionId)
+                    .getResultList();
+            // Deleted in the meantime
+            if (!found.isEmpty()) {
+                updateSignature(submissionId, (Long) found.get(0)[0], (String) found.get(0)[1], true);
+            }
+        });
+    }
+
+    /**
+     * Signs submissions made before signatures existed, a batch at a time.
+     */
+    @Scheduled(initialDelayString = "${app.similarity.backfill-initial-delay:60000}",
+            fixedDelayString = "${app.similarity.backfill-interval:300000}")
+    public void signPending() {
+        List<Long> unsigned = transactionTemplate.execute(status ->
+                submissionSignatureRepository.findUnsignedSubmissionIds(PageRequest.of(0, backfillBatchSize)));
+        for (Long submissionId : unsigned) {
+            try {
+                refresh(submissionId);
+            } catch (RuntimeException e) {
+                System.err.println("Failed to sign submission " + submissionId + ": " + e.getMessage());
+            }
+        }
+        if (!unsigned.isEmpty()) {
+            System.out.println("Signed " + unsigned.size() + " earlier submissions for similarity checks");
+        }
+    }
+
+    /**
+     * Pairs of submissions whose estimated similarity is at least the threshold,
+     * most similar first, with the students involved.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> findSimilarPairs(Long assignmentId, Double threshold) {
+        double minimum = threshold != null ? threshold : defaultThreshold;
+        if (minimum <= 0 || minimum > 1) {
+            throw new RuntimeException("Threshold must be between 0 and 1");
+        }
+        long started = System.nanoTime();
+        LshIndex index = index(assignmentId);
+        LshIndex.Result result = index.similarPairs(minimum, maxBucketSize);
+        List<LshIndex.Pair> pairs = result.pairs().size() > maxPairs
+                ? result.pairs().subList(0, maxPairs)
+                : result.pairs();
+
+        Map<Long, Map<String, Object>> submissions = describeSubmissions(pairs);
+        List<Map<String, Object>> pairData = new ArrayList<>();
+        for (LshIndex.Pair pair : pairs) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("first", submissions.get(pair.first()));
+            data.put("second", submissions.get(pair.second()));
+            data.put("similarity", Math.round(pair.similarity() * 1000) / 1000.0);
+            pairData.add(data);
+        }
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        System.out.println("Similarity check for assignment " + assignmentId + ": " + index.size()
+                + " submissions, " + result.candidates() + " candidate pairs, " + result.pairs().size()
+                + " above " + minimum + " in " + elapsedMillis + " ms");
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("assignmentId", assignmentId);
+        report.put("threshold", minimum);
+        report.put("submissionsCompared", index.size());
+        report.put("candidatePairs", result.candidates());
+        report.put("totalPairs", result.pairs().size());
+        // Shared boilerplate; a non-zero count means some pairs may not be listed
+        report.put("skippedBuckets", result.skippedBuckets());
+        report.put("pairs", pairData);
+        return report;
+    }
+
+    private LshIndex index(Long assignmentId) {
+        Object[] stampRow = submissionSignatureRepository.findIndexStamp(assignmentId).get(0);
+        String stamp = stampRow[0] + "/" + stampRow[1] + "/" + stampRow[2];
+        CachedIndex cached = indexes.getIfPresent(assignmentId);
+        if (cached != null && cached.stamp().equals(stamp)) {
+            return cached.index();
+        }
+
+        LshIndex index = new LshIndex(bands, rows);
+        for (Object[] row : submissionSignatureRepository.findComparable(assignmentId, minShingles)) {
+            index.add((Long) row[0], MinHash.fromBytes((byte[]) row[1]));
+        }
+        indexes.put(assignmentId, new CachedIndex(stamp, index));
+        return index;
+    }
+
+    private Map<Long, Map<String, Object>> describeSubmissions(List<LshIndex.Pair> pairs) {
+        Set<Long> ids = new HashSet<>();
+        for (LshIndex.Pair pair : pairs) {
+            ids.add(pair.first());
+            ids.add(pair.second());
+        }
+        Map<Long, Map<String, Object>> submissions = new HashMap<>();
+        if (ids.isEmpty()) {
+            return submissions;
+        }
+        List<Object[]> results = entityManager.createQuery(
+                        "SELECT s.id, st.studentId, st.firstName, st.lastName, s.fileName, s.submittedAt " +
+                        "FROM AssignmentSubmission s JOIN s.student st WHERE s.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Object[] row : results) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("submissionId", row[0]);
+            data.put("studentId", row[1]);
+            data.put("studentName", row[2] + " " + row[3]);
+            data.put("fileName", row[4]);
+            data.put("submittedAt", row[5]);
+            submissions.put((Long) row[0], data);
+        }
+        return submissions;
+    }
+
+    private record CachedIndex(String stamp, LshIndex index) {}
+}
@@ -0,0 +1,430 @@
+package com.university.cms.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the upload directories and the file_path columns in agreement.
+ *
+ * File deletes elsewhere are best-effort and course deletion leaves files behind,
+ * so the job periodically walks the directories holding original uploads (on a
+ * small fork-join pool, with a shared budget of file-system calls per second),
+ * streams every stored path from the reporting database, and diffs the two:
+ * files no row points to are moved to a dated quarantine directory, and rows
+ * whose file is gone are reported. Quarantined files are deleted once the
+ * retention period has passed, which leaves time to restore a wrong call.
+ *
+ * Files younger than the minimum age are never touched: their upload may not have
+ * committed yet. Chunked-upload part files and extracted text live in other
+ * directories and are not walked; preview sets whose content hash no material
+ * uses any more are deleted, since they can be regenerated.
+ */
+@Service
+public class UploadReconciliationService {
+
+    @Value("${app.reconciliation.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.reconciliation.roots:uploads/materials,uploads/assignments,uploads/submissions}")
+    private String[] roots;
+
+    @Value("${app.previews.dir:uploads/previews}")
+    private String previewDir;
+
+    @Value("${app.reconciliation.quarantine-dir:uploads/quarantine}")
+    private String quarantineDir;
+
+    @Value("${app.reconciliation.min-age:86400000}")
+    private long minAgeMillis;
+
+    @Value("${app.reconciliation.quarantine-retention-days:30}")
+    private int retentionDays;
+
+    @Value("${app.reconciliation.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.max-files-per-second:1000}")
+    private long maxFilesPerSecond;
+
+    @Value("${app.reconciliation.dry-run:false}")
+    private boolean dryRunByDefault;
+
+    @Value("${app.reconciliation.report-limit:100}")
+    private int reportLimit;
+
+    @Autowired
+    private UploadReferenceScanner uploadReferenceScanner;
+
+    @Autowired
+    private MaterialPreviewStore materialPreviewStore;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Map<String, Object> lastReport;
+    private final AtomicLong lastOrphans = new AtomicLong();
+    private final AtomicLong lastMissing = new AtomicLong();
+
+    // Shared file-system budget: the time at which the next call may be made
+    private final Object throttleLock = new Object();
+    private long nextCallNanos = System.nanoTime();
+
+    @PostConstruct
+    public void init() {
+        meterRegistry.ifAvailable(registry -> {
+            registry.gauge("cms.uploads.orphans", lastOrphans);
+            registry.gauge("cms.uploads.missing", lastMissing);
+        });
+    }
+
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile(dryRunByDefault);
+        } catch (RuntimeException e) {
+            System.err.println("Upload reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a run on a background thread; the outcome becomes the last report.
+     */
+    public void startInBackground(boolean dryRun) {
+        if (running.get()) {
+            throw new RuntimeException("A reconciliation run is already in progress");
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                reconcile(dryRun);
+            } catch (RuntimeException e) {
+                System.err.println("Upload reconciliation failed: " + e.getMessage());
+            }
+        }, "upload-reconciliation");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("running", running.get());
+        status.put("lastReport", lastReport);
+        return status;
+    }
+
+    public Map<String, Object> reconcile(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A reconciliation run is already in progress");
+        }
+        try {
+            long started = System.nanoTime();
+            Run run = new Run(dryRun, Instant.now().minusMillis(minAgeMillis));
+
+            walkRoots(run);
+            long filesScanned = run.onDisk.size();
+            diffReferences(run);
+            quarantineOrphans(run);
+            removeUnusedPreviews(run);
+            purgeQuarantine(run);
+
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("finishedAt", LocalDateTime.now().toString());
+            report.put("durationMs", (System.nanoTime() - started) / 1_000_000);
+            report.put("dryRun", dryRun);
+            report.put("filesScanned", filesScanned);
+            report.put("fileReferences", run.references);
+            report.put("orphansFound", run.orphansFound);
+            report.put("orphansQuarantined", run.orphansQuarantined);
+            report.put("orphans", run.orphanSamples);
+            report.put("missingFiles", run.missingFound);
+            report.put("missing", run.missingSamples);
+            report.put("previewSetsRemoved", run.previewSetsRemoved);
+            report.put("quarantineDaysPurged", run.quarantineDaysPurged);
+            report.put("errors", run.errors);
+            lastReport = report;
+            lastOrphans.set(run.orphansFound);
+            lastMissing.set(run.missingFound);
+
+            System.out.println("Upload reconciliation" + (dryRun ? " (dry run)" : "") + ": " + filesScanned
+                    + " files, " + run.references + " references, " + run.orphansFound + " orphans ("
+                    + run.orphansQuarantined + " quarantined), " + run.missingFound + " missing files, "
+                    + run.previewSetsRemoved + " preview sets removed in " + report.get("durationMs") + " ms");
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    // Files.walk's stream is split across the pool's workers, which share the call budget
+    private void walkRoots(Run run) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("upload-reconciliation-walker-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+        try {
+            for (String root : roots) {
+                Path rootPath = Paths.get(root).toAbsolutePath().normalize();
+                if (!Files.isDirectory(rootPath)) {
+                    continue;
+                }
+                try {
+                    pool.submit(() -> walk(rootPath, run.onDisk)).get();
+                } catch (ExecutionException e) {
+                    run.error("Walk of " + root + " failed: " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Upload reconciliation interrupted");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void walk(Path root, Map<Path, DiskFile> onDisk) {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.parallel().forEach(path -> {
+                throttle();
+                try {
+                    BasicFileAttributes attributes =
+                            Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    if (attributes.isRegularFile()) {
+                        onDisk.put(path.normalize(), new DiskFile(root, attributes.lastModifiedTime()));
+                    }
+                } catch (IOException e) {
+                    // Deleted while walking
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    // Matched files are removed from onDisk, leaving the orphans. Existence of unmatched
+    // references is checked after the scan, so no file-system calls hold the connection.
+    private void diffReferences(Run run) {
+        Set<Path> matched = new HashSet<>();
+        List<UploadReferenceScanner.FileReference> unmatched = new ArrayList<>();
+        uploadReferenceScanner.scanFilePaths(reference -> {
+            run.references++;
+            Path path = Paths.get(reference.filePath()).toAbsolutePath().normalize();
+            if (run.onDisk.remove(path) != null) {
+                matched.add(path);
+            } else if (!matched.contains(path)) {
+                unmatched.add(reference);
+            }
+        });
+
+        for (UploadReferenceScanner.FileReference reference : unmatched) {
+            throttle();
+            // Outside the walked roots, or written after the walk
+            if (Files.exists(Paths.get(reference.filePath()))) {
+                continue;
+            }
+            run.missingFound++;
+            if (run.missingSamples.size() < reportLimit) {
+                Map<String, Object> missing = new HashMap<>();
+                missing.put("table", reference.table());
+                missing.put("id", reference.id());
+                missing.put("filePath", reference.filePath());
+                run.missingSamples.add(missing);
+            }
+        }
+    }
+
+    private void quarantineOrphans(Run run) {
+        Path quarantineDay = Paths.get(quarantineDir, LocalDate.now().toString());
+        List<Path> orphans = run.onDisk.keySet().stream().sorted().toList();
+        for (Path orphan : orphans) {
+            DiskFile file = run.onDisk.get(orphan);
+            if (file.lastModified().toInstant().isAfter(run.cutoff)) {
+                continue;
+            }
+            run.orphansFound++;
+            if (run.orphanSamples.size() < reportLimit) {
+                run.orphanSamples.add(orphan.toString());
+            }
+            if (run.dryRun) {
+                continue;
+            }
+            throttle();
+            // materials/<name> under the day's directory, so a file can be moved back by hand
+            Path target = quarantineDay.resolve(file.root().getFileName()).resolve(file.root().relativize(orphan));
+            try {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(orphan, target);
+                } catch (FileAlreadyExistsException e) {
+                    Files.move(orphan, target.resolveSibling(target.getFileName() + "." + System.currentTimeMillis()));
+                }
+                run.orphansQuarantined++;
+                System.out.println("Quarantined orphaned upload " + orphan + " -> " + target);
+            } catch (NoSuchFileException e) {
+                // Removed meanwhile, e.g. by another node's run
+            } catch (IOException e) {
+                run.error("Failed to quarantine " + orphan + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Preview sets are keyed by content hash under <dir>/<xx>/<hash>; .work-* are abandoned builds
+    private void removeUnusedPreviews(Run run) {
+        Path root = Paths.get(previewDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Set<String> hashes = new HashSet<>();
+        uploadReferenceScanner.scanContentHashes(hashes::add);
+
+        try (DirectoryStream<Path> fanOut = Files.newDirectoryStream(root)) {
+            for (Path dir : fanOut) {
+                String name = dir.getFileName().toString();
+                if (name.startsWith(".work-")) {
+                    if (isOlderThanCutoff(dir, run) && !run.dryRun) {
+                        deleteRecursively(dir);
+                    }
+                    continue;
+                }
+                if (!Files.isDirectory(dir)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> sets = Files.newDirectoryStream(dir)) {
+                    for (Path set : sets) {
+                        throttle();
+                        String hash = set.getFileName().toString();
+                        if (hashes.contains(hash) || !isOlderThanCutoff(set, run)) {
+                            continue;
+                        }
+                        if (!run.dryRun) {
+                            materialPreviewStore.delete(hash);
+                        }
+                        run.previewSetsRemoved++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            run.error("Failed to check previews: " + e.getMessage());
+        }
+    }
+
+    private void purgeQuarantine(Run run) {
+        Path root = Paths.get(quarantineDir);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        LocalDate oldestKept = LocalDate.now().minusDays(retentionDays);
+        try (DirectoryStream<Path> days = Files.newDirectoryStream(root)) {
+            for (Path day : days) {
+                try {
+                    if (!LocalDate.parse(day.getFileName().toString()).isBefore(oldestKept)) {
+                        continue;
+                    }
+                } catch (DateTimeParseException e) {
+                    // Not one of ours
+                    continue;
+                }
+                if (!run.dryRun) {
+                    deleteRecursively(day);
+                }
+                run.quarantineDaysPurged++;
+            }
+        } catch (IOException e) {
+            run.error("Failed to purge quarantine: " + e.getMessage());
+        }
+    }
+
+    private void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private boolean isOlderThanCutoff(Path path, Run run) throws IOException {
+        return Files.getLastModifiedTime(path).toInstant().isBefore(run.cutoff);
+    }
+
+    private void throttle() {
+        long waitNanos;
+        synchronized (throttleLock) {
+            long now = System.nanoTime();
+            long start = Math.max(nextCallNanos, now);
+            nextCallNanos = start + 1_000_000_000L / maxFilesPerSecond;
+            waitNanos = start - now;
+        }
+        if (waitNanos > 0) {
+            LockSupport.parkNanos(waitNanos);
+        }
+    }
+
+    private record DiskFile(Path root, FileTime lastModified) {}
+
+    // State of one run
+    private static class Run {
+        final boolean dryRun;
+        final Instant cutoff;
+        final Map<Path, DiskFile> onDisk = new ConcurrentHashMap<>();
+        long references;
+        long orphansFound;
+        long orphansQuarantined;
+        long missingFound;
+        long previewSetsRemoved;
+        long quarantineDaysPurged;
+        final List<String> orphanSamples = new ArrayList<>();
+        final List<Map<String, Object>> missingSamples = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+
+        Run(boolean dryRun, Instant cutoff) {
+            this.dryRun = dryRun;
+            this.cutoff = cutoff;
+        }
+
+        void error(String message) {
+            System.err.println(message);
+            errors.add(message);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.university.cms.service;
+
+import com.university.cms.config.ReportingQuery;
+import com.university.cms.repository.AssignmentRepository;
+import com.university.cms.repository.AssignmentSubmissionRepository;
+import com.university.cms.repository.CourseMaterialRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams every stored file reference out of the database for the upload
+ * reconciliation job. Rows are read one at a time on the reporting pool, so a full
+ * scan neither loads whole tables into memory nor takes connections from request
+ * traffic.
+ */
+@Service
+public class UploadReferenceScanner {
+
+    @Autowired
+    private CourseMaterialRepository courseMaterialRepository;
+
+    @Autowired
+    private AssignmentRepository assignmentRepository;
+
+    @Autowired
+    private AssignmentSubmissionRepository assignmentSubmissionRepository;
+
+    public record FileReference(String table, Long id, String filePath) {}
+
+    @ReportingQuery
+    @Transactional(readOnly = true)
+    public void scanFilePaths(Consumer<FileReference> visitor) {
+        scan("course_materials", courseMaterialRepository.streamFilePaths(), visitor);
+        scan("assignments", assignmentRepository.streamFilePaths(), visitor);
+        scan("assignment_submissions", assignmentSubmissionRepository.streamFilePaths(), visitor);
+    }
+
+    @ReportingQuery
+    @Transactional(readOnly = true)
+    public void scanContentHashes(Consumer<String> visitor) {
+        try (Stream<String> hashes = courseMaterialRepository.streamContentHashes()) {
+            hashes.forEach(visitor);
+        }
+    }
+
+    // One streaming result set per connection at a time: each is closed before the next starts
+    private void scan(String table, Stream<Object[]> rows, Consumer<FileReference> visitor) {
+        try (rows) {
+            rows.forEach(row -> visitor.accept(new FileReference(table, (Long) row[0], (String) row[1])));
+        }
+    }
+}
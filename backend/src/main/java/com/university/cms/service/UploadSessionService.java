@@ -0,0 +1,393 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.CourseMaterial;
+import com.university.cms.entity.UploadSession;
+import com.university.cms.repository.UploadChunkRepository;
+import com.university.cms.repository.UploadSessionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable, chunked uploads of course materials.
+ *
+ * A session preallocates the target file; clients then PUT fixed-size chunks at
+ * their offsets, in any order and in parallel, and each chunk is streamed straight
+ * into its region of the file through a FileChannel while its SHA-256 is computed.
+ * Only verified chunks are recorded, so after a dropped connection the client asks
+ * which ones are missing and sends just those. Completing the session moves the
+ * file into uploads/materials and creates the CourseMaterial.
+ *
+ * No database connection is held while chunk bytes are in flight: the session is
+ * read and the chunk recorded in two short transactions around the write.
+ */
+@Service
+public class UploadSessionService {
+
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    @Value("${app.uploads.chunk-size:8388608}")
+    private int chunkSize;
+
+    @Value("${app.uploads.max-file-size:4294967296}")
+    private long maxFileSize;
+
+    @Value("${app.uploads.part-dir:uploads/partial}")
+    private String partDir;
+
+    @Value("${app.uploads.session-ttl:86400000}")
+    private long sessionTtlMillis;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private UploadChunkRepository uploadChunkRepository;
+
+    @Autowired
+    private LecturerService lecturerService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        // Read-write transactions, so session lookups go to the primary and see a session created a moment ago
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public Map<String, Object> createSession(Long courseId, Long userId, Map<String, Object> request) {
+        String title = stringValue(request.get("title"));
+        String fileName = sanitizeFileName(stringValue(request.get("fileName")));
+        String checksum = stringValue(request.get("checksum"));
+        if (title == null || title.isBlank()) {
+            throw new RuntimeException("Title is required");
+        }
+        if (request.get("totalSize") == null) {
+            throw new RuntimeException("totalSize is required");
+        }
+        long totalSize = Long.parseLong(request.get("totalSize").toString());
+        if (totalSize <= 0) {
+            throw new RuntimeException("File is required");
+        }
+        if (totalSize > maxFileSize) {
+            throw new RuntimeException("File exceeds the maximum size of " + maxFileSize + " bytes");
+        }
+        if (checksum != null && !isSha256Hex(checksum)) {
+            throw new RuntimeException("checksum must be a hex SHA-256");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path partPath = Paths.get(partDir).resolve(id + ".part");
+        try {
+            Files.createDirectories(partPath.getParent());
+            // Sized up front so chunks can be written at their offsets in any order
+            try (RandomAccessFile file = new RandomAccessFile(partPath.toFile(), "rw")) {
+                file.setLength(totalSize);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not allocate upload: " + e.getMessage());
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(id);
+        session.setCourseId(courseId);
+        session.setUserId(userId);
+        session.setTitle(title);
+        session.setDescription(stringValue(request.get("description")));
+        session.setFileName(fileName);
+        session.setTotalSize(totalSize);
+        session.setChunkSize(chunkSize);
+        session.setChunkCount((int) ((totalSize + chunkSize - 1) / chunkSize));
+        session.setChecksum(checksum != null ? checksum.toLowerCase() : null);
+        session.setPartPath(partPath.toString());
+        session.setCreatedAt(LocalDateTime.now());
+        session.setLastActivityAt(session.getCreatedAt());
+        try {
+            transactionTemplate.executeWithoutResult(status -> uploadSessionRepository.save(session));
+        } catch (RuntimeException e) {
+            deleteQuietly(partPath);
+            throw e;
+        }
+        System.out.println("Upload session " + id + " created for course " + courseId + ": " + fileName
+                + " (" + totalSize + " bytes in " + session.getChunkCount() + " chunks)");
+        return describe(session, List.of());
+    }
+
+    public Map<String, Object> getStatus(String sessionId, Long userId) {
+        return transactionTemplate.execute(status -> {
+            UploadSession session = findOwned(sessionId, userId);
+            return describe(session, uploadChunkRepository.findChunkIndexes(sessionId));
+        });
+    }
+
+    /**
+     * Streams one chunk from the request body into the session's file at the given
+     * offset. The chunk must start on a chunk boundary and have exactly the expected
+     * length; it is recorded only if its SHA-256 matches the one the client sent.
+     */
+    public Map<String, Object> writeChunk(String sessionId, Long userId, long offset, String checksum,
+                                          InputStream body) {
+        UploadSession session = transactionTemplate.execute(status -> findOwned(sessionId, userId));
+        if (checksum == null || !isSha256Hex(checksum)) {
+            throw new RuntimeException("A hex SHA-256 of the chunk is required");
+        }
+        if (offset < 0 || offset >= session.getTotalSize() || offset % session.getChunkSize() != 0) {
+            throw new RuntimeException("Offset must be a multiple of " + session.getChunkSize()
+                    + " below " + session.getTotalSize());
+        }
+        int chunkIndex = (int) (offset / session.getChunkSize());
+        long expectedLength = Math.min(session.getChunkSize(), session.getTotalSize() - offset);
+
+        String actual = writeAt(Paths.get(session.getPartPath()), offset, expectedLength, body);
+        if (!actual.equalsIgnoreCase(checksum)) {
+            // The region is simply overwritten when the client sends the chunk again
+            throw new RuntimeException("Checksum mismatch for chunk " + chunkIndex);
+        }
+
+        long received = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            uploadChunkRepository.recordChunk(sessionId, chunkIndex, actual, now);
+            uploadSessionRepository.touch(sessionId, now);
+            return uploadChunkRepository.countBySessionId(sessionId);
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("uploadId", sessionId);
+        result.put("chunkIndex", chunkIndex);
+        result.put("receivedChunks", received);
+        result.put("chunkCount", session.getChunkCount());
+        result.put("complete", received == session.getChunkCount());
+        return result;
+    }
+
+    /**
+     * Turns a fully received session into a course material. The atomic move of the
+     * part file decides races between duplicate completion requests: only one of
+     * them finds the file.
+     */
+    public CourseMaterial complete(String sessionId, Long userId) {
+        UploadSession session = transactionTemplate.execute(status -> {
+            UploadSession found = findOwned(sessionId, userId);
+            long received = uploadChunkRepository.countBySessionId(sessionId);
+            if (received != found.getChunkCount()) {
+                throw new RuntimeException("Upload incomplete: " + received + " of "
+                        + found.getChunkCount() + " chunks received");
+            }
+            return found;
+        });
+
+        Path partPath = Paths.get(session.getPartPath());
+        if (session.getChecksum() != null && !session.getChecksum().equals(sha256Of(partPath))) {
+            throw new RuntimeException("Checksum of the assembled file does not match");
+        }
+
+        Path filePath = Paths.get("uploads/materials/")
+                .resolve(System.currentTimeMillis() + "_" + session.getFileName());
+        try {
+            Files.createDirectories(filePath.getParent());
+            Files.move(partPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Upload already completed");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store upload: " + e.getMessage());
+        }
+
+        try {
+            CourseMaterial material = transactionTemplate.execute(status -> {
+                CourseMaterial saved = lecturerService.addCourseMaterial(session.getCourseId(), session.getTitle(),
+                        session.getDescription(), session.getFileName(), filePath, session.getTotalSize());
+                uploadSessionRepository.deleteById(sessionId);
+                return saved;
+            });
+            System.out.println("Upload session " + sessionId + " completed as material " + material.getId());
+            return material;
+        } catch (RuntimeException e) {
+            // Put the file back so the client can retry completion
+            try {
+                Files.move(filePath, partPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException moveBack) {
+                System.err.println("Could not restore part file of upload " + sessionId + ": " + moveBack.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    public void abort(String sessionId, Long userId) {
+        UploadSession session = transactionTemplate.execute(status -> {
+            UploadSession found = findOwned(sessionId, userId);
+            uploadSessionRepository.delete(found);
+            return found;
+        });
+        deleteQuietly(Paths.get(session.getPartPath()));
+    }
+
+    /**
+     * Removes sessions nobody has sent a chunk to within the TTL, and part files
+     * left without a session (e.g. by a crash between allocating and saving).
+     */
+    @Scheduled(initialDelayString = "${app.uploads.cleanup-interval:3600000}",
+            fixedDelayString = "${app.uploads.cleanup-interval:3600000}")
+    public void cleanUpAbandoned() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(sessionTtlMillis));
+        List<UploadSession> abandoned = transactionTemplate.execute(status -> {
+            List<UploadSession> sessions = uploadSessionRepository.findByLastActivityAtBefore(cutoff);
+            uploadSessionRepository.deleteAll(sessions);
+            return sessions;
+        });
+        for (UploadSession session : abandoned) {
+            deleteQuietly(Paths.get(session.getPartPath()));
+        }
+
+        int strays = 0;
+        Path dir = Paths.get(partDir);
+        if (Files.isDirectory(dir)) {
+            long cutoffMillis = System.currentTimeMillis() - sessionTtlMillis;
+            try (DirectoryStream<Path> parts = Files.newDirectoryStream(dir, "*.part")) {
+                for (Path part : parts) {
+                    String id = part.getFileName().toString().replace(".part", "");
+                    if (Files.getLastModifiedTime(part).toMillis() < cutoffMillis
+                            && !Boolean.TRUE.equals(transactionTemplate.execute(
+                                    status -> uploadSessionRepository.existsById(id)))) {
+                        deleteQuietly(part);
+                        strays++;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Upload cleanup could not scan " + dir + ": " + e.getMessage());
+            }
+        }
+        if (!abandoned.isEmpty() || strays > 0) {
+            System.out.println("Upload cleanup removed " + abandoned.size() + " abandoned sessions and "
+                    + strays + " stray part files");
+        }
+    }
+
+    private UploadSession findOwned(String sessionId, Long userId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Upload not found"));
+        if (!session.getUserId().equals(userId)) {
+            throw new RuntimeException("Upload not found");
+        }
+        return session;
+    }
+
+    // Positional writes: parallel chunks of the same file each use their own channel and region
+    private String writeAt(Path partPath, long offset, long expectedLength, InputStream body) {
+        MessageDigest digest = sha256();
+        try (FileChannel file = FileChannel.open(partPath, StandardOpenOption.WRITE);
+             InputStream digesting = new DigestInputStream(body, digest);
+             ReadableByteChannel source = Channels.newChannel(digesting)) {
+            long written = 0;
+            while (written < expectedLength) {
+                long transferred = file.transferFrom(source, offset + written, expectedLength - written);
+                if (transferred <= 0) {
+                    break;
+                }
+                written += transferred;
+            }
+            if (written != expectedLength || digesting.read() != -1) {
+                throw new RuntimeException("Chunk must be exactly " + expectedLength + " bytes");
+            }
+            file.force(false);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Upload not found");
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write chunk: " + e.getMessage());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private String sha256Of(Path path) {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[STREAM_BUFFER_BYTES];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to verify upload: " + e.getMessage());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Map<String, Object> describe(UploadSession session, List<Integer> receivedChunks) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("uploadId", session.getId());
+        result.put("courseId", session.getCourseId());
+        result.put("fileName", session.getFileName());
+        result.put("totalSize", session.getTotalSize());
+        result.put("chunkSize", session.getChunkSize());
+        result.put("chunkCount", session.getChunkCount());
+        result.put("receivedChunks", receivedChunks);
+        result.put("lastActivityAt", session.getLastActivityAt());
+        return result;
+    }
+
+    // Keeps only the last path segment, so a client-supplied name can't escape uploads/materials
+    private static String sanitizeFileName(String fileName) {
+        if (fileName == null) {
+            throw new RuntimeException("fileName is required");
+        }
+        String name = Paths.get(fileName.replace('\\', '/')).getFileName().toString().trim();
+        if (name.isEmpty() || name.equals("..")) {
+            throw new RuntimeException("fileName is required");
+        }
+        return name;
+    }
+
+    private static boolean isSha256Hex(String value) {
+        return value.length() == 64 && value.chars().allMatch(c -> Character.digit(c, 16) >= 0);
+    }
+
+    private static String stringValue(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.university.cms.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Virtual waiting room for the registration endpoints.
+ *
+ * While enabled, a user who isn't admitted yet draws a numbered ticket and waits in
+ * line. Admissions accrue at the configured rate (an idle room banks a small burst)
+ * and are handed to the oldest tickets whose holders are still polling; tickets that
+ * stopped polling are skipped, so they neither use up admissions nor count towards
+ * anyone's position. The line advances whenever it is checked, so no timer is needed.
+ * Admitted users pass straight through for as long as they keep using the site.
+ * Runs per node: the configured rate is this node's share.
+ */
+@Service
+public class WaitingRoomService {
+
+    @Value("${app.waiting-room.enabled:false}")
+    private volatile boolean enabled;
+
+    @Value("${app.waiting-room.admit-per-second:20}")
+    private volatile double admitPerSecond;
+
+    @Value("${app.waiting-room.burst:20}")
+    private int burst;
+
+    @Value("${app.waiting-room.admission-idle-ttl:600000}")
+    private long admissionIdleTtlMillis;
+
+    @Value("${app.waiting-room.ticket-ttl:60000}")
+    private long ticketTtlMillis;
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    // username -> time of last request
+    private final Map<String, Long> admitted = new ConcurrentHashMap<>();
+
+    // The fields below are guarded by this
+    private final Map<String, Ticket> tickets = new HashMap<>();
+    // Tickets still waiting for an admission, oldest first
+    private final NavigableMap<Long, Ticket> line = new TreeMap<>();
+    private long issued;
+    private long granted;
+    // Admissions accrued but not handed out yet
+    private double credits;
+    private long lastAdvanceMillis = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init() {
+        credits = burst;
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("cms.waiting_room.waiting", this, WaitingRoomService::waiting).register(registry);
+            Gauge.builder("cms.waiting_room.admitted", admitted, Map::size).register(registry);
+        });
+    }
+
+    public Admission check(String username) {
+        if (!enabled) {
+            return Admission.ADMITTED;
+        }
+        long now = System.currentTimeMillis();
+        Long lastSeen = admitted.get(username);
+        if (lastSeen != null && now - lastSeen < admissionIdleTtlMillis) {
+            admitted.put(username, now);
+            return Admission.ADMITTED;
+        }
+
+        Ticket ticket;
+        long position;
+        synchronized (this) {
+            ticket = tickets.get(username);
+            if (ticket == null) {
+                ticket = new Ticket(username, ++issued, line.size(), granted);
+                tickets.put(username, ticket);
+                line.put(ticket.number, ticket);
+            }
+            ticket.lastSeenMillis = now;
+            advance(now);
+            if (ticket.granted) {
+                tickets.remove(username);
+            }
+            position = Math.max(1, ticket.ahead - (granted - ticket.grantedBefore) + 1);
+        }
+        if (ticket.granted) {
+            admitted.put(username, now);
+            meterRegistry.ifAvailable(registry -> registry.counter("cms.waiting_room.admissions").increment());
+            return Admission.ADMITTED;
+        }
+
+        long waitSeconds = Math.max(1, (long) Math.ceil(position / admitPerSecond));
+        return new Admission(false, ticket.number, position, waitSeconds);
+    }
+
+    // Caller holds the lock. Hands the admissions accrued since the last call to the
+    // oldest live tickets, dropping abandoned ones without spending an admission on them.
+    private void advance(long now) {
+        credits += admitPerSecond * (now - lastAdvanceMillis) / 1000.0;
+        lastAdvanceMillis = now;
+        while (credits >= 1 && !line.isEmpty()) {
+            Ticket next = line.pollFirstEntry().getValue();
+            if (now - next.lastSeenMillis >= ticketTtlMillis) {
+                tickets.remove(next.username, next);
+                continue;
+            }
+            next.granted = true;
+            granted++;
+            credits--;
+        }
+        // An idle room banks at most a burst of immediate admissions
+        credits = Math.min(credits, burst);
+    }
+
+    // Admissions lapse after inactivity; tickets whose holder stopped polling are dropped
+    // and everyone behind them moves up
+    @Scheduled(fixedDelay = 10000)
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        admitted.values().removeIf(lastSeen -> now - lastSeen >= admissionIdleTtlMillis);
+        synchronized (this) {
+            tickets.values().removeIf(ticket -> now - ticket.lastSeenMillis >= ticketTtlMillis);
+            line.values().removeIf(ticket -> now - ticket.lastSeenMillis >= ticketTtlMillis);
+            long ahead = 0;
+            for (Ticket ticket : line.values()) {
+                ticket.ahead = ahead++;
+                ticket.grantedBefore = granted;
+            }
+        }
+    }
+
+    public synchronized void configure(Boolean enable, Double ratePerSecond) {
+        if (ratePerSecond != null) {
+            if (ratePerSecond <= 0) {
+                throw new RuntimeException("Admission rate must be positive");
+            }
+            // Settle what accrued at the old rate first
+            advance(System.currentTimeMillis());
+            admitPerSecond = ratePerSecond;
+        }
+        if (enable != null && enable != enabled) {
+            if (enable) {
+                // Start with a clean room: nobody is admitted yet, the line starts after the burst
+                admitted.clear();
+                tickets.clear();
+                line.clear();
+                credits = burst;
+                lastAdvanceMillis = System.currentTimeMillis();
+            }
+            enabled = enable;
+            System.out.println("Registration waiting room " + (enable ? "enabled" : "disabled")
+                    + " at " + admitPerSecond + " admissions/s");
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("enabled", enabled);
+        status.put("admitPerSecond", admitPerSecond);
+        int waiting = waiting();
+        status.put("waiting", waiting);
+        status.put("admitted", admitted.size());
+        status.put("estimatedWaitSeconds", (long) Math.ceil(waiting / admitPerSecond));
+        return status;
+    }
+
+    private synchronized int waiting() {
+        return line.size();
+    }
+
+    public record Admission(boolean admitted, long ticket, long position, long estimatedWaitSeconds) {
+        static final Admission ADMITTED = new Admission(true, 0, 0, 0);
+    }
+
+    // Guarded by the service lock
+    private static class Ticket {
+        final String username;
+        final long number;
+        long lastSeenMillis;
+        boolean granted;
+        // Live tickets ahead of this one when it was drawn or the line was last swept,
+        // and the grant count at that time; each grant since then moved it up by one
+        long ahead;
+        long grantedBefore;
+
+        Ticket(String username, long number, long ahead, long grantedBefore) {
+            this.username = username;
+            this.number = number;
+            this.ahead = ahead;
+            this.grantedBefore = grantedBefore;
+        }
+    }
+}
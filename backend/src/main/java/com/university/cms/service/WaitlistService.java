@@ -0,0 +1,352 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.Course;
+import com.university.cms.entity.Enrollment;
+import com.university.cms.entity.Student;
+import com.university.cms.entity.WaitlistEntry;
+import com.university.cms.repository.CourseRepository;
+import com.university.cms.repository.EnrollmentRepository;
+import com.university.cms.repository.WaitlistEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * FIFO waitlists for full courses.
+ *
+ * Students join through the enroll endpoint when no seat is left. Whenever a seat
+ * may have been freed (a drop, a capacity increase) the course is handed to its
+ * promotion writer: each course maps to one single-threaded executor, so promotions
+ * of a course run one at a time and strictly in queue order. Each promotion locks
+ * the head entry, so writers on other nodes serialize on it too.
+ *
+ * Position queries are answered from an in-memory index that is updated after each
+ * commit on this node and reloaded from the database periodically; the reload also
+ * retries promotion for every course with waiters, covering drops on other nodes.
+ * Updates made while a reload reads the table are replayed onto what it read, so a
+ * reload never loses a join or a removal that raced with it.
+ */
+@Service
+public class WaitlistService {
+
+    @Value("${app.waitlist.promotion-writers:4}")
+    private int promotionWriters;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private ChangeVersionService changeVersionService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService[] writers;
+    private final Set<Long> pendingPromotions = ConcurrentHashMap.newKeySet();
+    private final Map<Long, CourseQueue> index = new ConcurrentHashMap<>();
+    // Non-null while a reload is reading the table; guarded by index
+    private List<Consumer<Map<Long, CourseQueue>>> reloadJournal;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writers = new ExecutorService[Math.max(1, promotionWriters)];
+        for (int i = 0; i < writers.length; i++) {
+            String name = "waitlist-promotion-" + (i + 1);
+            writers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService writer : writers) {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Puts the student at the end of the course's waitlist, or reports their
+     * current place if they are already on it.
+     */
+    @Transactional
+    public Map<String, Object> join(Student student, Long courseId) {
+        // A dropped enrollment doesn't count: it is reactivated when the student's turn comes
+        Optional<Enrollment> existing = enrollmentRepository.findByStudentIdAndCourseId(student.getId(), courseId);
+        if (existing.isPresent() && existing.get().getStatus() != Enrollment.Status.DROPPED) {
+            throw new RuntimeException("Already enrolled in this course");
+        }
+
+        // A double submit that loses the race on the unique key just reports the existing place
+        boolean joined = waitlistEntryRepository.insertIfAbsent(courseId, student.getId(), LocalDateTime.now()) == 1;
+        WaitlistEntry entry = waitlistEntryRepository.findLockedByCourseIdAndStudentId(courseId, student.getId())
+                .orElseThrow(() -> new RuntimeException("Course not found"));
+        if (joined) {
+            changeVersionService.markChanged("waitlist_entries");
+            Long entryId = entry.getId();
+            afterCommit(() -> addToIndex(courseId, entryId, student.getId()));
+            // A seat freed while this entry was being written would otherwise wait for the next sweep
+            promoteAfterCommit(courseId);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("message", "Course is full. You have been added to the waitlist");
+        result.put("courseId", courseId);
+        result.put("waitlisted", true);
+        result.put("position", waitlistEntryRepository.countByCourseIdAndIdLessThan(courseId, entry.getId()) + 1);
+        result.put("joinedAt", entry.getJoinedAt());
+        return result;
+    }
+
+    @Transactional
+    public void leave(Student student, Long courseId) {
+        WaitlistEntry entry = waitlistEntryRepository.findByCourseIdAndStudentId(courseId, student.getId())
+                .orElseThrow(() -> new RuntimeException("Not on the waitlist for this course"));
+        waitlistEntryRepository.delete(entry);
+        changeVersionService.markChanged("waitlist_entries");
+        afterCommit(() -> removeFromIndex(courseId, student.getId()));
+    }
+
+    /**
+     * Queues promotion from the course's waitlist once the current transaction commits.
+     */
+    public void promoteAfterCommit(Long courseId) {
+        afterCommit(() -> submitPromotion(courseId));
+    }
+
+    public boolean hasWaiting(Long courseId) {
+        return getWaitingCount(courseId) > 0;
+    }
+
+    public int getWaitingCount(Long courseId) {
+        CourseQueue queue = index.get(courseId);
+        return queue == null ? 0 : queue.size();
+    }
+
+    // 1-based place in the course's queue, or null if the student isn't waiting
+    public Integer getPosition(Long courseId, Long studentId) {
+        CourseQueue queue = index.get(courseId);
+        return queue == null ? null : queue.position(studentId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getStudentWaitlist(Student student) {
+        List<WaitlistEntry> entries = waitlistEntryRepository.findByStudentIdOrderByJoinedAtAsc(student.getId());
+        Map<Long, Course> courses = courseRepository.findAllById(
+                        entries.stream().map(WaitlistEntry::getCourseId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (WaitlistEntry entry : entries) {
+            Course course = courses.get(entry.getCourseId());
+            Map<String, Object> data = new HashMap<>();
+            data.put("courseId", entry.getCourseId());
+            data.put("courseCode", course != null ? course.getCourseCode() : null);
+            data.put("title", course != null ? course.getTitle() : null);
+            data.put("joinedAt", entry.getJoinedAt());
+            data.put("position", getPosition(entry.getCourseId(), student.getId()));
+            result.add(data);
+        }
+        return result;
+    }
+
+    /**
+     * Reloads the position index and retries promotion for every course with waiters.
+     * Changes committed on other nodes become visible here on the next run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.waitlist.refresh-interval:30000}",
+            fixedDelayString = "${app.waitlist.refresh-interval:30000}")
+    @Transactional // not read-only: a lagging replica would drop joins that already reached the index
+    public synchronized void refresh() {
+        synchronized (index) {
+            reloadJournal = new ArrayList<>();
+        }
+        try {
+            Map<Long, CourseQueue> loaded = new HashMap<>();
+            for (Object[] row : waitlistEntryRepository.findAllForIndex()) {
+                loaded.computeIfAbsent((Long) row[1], id -> new CourseQueue()).add((Long) row[0], (Long) row[2]);
+            }
+            // Merged course by course into the live index, which readers keep using meanwhile
+            synchronized (index) {
+                reloadJournal.forEach(change -> change.accept(loaded));
+                index.keySet().retainAll(loaded.keySet());
+                loaded.forEach((courseId, queue) ->
+                        index.computeIfAbsent(courseId, id -> new CourseQueue()).replaceWith(queue));
+            }
+        } finally {
+            synchronized (index) {
+                reloadJournal = null;
+            }
+        }
+        index.forEach((courseId, queue) -> {
+            if (queue.size() > 0) {
+                submitPromotion(courseId);
+            }
+        });
+    }
+
+    // Coalesces requests: a course already queued on its writer isn't queued again
+    private void submitPromotion(Long courseId) {
+        if (!pendingPromotions.add(courseId)) {
+            return;
+        }
+        ExecutorService writer = writers[(int) Math.floorMod(courseId, (long) writers.length)];
+        writer.execute(() -> {
+            pendingPromotions.remove(courseId);
+            promoteWhileSeatsFree(courseId);
+        });
+    }
+
+    private void promoteWhileSeatsFree(Long courseId) {
+        try {
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> promoteNext(courseId, status)))) {
+                // keep promoting until the queue is empty or the course is full again
+            }
+        } catch (Exception e) {
+            System.err.println("Waitlist promotion failed for course " + courseId + ": " + e.getMessage());
+        }
+    }
+
+    // Enrolls the head of the queue if a seat is free; false when nothing more can be done
+    private Boolean promoteNext(Long courseId, TransactionStatus status) {
+        if (seatReservationService.isKnownFull(courseId)) {
+            return false;
+        }
+        Optional<WaitlistEntry> head = waitlistEntryRepository.findFirstByCourseIdOrderByIdAsc(courseId);
+        if (head.isEmpty()) {
+            return false;
+        }
+        WaitlistEntry entry = head.get();
+        Long studentId = entry.getStudentId();
+        waitlistEntryRepository.delete(entry);
+
+        if (enrollmentRepository.enrollOrReactivate(studentId, courseId, LocalDateTime.now()).isEmpty()) {
+            // Enrolled some other way in the meantime; just drop the stale entry
+            afterCommit(() -> removeFromIndex(courseId, studentId));
+            return true;
+        }
+        changeVersionService.markChanged("enrollments");
+
+        // Last statement, as in enrollment: the seat row stays locked only until commit
+        if (!seatReservationService.tryReserve(courseId)) {
+            status.setRollbackOnly();
+            return false;
+        }
+        afterCommit(() -> {
+            removeFromIndex(courseId, studentId);
+            System.out.println("Promoted student " + studentId + " from the waitlist of course " + courseId);
+        });
+        return true;
+    }
+
+    private void addToIndex(Long courseId, Long entryId, Long studentId) {
+        applyToIndex(queues -> queues.computeIfAbsent(courseId, id -> new CourseQueue()).add(entryId, studentId));
+    }
+
+    private void removeFromIndex(Long courseId, Long studentId) {
+        applyToIndex(queues -> {
+            CourseQueue queue = queues.get(courseId);
+            if (queue != null) {
+                queue.remove(studentId);
+            }
+        });
+    }
+
+    // Applies a change to the live index, and records it for replay if a reload is in progress
+    private void applyToIndex(Consumer<Map<Long, CourseQueue>> change) {
+        synchronized (index) {
+            change.accept(index);
+            if (reloadJournal != null) {
+                reloadJournal.add(change);
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // One course's queue: entry id (queue order) -> student id, plus the reverse lookup
+    private static class CourseQueue {
+        private final TreeMap<Long, Long> studentsByEntry = new TreeMap<>();
+        private final Map<Long, Long> entriesByStudent = new HashMap<>();
+
+        synchronized void add(Long entryId, Long studentId) {
+            studentsByEntry.put(entryId, studentId);
+            entriesByStudent.put(studentId, entryId);
+        }
+
+        synchronized void replaceWith(CourseQueue other) {
+            studentsByEntry.clear();
+            studentsByEntry.putAll(other.studentsByEntry);
+            entriesByStudent.clear();
+            entriesByStudent.putAll(other.entriesByStudent);
+        }
+
+        synchronized void remove(Long studentId) {
+            Long entryId = entriesByStudent.remove(studentId);
+            if (entryId != null) {
+                studentsByEntry.remove(entryId);
+            }
+        }
+
+        synchronized Integer position(Long studentId) {
+            Long entryId = entriesByStudent.get(studentId);
+            return entryId == null ? null : studentsByEntry.headMap(entryId).size() + 1;
+        }
+
+        synchronized int size() {
+            return studentsByEntry.size();
+        }
+    }
+}
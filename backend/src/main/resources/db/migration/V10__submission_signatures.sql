@@ -0,0 +1,18 @@
+-- MinHash signatures of assignment submissions (their text plus the text extracted
+-- from the uploaded file), for near-duplicate detection within an assignment.
+-- Every submission gets a row once processed; signature is NULL when there was no
+-- text to sign. 128 unsigned 32-bit minimums, big-endian.
+
+CREATE TABLE submission_signatures (
+    submission_id BIGINT NOT NULL,
+    assignment_id BIGINT NOT NULL,
+    signature VARBINARY(512),
+    shingle_count INT NOT NULL,
+    updated_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (submission_id),
+    KEY idx_submission_signatures_assignment (assignment_id),
+    CONSTRAINT fk_submission_signatures_submission FOREIGN KEY (submission_id)
+        REFERENCES assignment_submissions (id) ON DELETE CASCADE,
+    CONSTRAINT fk_submission_signatures_assignment FOREIGN KEY (assignment_id)
+        REFERENCES assignments (id) ON DELETE CASCADE
+);
@@ -0,0 +1,154 @@
+-- Baseline schema, matching the JPA mappings as of this migration.
+-- Databases created earlier with ddl-auto are baselined at this version and skip this script.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    role ENUM('ADMIN', 'LECTURER', 'STUDENT') NOT NULL,
+    status ENUM('ACTIVE', 'INACTIVE') NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE admins (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    phone VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_admins_user UNIQUE (user_id),
+    CONSTRAINT fk_admins_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE students (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    student_id VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    phone VARCHAR(255),
+    address VARCHAR(255),
+    program VARCHAR(255),
+    year_of_study INT,
+    gpa DECIMAL(3, 2),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_students_student_id UNIQUE (student_id),
+    CONSTRAINT uk_students_user UNIQUE (user_id),
+    CONSTRAINT fk_students_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE lecturers (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    employee_id VARCHAR(255) NOT NULL,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    department VARCHAR(255),
+    phone VARCHAR(255),
+    office_location VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_lecturers_employee_id UNIQUE (employee_id),
+    CONSTRAINT uk_lecturers_user UNIQUE (user_id),
+    CONSTRAINT fk_lecturers_user FOREIGN KEY (user_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE degrees (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    faculty VARCHAR(255) NOT NULL,
+    department VARCHAR(255) NOT NULL,
+    duration INT NOT NULL,
+    description TEXT,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE courses (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_code VARCHAR(255) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    credits INT NOT NULL,
+    degree_id BIGINT,
+    department VARCHAR(255) NOT NULL,
+    lecturer_id BIGINT,
+    status ENUM('ACTIVE', 'INACTIVE') NOT NULL,
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_courses_course_code UNIQUE (course_code),
+    CONSTRAINT fk_courses_degree FOREIGN KEY (degree_id) REFERENCES degrees (id),
+    CONSTRAINT fk_courses_lecturer FOREIGN KEY (lecturer_id) REFERENCES lecturers (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE enrollments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    student_id BIGINT NOT NULL,
+    course_id BIGINT NOT NULL,
+    enrollment_date DATETIME(6),
+    status ENUM('ENROLLED', 'DROPPED', 'COMPLETED') NOT NULL,
+    final_grade VARCHAR(255),
+    feedback VARCHAR(255),
+    graded_date DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_enrollments_student FOREIGN KEY (student_id) REFERENCES students (id),
+    CONSTRAINT fk_enrollments_course FOREIGN KEY (course_id) REFERENCES courses (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE assignments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    due_date DATETIME(6) NOT NULL,
+    max_points INT NOT NULL,
+    file_name VARCHAR(255),
+    file_path VARCHAR(255),
+    file_size BIGINT,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_assignments_course FOREIGN KEY (course_id) REFERENCES courses (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE assignment_submissions (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    assignment_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    submission_text TEXT,
+    file_name VARCHAR(255),
+    file_path VARCHAR(255),
+    file_size BIGINT,
+    submitted_at DATETIME(6),
+    grade DOUBLE,
+    feedback TEXT,
+    graded_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_submissions_assignment FOREIGN KEY (assignment_id) REFERENCES assignments (id),
+    CONSTRAINT fk_submissions_student FOREIGN KEY (student_id) REFERENCES students (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE course_materials (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    file_name VARCHAR(255) NOT NULL,
+    file_path VARCHAR(255) NOT NULL,
+    file_size BIGINT,
+    upload_date DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_course_materials_course FOREIGN KEY (course_id) REFERENCES courses (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,94 @@
+-- Composite indexes for the repository queries on the request path.
+-- Each one covers both the equality filter and the ORDER BY, so MySQL can read rows
+-- in index order instead of filesorting every row of the course.
+
+-- Databases created by ddl-auto may already hold duplicate (student, course) enrollments
+-- and (assignment, student) submissions from the old check-then-insert paths, which would
+-- make the unique keys below fail. One row per pair is kept (graded first, then not
+-- dropped, then newest); the others are copied to *_v2_duplicates for review and deleted.
+-- A *_v2_duplicates table is only kept when it received rows; drop it once reviewed.
+-- Files of removed submissions are left on disk as orphans for upload reconciliation.
+-- Check beforehand with:
+--   SELECT student_id, course_id, COUNT(*) FROM enrollments GROUP BY student_id, course_id HAVING COUNT(*) > 1;
+--   SELECT assignment_id, student_id, COUNT(*) FROM assignment_submissions
+--     GROUP BY assignment_id, student_id HAVING COUNT(*) > 1;
+CREATE TABLE enrollments_v2_duplicates LIKE enrollments;
+INSERT INTO enrollments_v2_duplicates
+SELECT e.* FROM enrollments e
+JOIN (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY student_id, course_id
+                                  ORDER BY final_grade IS NULL, status = 'DROPPED', id DESC) AS keep_rank
+    FROM enrollments
+) ranked ON ranked.id = e.id
+WHERE ranked.keep_rank > 1;
+DELETE e FROM enrollments e JOIN enrollments_v2_duplicates d ON d.id = e.id;
+SET @ddl = IF((SELECT COUNT(*) FROM enrollments_v2_duplicates) = 0,
+              'DROP TABLE enrollments_v2_duplicates', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+CREATE TABLE assignment_submissions_v2_duplicates LIKE assignment_submissions;
+INSERT INTO assignment_submissions_v2_duplicates
+SELECT s.* FROM assignment_submissions s
+JOIN (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY assignment_id, student_id
+                                  ORDER BY grade IS NULL, id DESC) AS keep_rank
+    FROM assignment_submissions
+) ranked ON ranked.id = s.id
+WHERE ranked.keep_rank > 1;
+DELETE s FROM assignment_submissions s JOIN assignment_submissions_v2_duplicates d ON d.id = s.id;
+SET @ddl = IF((SELECT COUNT(*) FROM assignment_submissions_v2_duplicates) = 0,
+              'DROP TABLE assignment_submissions_v2_duplicates', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- Databases created from database/schema.sql already have unique_enrollment on the same
+-- columns. An existing unique index over exactly these columns is renamed instead of
+-- adding a second one beside it.
+SET @existing = (SELECT MIN(index_name) FROM (
+    SELECT index_name FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'enrollments' AND non_unique = 0
+    GROUP BY index_name
+    HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index) = 'student_id,course_id'
+) unique_keys);
+
+-- findByStudentIdAndCourseId, plus the duplicate-enrollment guard
+SET @ddl = IF(@existing IS NULL,
+              'ALTER TABLE enrollments ADD CONSTRAINT uk_enrollments_student_course UNIQUE (student_id, course_id)',
+              CONCAT('ALTER TABLE enrollments RENAME INDEX `', @existing, '` TO uk_enrollments_student_course'));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- findByCourseIdOrderByEnrollmentDateDesc
+CREATE INDEX idx_enrollments_course_enrollment_date ON enrollments (course_id, enrollment_date);
+
+-- findByCourseIdAndFinalGradeIsNotNullOrderByGradedDateDesc
+CREATE INDEX idx_enrollments_course_graded_date ON enrollments (course_id, graded_date);
+
+-- countEnrolledByCourseId (course_id = ? AND status = 'ENROLLED'), answered from the index alone
+CREATE INDEX idx_enrollments_course_status ON enrollments (course_id, status);
+
+-- Same for assignment_submissions, whose key is unique_submission where schema.sql created it
+SET @existing = (SELECT MIN(index_name) FROM (
+    SELECT index_name FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'assignment_submissions' AND non_unique = 0
+    GROUP BY index_name
+    HAVING GROUP_CONCAT(column_name ORDER BY seq_in_index) = 'assignment_id,student_id'
+) unique_keys);
+
+-- findByAssignmentIdAndStudentId, findByAssignmentId; also one submission per student and assignment
+SET @ddl = IF(@existing IS NULL,
+              'ALTER TABLE assignment_submissions ADD CONSTRAINT uk_submissions_assignment_student UNIQUE (assignment_id, student_id)',
+              CONCAT('ALTER TABLE assignment_submissions RENAME INDEX `', @existing, '` TO uk_submissions_assignment_student'));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- findByAssignmentCourseId joins through assignments.course_id; recent-activity sorts on created_at
+CREATE INDEX idx_assignments_course_created_at ON assignments (course_id, created_at);
+
+-- findByCourseId on materials, newest first in the activity feed
+CREATE INDEX idx_course_materials_course_upload_date ON course_materials (course_id, upload_date);
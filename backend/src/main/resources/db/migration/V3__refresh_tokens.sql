@@ -0,0 +1,24 @@
+-- Server-side refresh tokens. Only a SHA-256 hash of each token is stored.
+-- Tokens rotate on every refresh; all tokens of one login share a session_id, which is
+-- also carried by the access tokens so revoking a session revokes both.
+
+CREATE TABLE refresh_tokens (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT NOT NULL,
+    session_id VARCHAR(36) NOT NULL,
+    token_hash VARCHAR(64) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    rotated_at DATETIME(6),
+    revoked_at DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_refresh_tokens_token_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Revoking a session or all sessions of a user
+CREATE INDEX idx_refresh_tokens_session ON refresh_tokens (session_id);
+CREATE INDEX idx_refresh_tokens_user ON refresh_tokens (user_id);
+
+-- Revocation list refresh: sessions revoked within the access token lifetime
+CREATE INDEX idx_refresh_tokens_revoked_at ON refresh_tokens (revoked_at);
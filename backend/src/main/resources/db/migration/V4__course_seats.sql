@@ -0,0 +1,21 @@
+-- Course capacity and a running count of ENROLLED students, one row per course.
+-- Kept apart from courses so the hot counter row is not the cached, widely read course
+-- row. Seats are taken with a single conditional UPDATE; the CHECK constraints make
+-- overbooking impossible even for writes that bypass the application.
+
+CREATE TABLE course_seats (
+    course_id BIGINT NOT NULL,
+    capacity INT,
+    enrolled_count INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (course_id),
+    CONSTRAINT fk_course_seats_course FOREIGN KEY (course_id) REFERENCES courses (id) ON DELETE CASCADE,
+    CONSTRAINT chk_course_seats_enrolled CHECK (enrolled_count >= 0),
+    CONSTRAINT chk_course_seats_capacity CHECK (capacity IS NULL OR enrolled_count <= capacity)
+) ENGINE = InnoDB;
+
+-- Existing courses start unlimited (NULL capacity) with their current enrollment
+INSERT INTO course_seats (course_id, capacity, enrolled_count)
+SELECT c.id, NULL, COUNT(e.id)
+FROM courses c
+LEFT JOIN enrollments e ON e.course_id = c.id AND e.status = 'ENROLLED'
+GROUP BY c.id;
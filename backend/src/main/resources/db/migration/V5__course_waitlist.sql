@@ -0,0 +1,19 @@
+-- Per-course FIFO waitlist for full courses. Queue order is the auto-increment id;
+-- a student waits at most once per course.
+
+CREATE TABLE waitlist_entries (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    course_id BIGINT NOT NULL,
+    student_id BIGINT NOT NULL,
+    joined_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_waitlist_entries_course_student UNIQUE (course_id, student_id),
+    CONSTRAINT fk_waitlist_entries_course FOREIGN KEY (course_id) REFERENCES courses (id) ON DELETE CASCADE,
+    CONSTRAINT fk_waitlist_entries_student FOREIGN KEY (student_id) REFERENCES students (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Head of a course's queue
+CREATE INDEX idx_waitlist_entries_course_id ON waitlist_entries (course_id, id);
+
+-- A student's waitlists
+CREATE INDEX idx_waitlist_entries_student ON waitlist_entries (student_id);
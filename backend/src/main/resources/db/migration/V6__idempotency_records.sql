@@ -0,0 +1,17 @@
+-- Stored responses of writes sent with an Idempotency-Key header, replayed to retries.
+-- record_key is a SHA-256 of the user, method, path and client key.
+
+CREATE TABLE idempotency_records (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    record_key VARCHAR(64) NOT NULL,
+    status_code INT NOT NULL,
+    content_type VARCHAR(100),
+    response_body TEXT,
+    created_at DATETIME(6) NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_idempotency_records_record_key UNIQUE (record_key)
+) ENGINE = InnoDB;
+
+-- TTL cleanup
+CREATE INDEX idx_idempotency_records_expires_at ON idempotency_records (expires_at);
@@ -0,0 +1,6 @@
+-- Version counters for optimistic locking: a write based on a stale read fails
+-- instead of silently overwriting a concurrent one.
+
+ALTER TABLE courses ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE enrollments ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE assignment_submissions ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,36 @@
+-- Resumable chunked uploads of course materials. A session owns a preallocated
+-- partial file; each verified chunk gets a row, so a client can ask which chunks
+-- are still missing after a dropped connection.
+
+CREATE TABLE upload_sessions (
+    id VARCHAR(36) NOT NULL,
+    course_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    file_name VARCHAR(255) NOT NULL,
+    total_size BIGINT NOT NULL,
+    chunk_size INT NOT NULL,
+    chunk_count INT NOT NULL,
+    checksum VARCHAR(64),
+    part_path VARCHAR(255) NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    last_activity_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_upload_sessions_course FOREIGN KEY (course_id) REFERENCES courses (id) ON DELETE CASCADE,
+    CONSTRAINT fk_upload_sessions_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+-- Abandoned-session cleanup
+CREATE INDEX idx_upload_sessions_last_activity_at ON upload_sessions (last_activity_at);
+
+CREATE TABLE upload_chunks (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    session_id VARCHAR(36) NOT NULL,
+    chunk_index INT NOT NULL,
+    checksum VARCHAR(64) NOT NULL,
+    received_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_upload_chunks_session_chunk UNIQUE (session_id, chunk_index),
+    CONSTRAINT fk_upload_chunks_session FOREIGN KEY (session_id) REFERENCES upload_sessions (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
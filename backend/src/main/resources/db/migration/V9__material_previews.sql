@@ -0,0 +1,12 @@
+-- Thumbnails and page previews for course materials, generated in the background.
+-- content_hash is the SHA-256 of the file and keys the preview files on disk, so
+-- identical uploads share one set. preview_pages is NULL until the file has been
+-- processed, 0 when no preview could be made, otherwise the number of page images.
+
+ALTER TABLE course_materials
+    ADD COLUMN content_hash VARCHAR(64) NULL,
+    ADD COLUMN preview_pages INT NULL;
+
+-- The periodic sweep for unprocessed materials, and the "is this hash still used" check on delete
+CREATE INDEX idx_course_materials_preview_pages ON course_materials (preview_pages);
+CREATE INDEX idx_course_materials_content_hash ON course_materials (content_hash);
@@ -104,7 +104,8 @@ const Courses = () => {
         description: values.description,
         credits: parseInt(values.credits),
         degreeId: parseInt(values.degreeId),
-        department: values.department
+        department: values.department,
+        capacity: values.capacity ?? null
       };
       
       await adminService.createCourse(courseData);
@@ -138,7 +139,8 @@ const Courses = () => {
       description: course.description,
       credits: course.credits,
       degreeId: course.degree?.id,
-      department: course.department
+      department: course.department,
+      capacity: course.capacity
     });
     setEditCourseModalVisible(true);
   };
@@ -154,7 +156,11 @@ const Courses = () => {
         description: values.description,
         credits: parseInt(values.credits),
         degreeId: parseInt(values.degreeId),
-        department: values.department
+        department: values.department,
+        capacity: values.capacity ?? null,
+        // An emptied capacity field means no limit; the server keeps the capacity otherwise
+        unlimitedCapacity: values.capacity == null,
+        version: editingCourse.version
       };
       
       await adminService.updateCourse(editingCourse.id, courseData);
@@ -175,6 +181,13 @@ const Courses = () => {
       await loadData();
     } catch (error) {
       console.error('Error updating course:', error);
+      if (error.response?.status === 409) {
+        message.warning('This course was changed by someone else. The latest version has been loaded');
+        setEditCourseModalVisible(false);
+        setEditingCourse(null);
+        await loadData();
+        return;
+      }
       message.error('Failed to update course');
     } finally {
       setLoading(false);
@@ -250,9 +263,9 @@ const Courses = () => {
       key: 'enrollmentCount',
       width: 110,
       align: 'center',
-      render: (count) => (
-        <Tag color="green" icon={<TeamOutlined />}>
-          {count || 0} students
+      render: (count, record) => (
+        <Tag color={record.capacity && count >= record.capacity ? 'red' : 'green'} icon={<TeamOutlined />}>
+          {record.capacity ? `${count || 0} / ${record.capacity}` : `${count || 0} students`}
         </Tag>
       ),
     },
@@ -407,6 +420,18 @@ const Courses = () => {
             </Col>
           </Row>
 
+          <Form.Item
+            name="capacity"
+            label="Capacity"
+            extra="Leave empty for unlimited seats"
+          >
+            <InputNumber
+              placeholder="Maximum number of students"
+              style={{ width: '100%' }}
+              min={1}
+            />
+          </Form.Item>
+
           <Form.Item
             name="title"
             label="Course Name"
@@ -538,6 +563,18 @@ const Courses = () => {
             </Col>
           </Row>
 
+          <Form.Item
+            name="capacity"
+            label="Capacity"
+            extra="Leave empty for unlimited seats"
+          >
+            <InputNumber
+              placeholder="Maximum number of students"
+              style={{ width: '100%' }}
+              min={1}
+            />
+          </Form.Item>
+
           <Form.Item
             name="title"
             label="Course Name"
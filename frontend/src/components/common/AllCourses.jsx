@@ -99,8 +99,12 @@ const AllCourses = ({ userRole = 'LECTURER' }) => {
       setProcessing(true);
       
       if (isStudent) {
-        await studentService.enrollToCourse(selectedCourse.id);
-        message.success('Successfully enrolled in course');
+        const result = await studentService.enrollToCourse(selectedCourse.id);
+        if (result.waitlisted) {
+          message.info(`Course is full. You are number ${result.position} on the waitlist`);
+        } else {
+          message.success('Successfully enrolled in course');
+        }
       } else {
         await lecturerService.registerToCourse(selectedCourse.id);
         message.success('Successfully registered to course');
@@ -120,6 +124,17 @@ const AllCourses = ({ userRole = 'LECTURER' }) => {
     }
   };
 
+  const handleLeaveWaitlist = async (course) => {
+    try {
+      await studentService.leaveWaitlist(course.id);
+      message.success('Removed from the waitlist');
+      loadCourses();
+    } catch (error) {
+      console.error('Error leaving waitlist:', error);
+      message.error('Failed to leave the waitlist');
+    }
+  };
+
   const handleUnregister = async (course) => {
     Modal.confirm({
       title: 'Confirm Unregistration',
@@ -247,6 +262,29 @@ const AllCourses = ({ userRole = 'LECTURER' }) => {
           );
         }
         
+        // A completed course can't be taken again; a dropped one falls through to Enroll
+        if (isStudent && record.enrollmentStatus === 'COMPLETED') {
+          return (
+            <Button size="small" disabled>
+              Completed
+            </Button>
+          );
+        }
+
+        // Students waiting for a seat see their place in the queue
+        if (isStudent && record.waitlistPosition) {
+          return (
+            <Button.Group>
+              <Button size="small" disabled style={{ color: '#fa8c16', borderColor: '#fa8c16' }}>
+                Waitlist #{record.waitlistPosition}
+              </Button>
+              <Button size="small" danger onClick={() => handleLeaveWaitlist(record)}>
+                Leave
+              </Button>
+            </Button.Group>
+          );
+        }
+        
         return (
           <div style={{ 
             display: 'flex', 
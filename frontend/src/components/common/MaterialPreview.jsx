@@ -0,0 +1,107 @@
+import React, { useState, useEffect } from 'react';
+import { Avatar, Modal, Spin, Space, Typography } from 'antd';
+import { FileTextOutlined } from '@ant-design/icons';
+import lecturerService from '../../services/lecturerService';
+
+const { Text } = Typography;
+
+// Fetches an image blob (with the auth header) and exposes it as an object URL
+const useBlobUrl = (load, enabled) => {
+  const [url, setUrl] = useState(null);
+
+  useEffect(() => {
+    if (!enabled) {
+      return undefined;
+    }
+    let objectUrl = null;
+    let cancelled = false;
+    load()
+      .then((blob) => {
+        if (!cancelled) {
+          objectUrl = window.URL.createObjectURL(blob);
+          setUrl(objectUrl);
+        }
+      })
+      .catch(() => {
+        // No preview yet or not available; the caller shows its fallback
+      });
+    return () => {
+      cancelled = true;
+      if (objectUrl) {
+        window.URL.revokeObjectURL(objectUrl);
+      }
+    };
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [enabled]);
+
+  return url;
+};
+
+const PreviewPage = ({ courseId, materialId, page }) => {
+  const url = useBlobUrl(() => lecturerService.getMaterialPreviewPage(courseId, materialId, page), true);
+  if (!url) {
+    return (
+      <div style={{ textAlign: 'center', padding: 40 }}>
+        <Spin />
+      </div>
+    );
+  }
+  return (
+    <img
+      src={url}
+      alt={`Page ${page}`}
+      style={{ width: '100%', border: '1px solid #f0f0f0' }}
+    />
+  );
+};
+
+// Thumbnail avatar for a material; clicking it opens the page previews
+const MaterialPreview = ({ courseId, material }) => {
+  const [open, setOpen] = useState(false);
+  const hasPreview = material.previewPages > 0;
+  const thumbnailUrl = useBlobUrl(
+    () => lecturerService.getMaterialThumbnail(courseId, material.id),
+    hasPreview
+  );
+
+  if (!thumbnailUrl) {
+    return <Avatar icon={<FileTextOutlined />} />;
+  }
+
+  return (
+    <>
+      <Avatar
+        shape="square"
+        size={64}
+        src={thumbnailUrl}
+        style={{ cursor: 'pointer' }}
+        onClick={() => setOpen(true)}
+      />
+      <Modal
+        title={material.title}
+        open={open}
+        onCancel={() => setOpen(false)}
+        footer={null}
+        width={800}
+        destroyOnClose
+      >
+        <Space direction="vertical" style={{ width: '100%' }}>
+          {Array.from({ length: material.previewPages }, (_, index) => (
+            <PreviewPage
+              key={index + 1}
+              courseId={courseId}
+              materialId={material.id}
+              page={index + 1}
+            />
+          ))}
+          <Text type="secondary">
+            Preview of the first {material.previewPages === 1 ? 'page' : `${material.previewPages} pages`}.
+            Download the file for the full content.
+          </Text>
+        </Space>
+      </Modal>
+    </>
+  );
+};
+
+export default MaterialPreview;
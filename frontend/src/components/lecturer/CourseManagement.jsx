@@ -18,7 +18,9 @@ import {
   Breadcrumb,
   Spin,
   Dropdown,
-  DatePicker
+  DatePicker,
+  Progress,
+  Select
 } from 'antd';
 import {
   BookOutlined,
@@ -39,6 +41,7 @@ import { useParams, useNavigate } from 'react-router-dom';
 import dayjs from 'dayjs';
 import lecturerService from '../../services/lecturerService';
 import studentService from '../../services/studentService';
+import MaterialPreview from '../common/MaterialPreview';
 
 const { Title, Text } = Typography;
 const { TabPane } = Tabs;
@@ -53,6 +56,7 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
   const [materials, setMaterials] = useState([]);
   const [assignments, setAssignments] = useState([]);
   const [uploadModal, setUploadModal] = useState(false);
+  const [uploadProgress, setUploadProgress] = useState(null);
   const [assignmentModal, setAssignmentModal] = useState(false);
   const [editModal, setEditModal] = useState(false);
   const [editAssignmentModal, setEditAssignmentModal] = useState(false);
@@ -65,6 +69,9 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
   const [selectedStudent, setSelectedStudent] = useState(null);
   const [submissionGradeModal, setSubmissionGradeModal] = useState(false);
   const [selectedSubmission, setSelectedSubmission] = useState(null);
+  const [similarityAssignmentId, setSimilarityAssignmentId] = useState(null);
+  const [similarityReport, setSimilarityReport] = useState(null);
+  const [similarityLoading, setSimilarityLoading] = useState(false);
   const [activeTab, setActiveTab] = useState('materials');
   const [form] = Form.useForm();
   const [assignmentForm] = Form.useForm();
@@ -217,14 +224,17 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
 
   const handleUploadMaterial = async (values) => {
     try {
-      await lecturerService.uploadCourseMaterial(courseId, values);
+      await lecturerService.uploadCourseMaterial(courseId, values, setUploadProgress);
       message.success('Material uploaded successfully');
       setUploadModal(false);
       form.resetFields();
       await loadCourseData();
     } catch (error) {
       console.error('Error uploading material:', error);
+      // Large uploads resume from the chunks already sent when submitted again
       message.error('Failed to upload material');
+    } finally {
+      setUploadProgress(null);
     }
   };
 
@@ -395,6 +405,35 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
     }
   };
 
+  const handleDownloadAllSubmissions = async () => {
+    try {
+      const response = await lecturerService.downloadCourseSubmissionsArchive(courseId);
+      const url = window.URL.createObjectURL(new Blob([response.data], { type: 'application/zip' }));
+      const link = document.createElement('a');
+      link.href = url;
+      link.download = `${course?.courseCode || 'course'}-submissions.zip`;
+      document.body.appendChild(link);
+      link.click();
+      document.body.removeChild(link);
+      window.URL.revokeObjectURL(url);
+    } catch (error) {
+      console.error('Error downloading submissions:', error);
+      message.error('Failed to download submissions');
+    }
+  };
+
+  const handleCheckSimilarity = async () => {
+    setSimilarityLoading(true);
+    try {
+      setSimilarityReport(await lecturerService.getSubmissionSimilarity(similarityAssignmentId));
+    } catch (error) {
+      console.error('Error checking similarity:', error);
+      message.error(error.response?.data?.message || 'Failed to check submission similarity');
+    } finally {
+      setSimilarityLoading(false);
+    }
+  };
+
   const handleUpdateGrade = async (values) => {
     try {
       await lecturerService.updateStudentGrade(
@@ -707,7 +746,7 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
                     }
                   >
                     <List.Item.Meta
-                      avatar={<Avatar icon={<FileTextOutlined />} />}
+                      avatar={<MaterialPreview courseId={courseId} material={material} />}
                       title={material.title}
                       description={
                         <Space direction="vertical" size={4}>
@@ -890,6 +929,30 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
               } 
               key="submissions"
             >
+              <div style={{ marginBottom: 16 }}>
+                <Button
+                  icon={<DownloadOutlined />}
+                  onClick={handleDownloadAllSubmissions}
+                  disabled={submissions.length === 0}
+                >
+                  Download All Files (ZIP)
+                </Button>
+                <Select
+                  placeholder="Select assignment"
+                  style={{ width: 220, marginLeft: 8 }}
+                  value={similarityAssignmentId}
+                  onChange={setSimilarityAssignmentId}
+                  options={assignments.map((assignment) => ({ value: assignment.id, label: assignment.title }))}
+                />
+                <Button
+                  style={{ marginLeft: 8 }}
+                  onClick={handleCheckSimilarity}
+                  loading={similarityLoading}
+                  disabled={!similarityAssignmentId}
+                >
+                  Check Similarity
+                </Button>
+              </div>
               <Table
                 columns={[
                   {
@@ -1128,6 +1191,7 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
             open={uploadModal}
             onOk={form.submit}
             onCancel={() => setUploadModal(false)}
+            confirmLoading={uploadProgress !== null}
             width={600}
           >
         <Form
@@ -1164,10 +1228,11 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
               </p>
               <p className="ant-upload-text">Click or drag file to this area to upload</p>
               <p className="ant-upload-hint">
-                Support for PDF, DOC, PPT, and other document formats (Max: 50MB)
+                Support for PDF, DOC, PPT, and other document formats. Large files are uploaded in resumable chunks
               </p>
             </Upload.Dragger>
           </Form.Item>
+          {uploadProgress !== null && <Progress percent={uploadProgress} />}
         </Form>
       </Modal>
 
@@ -1292,10 +1357,11 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
               </p>
               <p className="ant-upload-text">Click or drag file to this area to upload</p>
               <p className="ant-upload-hint">
-                Support for PDF, DOC, PPT, and other document formats (Max: 50MB)
+                Support for PDF, DOC, PPT, and other document formats. Large files are uploaded in resumable chunks
               </p>
             </Upload.Dragger>
           </Form.Item>
+          {uploadProgress !== null && <Progress percent={uploadProgress} />}
         </Form>
       </Modal>
 
@@ -1604,6 +1670,54 @@ const CourseManagement = ({ userRole = 'LECTURER' }) => {
           </Form>
         </Modal>
       )}
+
+      {/* Near-duplicate submissions of one assignment */}
+      <Modal
+        title="Similar Submissions"
+        open={!!similarityReport}
+        onCancel={() => setSimilarityReport(null)}
+        footer={null}
+        width={800}
+      >
+        {similarityReport && (
+          <>
+            <Text type="secondary">
+              {similarityReport.submissionsCompared} submissions compared,{' '}
+              {similarityReport.totalPairs} pairs at or above{' '}
+              {Math.round(similarityReport.threshold * 100)}% similarity.
+            </Text>
+            <Table
+              style={{ marginTop: 16 }}
+              size="small"
+              rowKey={(pair) => `${pair.first?.submissionId}-${pair.second?.submissionId}`}
+              dataSource={similarityReport.pairs}
+              pagination={{ pageSize: 10 }}
+              locale={{ emptyText: 'No similar submissions found' }}
+              columns={[
+                {
+                  title: 'Student',
+                  key: 'first',
+                  render: (_, pair) => `${pair.first?.studentName} (${pair.first?.studentId})`,
+                },
+                {
+                  title: 'Student',
+                  key: 'second',
+                  render: (_, pair) => `${pair.second?.studentName} (${pair.second?.studentId})`,
+                },
+                {
+                  title: 'Similarity',
+                  dataIndex: 'similarity',
+                  key: 'similarity',
+                  width: 110,
+                  render: (similarity) => (
+                    <Tag color={similarity >= 0.8 ? 'red' : 'orange'}>{Math.round(similarity * 100)}%</Tag>
+                  ),
+                },
+              ]}
+            />
+          </>
+        )}
+      </Modal>
     </div>
   );
 };
@@ -1,5 +1,6 @@
 import React, { createContext, useContext, useReducer, useEffect } from 'react';
 import authService from '../services/authService';
+import { clearSession } from '../services/tokenRefresh';
 
 // Initial state
 const initialState = {
@@ -106,6 +107,7 @@ export function AuthProvider({ children }) {
       
       // Store in localStorage
       localStorage.setItem('token', response.token);
+      localStorage.setItem('refreshToken', response.refreshToken);
       localStorage.setItem('user', JSON.stringify(userData));
       
       dispatch({
@@ -154,8 +156,9 @@ export function AuthProvider({ children }) {
 
   // Logout function
   const logout = () => {
-    localStorage.removeItem('token');
-    localStorage.removeItem('user');
+    // Revoke the session server-side; local state is cleared regardless of the outcome
+    authService.logout().catch(() => {});
+    clearSession();
     dispatch({ type: AUTH_ACTIONS.LOGOUT });
   };
 
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { attachTokenRefresh } from './tokenRefresh';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
 
@@ -36,6 +37,8 @@ api.interceptors.response.use(
   }
 );
 
+attachTokenRefresh(api);
+
 const adminService = {
   // Dashboard Statistics
   getDashboardStats: async () => {
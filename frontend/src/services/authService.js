@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { attachTokenRefresh } from './tokenRefresh';
 
 // Create axios instance with base configuration
 const api = axios.create({
@@ -22,19 +23,7 @@ api.interceptors.request.use(
   }
 );
 
-// Response interceptor to handle auth errors
-api.interceptors.response.use(
-  (response) => response,
-  (error) => {
-    if (error.response?.status === 401) {
-      // Token expired or invalid
-      localStorage.removeItem('token');
-      localStorage.removeItem('user');
-      window.location.href = '/login';
-    }
-    return Promise.reject(error);
-  }
-);
+attachTokenRefresh(api);
 
 const authService = {
   // Login user
@@ -51,7 +40,8 @@ const authService = {
 
   // Logout user
   logout: async () => {
-    const response = await api.post('/auth/logout');
+    const refreshToken = localStorage.getItem('refreshToken');
+    const response = await api.post('/auth/logout', { refreshToken });
     return response.data;
   },
 
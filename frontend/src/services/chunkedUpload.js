@@ -0,0 +1,95 @@
+// Resumable chunked upload for large course materials. The file is sent as
+// fixed-size chunks, a few at a time, each with its SHA-256 so the server can
+// reject corrupted ones. The session id is remembered per file: if the page or
+// connection drops, the next attempt asks the server which chunks it already has
+// and sends only the rest.
+
+const PARALLEL_CHUNKS = 3;
+const CHUNK_RETRIES = 3;
+
+export const CHUNKED_UPLOAD_THRESHOLD = 20 * 1024 * 1024;
+
+// Chunk checksums need WebCrypto, which browsers only offer on https and localhost
+export const canUploadInChunks = () => Boolean(window.crypto?.subtle);
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+const sha256Hex = async (blob) => {
+  const digest = await window.crypto.subtle.digest('SHA-256', await blob.arrayBuffer());
+  return Array.from(new Uint8Array(digest))
+    .map((b) => b.toString(16).padStart(2, '0'))
+    .join('');
+};
+
+const resumeKey = (courseId, file) =>
+  `upload:${courseId}:${file.name}:${file.size}:${file.lastModified}`;
+
+const openSession = async (api, courseId, file, fields) => {
+  const saved = localStorage.getItem(resumeKey(courseId, file));
+  if (saved) {
+    try {
+      const response = await api.get(`/lecturer/uploads/${saved}`);
+      return response.data;
+    } catch (error) {
+      // Expired or completed elsewhere; start over
+      localStorage.removeItem(resumeKey(courseId, file));
+    }
+  }
+  const response = await api.post(`/lecturer/courses/${courseId}/materials/uploads`, {
+    title: fields.title,
+    description: fields.description || '',
+    fileName: file.name,
+    totalSize: file.size,
+  });
+  localStorage.setItem(resumeKey(courseId, file), response.data.uploadId);
+  return response.data;
+};
+
+const sendChunk = async (api, session, file, index) => {
+  const offset = index * session.chunkSize;
+  const chunk = file.slice(offset, Math.min(offset + session.chunkSize, file.size));
+  const checksum = await sha256Hex(chunk);
+  for (let attempt = 1; ; attempt++) {
+    try {
+      await api.put(`/lecturer/uploads/${session.uploadId}/chunks`, chunk, {
+        params: { offset },
+        headers: { 'Content-Type': 'application/octet-stream', 'X-Chunk-Checksum': checksum },
+      });
+      return;
+    } catch (error) {
+      if (attempt >= CHUNK_RETRIES) {
+        throw error;
+      }
+      await sleep(1000 * attempt);
+    }
+  }
+};
+
+export const uploadInChunks = async (api, courseId, file, fields, onProgress) => {
+  const session = await openSession(api, courseId, file, fields);
+  const received = new Set(session.receivedChunks || []);
+  const pending = [];
+  for (let index = 0; index < session.chunkCount; index++) {
+    if (!received.has(index)) {
+      pending.push(index);
+    }
+  }
+
+  let done = received.size;
+  const report = () => onProgress && onProgress(Math.round((done * 100) / session.chunkCount));
+  report();
+
+  const worker = async () => {
+    while (pending.length > 0) {
+      const index = pending.shift();
+      await sendChunk(api, session, file, index);
+      done++;
+      report();
+    }
+  };
+  await Promise.all(Array.from({ length: PARALLEL_CHUNKS }, worker));
+
+  const response = await api.post(`/lecturer/uploads/${session.uploadId}/complete`);
+  localStorage.removeItem(resumeKey(courseId, file));
+  return response.data;
+};
@@ -0,0 +1,7 @@
+// One key per user action; retries of the same request config reuse it, so the
+// server replays the first response instead of running the write again.
+export const idempotencyHeaders = () => ({
+  'Idempotency-Key': window.crypto?.randomUUID
+    ? window.crypto.randomUUID()
+    : `${Date.now()}-${Math.random().toString(36).slice(2)}`,
+});
@@ -1,4 +1,7 @@
 import axios from 'axios';
+import { attachTokenRefresh } from './tokenRefresh';
+import { idempotencyHeaders } from './idempotency';
+import { CHUNKED_UPLOAD_THRESHOLD, canUploadInChunks, uploadInChunks } from './chunkedUpload';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
 
@@ -17,6 +20,8 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
+attachTokenRefresh(api);
+
 const lecturerService = {
   // Dashboard
   getDashboardData: async () => {
@@ -121,8 +126,32 @@ const lecturerService = {
     return response;
   },
 
+  // ZIP of every submission file, built and streamed by the server
+  downloadAssignmentSubmissionsArchive: async (assignmentId) => {
+    const response = await api.get(`/lecturer/assignments/${assignmentId}/submissions/archive`, {
+      responseType: 'blob',
+    });
+    return response;
+  },
+
+  getSubmissionSimilarity: async (assignmentId, threshold) => {
+    const response = await api.get(`/lecturer/assignments/${assignmentId}/similarity`, {
+      params: threshold ? { threshold } : {},
+    });
+    return response.data;
+  },
+
+  downloadCourseSubmissionsArchive: async (courseId) => {
+    const response = await api.get(`/lecturer/courses/${courseId}/submissions/archive`, {
+      responseType: 'blob',
+    });
+    return response;
+  },
+
   gradeSubmission: async (submissionId, gradeData) => {
-    const response = await api.put(`/lecturer/submissions/${submissionId}/grade`, gradeData);
+    const response = await api.put(`/lecturer/submissions/${submissionId}/grade`, gradeData, {
+      headers: idempotencyHeaders(),
+    });
     return response.data;
   },
 
@@ -171,7 +200,12 @@ const lecturerService = {
     return response.data;
   },
 
-  uploadCourseMaterial: async (courseId, materialData) => {
+  uploadCourseMaterial: async (courseId, materialData, onProgress) => {
+    const file = materialData.file?.fileList?.[0]?.originFileObj;
+    if (file && file.size > CHUNKED_UPLOAD_THRESHOLD && canUploadInChunks()) {
+      return uploadInChunks(api, courseId, file, materialData, onProgress);
+    }
+
     const formData = new FormData();
     formData.append('title', materialData.title);
     formData.append('description', materialData.description || '');
@@ -212,9 +246,26 @@ const lecturerService = {
     return response;
   },
 
+  // Preview images; the server marks them immutable, so repeat requests come from the browser cache
+  getMaterialThumbnail: async (courseId, materialId) => {
+    const response = await api.get(`/lecturer/courses/${courseId}/materials/${materialId}/preview/thumbnail`, {
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
+  getMaterialPreviewPage: async (courseId, materialId, page) => {
+    const response = await api.get(`/lecturer/courses/${courseId}/materials/${materialId}/preview/pages/${page}`, {
+      responseType: 'blob',
+    });
+    return response.data;
+  },
+
   // Student Grading
   updateStudentGrade: async (courseId, studentId, gradeData) => {
-    const response = await api.put(`/lecturer/courses/${courseId}/students/${studentId}/grade`, gradeData);
+    const response = await api.put(`/lecturer/courses/${courseId}/students/${studentId}/grade`, gradeData, {
+      headers: idempotencyHeaders(),
+    });
     return response.data;
   },
 
@@ -1,4 +1,7 @@
 import axios from 'axios';
+import { attachTokenRefresh } from './tokenRefresh';
+import { attachWaitingRoom } from './waitingRoom';
+import { idempotencyHeaders } from './idempotency';
 
 const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
 
@@ -17,6 +20,9 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
+attachTokenRefresh(api);
+attachWaitingRoom(api);
+
 const studentService = {
   // Dashboard
   getDashboardData: async () => {
@@ -47,12 +53,16 @@ const studentService = {
 
   // Enrollment Management
   enrollToCourse: async (courseId) => {
-    const response = await api.post('/student/enrollments', { courseId });
+    const response = await api.post('/student/enrollments', { courseId }, {
+      headers: idempotencyHeaders(),
+    });
     return response.data;
   },
 
   enrollInCourse: async (courseId) => {
-    const response = await api.post('/student/enrollments', { courseId });
+    const response = await api.post('/student/enrollments', { courseId }, {
+      headers: idempotencyHeaders(),
+    });
     return response.data;
   },
 
@@ -66,6 +76,22 @@ const studentService = {
     return response.data;
   },
 
+  // Waitlist Management
+  getMyWaitlist: async () => {
+    const response = await api.get('/student/waitlist');
+    return response.data;
+  },
+
+  getWaitlistPosition: async (courseId) => {
+    const response = await api.get(`/student/waitlist/${courseId}`);
+    return response.data;
+  },
+
+  leaveWaitlist: async (courseId) => {
+    const response = await api.delete(`/student/waitlist/${courseId}`);
+    return response.data;
+  },
+
   // Grade Management
   getMyGrades: async () => {
     const response = await api.get('/student/grades');
@@ -126,6 +152,7 @@ const studentService = {
     const response = await api.post(`/student/assignments/${assignmentId}/submit`, formData, {
       headers: {
         'Content-Type': 'multipart/form-data',
+        ...idempotencyHeaders(),
       },
     });
     return response.data;
@@ -0,0 +1,77 @@
+import axios from 'axios';
+
+const API_URL = process.env.REACT_APP_API_URL || 'http://localhost:8080/api';
+
+// Shared across all api instances so concurrent 401s trigger a single refresh;
+// the server treats a reused refresh token as theft and ends the session.
+let refreshPromise = null;
+
+const clearSession = () => {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('user');
+};
+
+// All tabs share the refresh token in localStorage, so refreshes are serialized
+// across tabs with a Web Lock where the browser supports it
+const withRefreshLock = (task) => (navigator.locks
+  ? navigator.locks.request('cms-token-refresh', task)
+  : task());
+
+const refreshAccessToken = () => {
+  if (!refreshPromise) {
+    const seenRefreshToken = localStorage.getItem('refreshToken');
+    refreshPromise = withRefreshLock(async () => {
+      // Re-read inside the lock: another tab may have rotated while this one waited
+      const refreshToken = localStorage.getItem('refreshToken');
+      if (!refreshToken) {
+        throw new Error('No refresh token');
+      }
+      if (refreshToken !== seenRefreshToken) {
+        return localStorage.getItem('token');
+      }
+      try {
+        const response = await axios.post(`${API_URL}/auth/refresh`, { refreshToken });
+        localStorage.setItem('token', response.data.token);
+        localStorage.setItem('refreshToken', response.data.refreshToken);
+        return response.data.token;
+      } catch (error) {
+        // Without Web Locks another tab can win the race; its tokens are then already stored
+        const current = localStorage.getItem('refreshToken');
+        if (current && current !== refreshToken) {
+          return localStorage.getItem('token');
+        }
+        throw error;
+      }
+    }).finally(() => {
+      refreshPromise = null;
+    });
+  }
+  return refreshPromise;
+};
+
+// Access tokens are short-lived: on 401, renew once and retry the original request
+export const attachTokenRefresh = (api) => {
+  api.interceptors.response.use(
+    (response) => response,
+    async (error) => {
+      const original = error.config;
+      if (error.response?.status !== 401 || !original || original._retried
+          || original.url?.includes('/auth/')) {
+        return Promise.reject(error);
+      }
+      original._retried = true;
+      try {
+        const token = await refreshAccessToken();
+        original.headers.Authorization = `Bearer ${token}`;
+        return api(original);
+      } catch (refreshError) {
+        clearSession();
+        window.location.href = '/login';
+        return Promise.reject(error);
+      }
+    }
+  );
+};
+
+export { clearSession };
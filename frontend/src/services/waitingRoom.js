@@ -0,0 +1,34 @@
+import { message } from 'antd';
+
+const MESSAGE_KEY = 'waiting-room';
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+// During registration peaks the server queues students and answers 503 with
+// their place in line; wait as told and retry until admitted.
+export const attachWaitingRoom = (api) => {
+  api.interceptors.response.use(
+    (response) => {
+      if (response.config?._waiting) {
+        message.destroy(MESSAGE_KEY);
+      }
+      return response;
+    },
+    async (error) => {
+      const { response, config } = error;
+      if (response?.status !== 503 || !response.data?.waitingRoom || !config) {
+        return Promise.reject(error);
+      }
+      config._waiting = true;
+      const { position, estimatedWaitSeconds } = response.data;
+      message.loading({
+        key: MESSAGE_KEY,
+        duration: 0,
+        content: `You are in the registration waiting room: ${position} ahead of you, about ${estimatedWaitSeconds}s to go`,
+      });
+      const retryAfter = parseInt(response.headers['retry-after'], 10) || 2;
+      await sleep(retryAfter * 1000);
+      return api(config);
+    }
+  );
+};
@@ -3,6 +3,7 @@ package com.university.cms.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.university.cms.dto.LoginRequest;
 import com.university.cms.dto.LoginResponse;
+import com.university.cms.security.LoginThrottledException;
 import com.university.cms.service.AuthService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -50,7 +51,7 @@ class AuthControllerTest {
 
     @Test
     void testValidLogin() throws Exception {
-        when(authService.login(any(LoginRequest.class))).thenReturn(mockLoginResponse);
+        when(authService.login(any(LoginRequest.class), any())).thenReturn(mockLoginResponse);
 
         mockMvc.perform(post("/api/auth/login")
                 .with(csrf())
@@ -66,7 +67,7 @@ class AuthControllerTest {
 
     @Test
     void testInvalidLogin() throws Exception {
-        when(authService.login(any(LoginRequest.class)))
+        when(authService.login(any(LoginRequest.class), any()))
                 .thenThrow(new RuntimeException("Invalid email or password"));
 
         mockMvc.perform(post("/api/auth/login")
@@ -77,6 +78,19 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.message").value("Invalid email or password"));
     }
 
+    @Test
+    void testThrottledLogin() throws Exception {
+        when(authService.login(any(LoginRequest.class), any()))
+                .thenThrow(new LoginThrottledException("Too many login attempts. Try again later.", 30));
+
+        mockMvc.perform(post("/api/auth/login")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validLoginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"));
+    }
+
     @Test
     void testLoginWithInvalidData() throws Exception {
         LoginRequest invalidRequest = new LoginRequest("", "");
@@ -0,0 +1,159 @@
+package com.university.cms.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Seeds a small catalog straight through JDBC for the query plan and statement count
+ * tests: one lecturer teaching COURSES courses, STUDENTS students enrolled in and
+ * submitting to every one of them, and a few materials per course. Every row is tied
+ * to the generated ids and removed again by delete().
+ */
+class HotQueryFixture {
+
+    static final int COURSES = 8;
+    static final int STUDENTS = 40;
+    static final int MATERIALS_PER_COURSE = 5;
+
+    final List<Long> courseIds = new ArrayList<>();
+    final List<Long> studentIds = new ArrayList<>();
+    final List<Long> assignmentIds = new ArrayList<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tag = Long.toString(System.nanoTime(), 36);
+    private final List<Long> userIds = new ArrayList<>();
+    private Long lecturerId;
+
+    HotQueryFixture(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void create() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        Long lecturerUserId = insert("users", user("lecturer-" + tag, "LECTURER", now));
+        userIds.add(lecturerUserId);
+        Map<String, Object> lecturer = new HashMap<>();
+        lecturer.put("user_id", lecturerUserId);
+        lecturer.put("employee_id", "EMP-" + tag);
+        lecturer.put("first_name", "Fixture");
+        lecturer.put("last_name", "Lecturer");
+        lecturer.put("created_at", now);
+        lecturer.put("updated_at", now);
+        lecturerId = insert("lecturers", lecturer);
+
+        for (int i = 0; i < STUDENTS; i++) {
+            Long userId = insert("users", user("student-" + i + "-" + tag, "STUDENT", now));
+            userIds.add(userId);
+            Map<String, Object> student = new HashMap<>();
+            student.put("user_id", userId);
+            student.put("student_id", "STU-" + tag + "-" + i);
+            student.put("first_name", "Student");
+            student.put("last_name", "No. " + i);
+            student.put("created_at", now);
+            student.put("updated_at", now);
+            studentIds.add(insert("students", student));
+        }
+
+        for (int c = 0; c < COURSES; c++) {
+            Map<String, Object> course = new HashMap<>();
+            course.put("course_code", "FIX-" + tag + "-" + c);
+            course.put("title", "Fixture course " + c);
+            course.put("credits", 3);
+            course.put("department", "Testing");
+            course.put("lecturer_id", lecturerId);
+            course.put("status", "ACTIVE");
+            course.put("created_at", now);
+            course.put("updated_at", now);
+            Long courseId = insert("courses", course);
+            courseIds.add(courseId);
+
+            Map<String, Object> assignment = new HashMap<>();
+            assignment.put("course_id", courseId);
+            assignment.put("title", "Fixture assignment " + c);
+            assignment.put("due_date", now);
+            assignment.put("max_points", 100);
+            assignment.put("created_at", now);
+            Long assignmentId = insert("assignments", assignment);
+            assignmentIds.add(assignmentId);
+
+            List<Object[]> enrollments = new ArrayList<>();
+            List<Object[]> submissions = new ArrayList<>();
+            for (int s = 0; s < STUDENTS; s++) {
+                Timestamp at = Timestamp.valueOf(LocalDateTime.now().minusMinutes(s));
+                boolean graded = s % 4 == 0;
+                enrollments.add(new Object[]{studentIds.get(s), courseId, at, graded ? "A" : null, graded ? at : null});
+                submissions.add(new Object[]{assignmentId, studentIds.get(s), "Answer " + s, at});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO enrollments (student_id, course_id, enrollment_date, status, " +
+                    "final_grade, graded_date) VALUES (?, ?, ?, 'ENROLLED', ?, ?)", enrollments);
+            jdbcTemplate.batchUpdate("INSERT INTO assignment_submissions (assignment_id, student_id, " +
+                    "submission_text, submitted_at) VALUES (?, ?, ?, ?)", submissions);
+
+            List<Object[]> materials = new ArrayList<>();
+            for (int m = 0; m < MATERIALS_PER_COURSE; m++) {
+                // preview_pages = 0 keeps the preview worker away from these files, which don't exist
+                materials.add(new Object[]{courseId, "Material " + m, "material-" + m + ".pdf",
+                        "uploads/materials/fixture-" + tag + "-" + m + ".pdf",
+                        Timestamp.valueOf(LocalDateTime.now().minusDays(m))});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO course_materials (course_id, title, file_name, file_path, " +
+                    "upload_date, preview_pages) VALUES (?, ?, ?, ?, ?, 0)", materials);
+        }
+    }
+
+    void delete() {
+        if (!courseIds.isEmpty()) {
+            String courses = ids(courseIds);
+            jdbcTemplate.update("DELETE FROM assignment_submissions WHERE assignment_id IN " +
+                    "(SELECT id FROM assignments WHERE course_id IN " + courses + ")");
+            jdbcTemplate.update("DELETE FROM assignments WHERE course_id IN " + courses);
+            jdbcTemplate.update("DELETE FROM enrollments WHERE course_id IN " + courses);
+            jdbcTemplate.update("DELETE FROM course_materials WHERE course_id IN " + courses);
+            jdbcTemplate.update("DELETE FROM courses WHERE id IN " + courses);
+        }
+        if (!studentIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM students WHERE id IN " + ids(studentIds));
+        }
+        if (lecturerId != null) {
+            jdbcTemplate.update("DELETE FROM lecturers WHERE id = ?", lecturerId);
+        }
+        if (!userIds.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM users WHERE id IN " + ids(userIds));
+        }
+    }
+
+    private Map<String, Object> user(String name, String role, Timestamp now) {
+        Map<String, Object> user = new HashMap<>();
+        user.put("email", name + "@fixture.test");
+        user.put("password", "not-a-password-hash");
+        user.put("first_name", "Fixture");
+        user.put("last_name", name);
+        user.put("role", role);
+        user.put("status", "ACTIVE");
+        user.put("created_at", now);
+        user.put("updated_at", now);
+        return user;
+    }
+
+    private Long insert(String table, Map<String, Object> values) {
+        return new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName(table)
+                .usingColumns(values.keySet().toArray(new String[0]))
+                .usingGeneratedKeyColumns("id")
+                .executeAndReturnKey(values)
+                .longValue();
+    }
+
+    private static String ids(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(", ", "(", ")"));
+    }
+}
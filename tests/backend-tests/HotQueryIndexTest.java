@@ -0,0 +1,109 @@
+package com.university.cms.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL behind the hot repository queries and checks that each one
+ * reads through the index added for it in V2, without a filesort. Table statistics are
+ * refreshed after seeding so the plans match a populated database. Needs the MySQL
+ * database from application.yml.
+ */
+@SpringBootTest
+class HotQueryIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private HotQueryFixture fixture;
+    private Long courseId;
+    private Long studentId;
+    private Long assignmentId;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new HotQueryFixture(jdbcTemplate);
+        fixture.create();
+        jdbcTemplate.execute("ANALYZE TABLE enrollments, assignments, assignment_submissions, course_materials");
+        courseId = fixture.courseIds.get(0);
+        studentId = fixture.studentIds.get(0);
+        assignmentId = fixture.assignmentIds.get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.delete();
+    }
+
+    @Test
+    void testSubmissionQueriesUseIndexes() {
+        // AssignmentSubmissionRepository.findByAssignmentIdAndStudentId
+        List<Map<String, Object>> plan = explain(
+                "SELECT * FROM assignment_submissions WHERE assignment_id = ? AND student_id = ?",
+                assignmentId, studentId);
+        assertIndex(plan, "assignment_submissions", "uk_submissions_assignment_student");
+
+        // AssignmentSubmissionRepository.findByAssignmentCourseId
+        plan = explain("SELECT s.* FROM assignment_submissions s JOIN assignments a ON a.id = s.assignment_id " +
+                "WHERE a.course_id = ?", courseId);
+        assertIndex(plan, "a", "idx_assignments_course_created_at");
+        assertIndex(plan, "s", "uk_submissions_assignment_student");
+    }
+
+    @Test
+    void testEnrollmentQueriesUseIndexes() {
+        // EnrollmentRepository.findByStudentIdAndCourseId
+        assertIndex(explain("SELECT * FROM enrollments WHERE student_id = ? AND course_id = ?", studentId, courseId),
+                "enrollments", "uk_enrollments_student_course");
+
+        // EnrollmentRepository.findByCourseIdOrderByEnrollmentDateDesc
+        assertIndex(explain("SELECT * FROM enrollments WHERE course_id = ? ORDER BY enrollment_date DESC", courseId),
+                "enrollments", "idx_enrollments_course_enrollment_date");
+
+        // EnrollmentRepository.findByCourseIdAndFinalGradeIsNotNullOrderByGradedDateDesc
+        assertIndex(explain("SELECT * FROM enrollments WHERE course_id = ? AND final_grade IS NOT NULL " +
+                        "ORDER BY graded_date DESC", courseId),
+                "enrollments", "idx_enrollments_course_graded_date");
+
+        // EnrollmentRepository.countEnrolledByCourseId, answered from the index alone
+        List<Map<String, Object>> plan = explain(
+                "SELECT COUNT(*) FROM enrollments WHERE course_id = ? AND status = 'ENROLLED'", courseId);
+        assertIndex(plan, "enrollments", "idx_enrollments_course_status");
+        assertTrue(String.valueOf(row(plan, "enrollments").get("Extra")).contains("Using index"));
+    }
+
+    @Test
+    void testMaterialQueryUsesIndex() {
+        // CourseMaterialRepository.findByCourseId, newest first in the activity feed
+        assertIndex(explain("SELECT * FROM course_materials WHERE course_id = ? ORDER BY upload_date DESC", courseId),
+                "course_materials", "idx_course_materials_course_upload_date");
+    }
+
+    private List<Map<String, Object>> explain(String sql, Object... args) {
+        return jdbcTemplate.queryForList("EXPLAIN " + sql, args);
+    }
+
+    private static void assertIndex(List<Map<String, Object>> plan, String table, String index) {
+        Map<String, Object> row = row(plan, table);
+        assertEquals(index, row.get("key"), () -> "Unexpected plan for " + table + ": " + plan);
+        assertFalse(String.valueOf(row.get("Extra")).contains("Using filesort"), () -> "Filesort in " + plan);
+    }
+
+    private static Map<String, Object> row(List<Map<String, Object>> plan, String table) {
+        return plan.stream()
+                .filter(row -> table.equals(row.get("table")))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No plan row for " + table + ": " + plan));
+    }
+}
@@ -0,0 +1,127 @@
+package com.university.cms.service;
+
+import com.university.cms.entity.Student;
+import com.university.cms.repository.StudentRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL statements Hibernate issues for the catalog, roster, submission and
+ * material listings. With HotQueryFixture's dozens of rows per listing, any lazy load
+ * per row would show up as dozens of statements; each listing must stay within a
+ * small fixed number. Needs the MySQL database from application.yml.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.university.cms.service.HotReadPathStatementCountTest$StatementCounter")
+class HotReadPathStatementCountTest {
+
+    private static final int MAX_STATEMENTS = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private LecturerQueryService lecturerQueryService;
+
+    @Autowired
+    private StudentQueryService studentQueryService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private HotQueryFixture fixture;
+    private Long courseId;
+    private Student student;
+
+    @BeforeEach
+    void setUp() {
+        fixture = new HotQueryFixture(jdbcTemplate);
+        fixture.create();
+        courseId = fixture.courseIds.get(0);
+        student = studentRepository.findById(fixture.studentIds.get(0)).orElseThrow();
+    }
+
+    @AfterEach
+    void tearDown() {
+        fixture.delete();
+    }
+
+    @Test
+    void testStudentCatalogIsBounded() {
+        List<Map<String, Object>> courses = countStatements("student catalog",
+                () -> courseService.getAvailableCoursesForStudent(student));
+        long enrolled = courses.stream()
+                .filter(course -> fixture.courseIds.contains((Long) course.get("id")))
+                .filter(course -> Boolean.TRUE.equals(course.get("isEnrolled")))
+                .count();
+        assertEquals(HotQueryFixture.COURSES, enrolled);
+    }
+
+    @Test
+    void testStudentEnrollmentsAreBounded() {
+        assertEquals(HotQueryFixture.COURSES, countStatements("student enrollments",
+                () -> studentQueryService.getStudentEnrollments(student)).size());
+    }
+
+    @Test
+    void testRosterIsBounded() {
+        assertEquals(HotQueryFixture.STUDENTS, countStatements("roster",
+                () -> lecturerQueryService.getEnrolledStudents(courseId)).size());
+    }
+
+    @Test
+    void testSubmissionListIsBounded() {
+        assertEquals(HotQueryFixture.STUDENTS, countStatements("course submissions",
+                () -> lecturerQueryService.getCourseSubmissions(courseId)).size());
+    }
+
+    @Test
+    void testMaterialListIsBounded() {
+        assertEquals(HotQueryFixture.MATERIALS_PER_COURSE, countStatements("course materials",
+                () -> lecturerQueryService.getCourseMaterials(courseId)).size());
+    }
+
+    private <T> T countStatements(String readPath, Supplier<T> call) {
+        StatementCounter.reset();
+        T result = call.get();
+        int statements = StatementCounter.count();
+        System.out.println(readPath + ": " + statements + " SQL statements");
+        assertTrue(statements <= MAX_STATEMENTS,
+                readPath + " issued " + statements + " statements, expected at most " + MAX_STATEMENTS);
+        return result;
+    }
+
+    // Counts statements prepared on the calling thread; the services under test run there
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+
+        static void reset() {
+            COUNT.get()[0] = 0;
+        }
+
+        static int count() {
+            return COUNT.get()[0];
+        }
+    }
+}
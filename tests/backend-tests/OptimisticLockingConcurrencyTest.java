@@ -0,0 +1,251 @@
+package com.university.cms.service;
+
+import com.university.cms.dto.CourseDto;
+import com.university.cms.entity.Course;
+import com.university.cms.entity.Student;
+import com.university.cms.repository.CourseRepository;
+import com.university.cms.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two writers that read the same version race to update a course, a submission
+ * grade or a course grade: exactly one wins and the other fails with a conflict
+ * instead of overwriting. Two first submissions of the same assignment race on the
+ * unique key the same way. Needs the MySQL database from application.yml.
+ */
+@SpringBootTest
+class OptimisticLockingConcurrencyTest {
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LecturerService lecturerService;
+
+    @Autowired
+    private StudentService studentService;
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String courseCode = "LOCK-" + System.nanoTime();
+    private Long courseId;
+    private HotQueryFixture fixture;
+
+    @BeforeEach
+    void setUp() {
+        courseId = courseService.createCourse(courseDto("Original title", null)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (courseId != null) {
+            courseService.deleteCourse(courseId);
+        }
+        if (fixture != null) {
+            fixture.delete();
+        }
+    }
+
+    @Test
+    void testConcurrentUpdatesConflict() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (String title : List.of("Title from writer A", "Title from writer B")) {
+                writers.add(executor.submit(() -> transaction.executeWithoutResult(status -> {
+                    Course course = courseRepository.findById(courseId).orElseThrow();
+                    await(bothRead);
+                    course.setTitle(title);
+                })));
+            }
+
+            int conflicts = 0;
+            for (Future<?> writer : writers) {
+                try {
+                    writer.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof OptimisticLockingFailureException, e.getCause().toString());
+                    conflicts++;
+                }
+            }
+            assertEquals(1, conflicts);
+            assertEquals(1L, courseService.getLatestCourse(courseId).getVersion());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrentSubmissionGradesConflict() throws Exception {
+        fixture = createFixture();
+        Long submissionId = jdbcTemplate.queryForObject("SELECT id FROM assignment_submissions " +
+                "WHERE assignment_id = ? AND student_id = ?", Long.class,
+                fixture.assignmentIds.get(0), fixture.studentIds.get(0));
+
+        // Both graders loaded the submission at version 0
+        assertEquals(1, countConflicts(
+                () -> lecturerService.gradeSubmission(submissionId, Map.of("grade", 70, "version", 0L)),
+                () -> lecturerService.gradeSubmission(submissionId, Map.of("grade", 90, "version", 0L))));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "SELECT version FROM assignment_submissions WHERE id = ?", Long.class, submissionId));
+    }
+
+    @Test
+    void testConcurrentCourseGradesConflict() throws Exception {
+        fixture = createFixture();
+        Long gradedCourseId = fixture.courseIds.get(0);
+        Long studentId = fixture.studentIds.get(1);
+
+        assertEquals(1, countConflicts(
+                () -> lecturerService.updateStudentGrade(gradedCourseId, studentId, Map.of("grade", "B", "version", 0L)),
+                () -> lecturerService.updateStudentGrade(gradedCourseId, studentId, Map.of("grade", "A", "version", 0L))));
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT version FROM enrollments " +
+                "WHERE course_id = ? AND student_id = ?", Long.class, gradedCourseId, studentId));
+    }
+
+    @Test
+    void testConcurrentFirstSubmissionsKeepOneRow() throws Exception {
+        fixture = createFixture();
+        Long assignmentId = fixture.assignmentIds.get(0);
+        Long studentId = fixture.studentIds.get(0);
+        jdbcTemplate.update("DELETE FROM assignment_submissions WHERE assignment_id = ? AND student_id = ?",
+                assignmentId, studentId);
+
+        // Both transactions take their snapshot before either inserts, so both miss the
+        // other's submission and try to insert; the unique key turns the loser away
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CyclicBarrier bothRead = new CyclicBarrier(2);
+        List<Callable<Void>> submitters = new ArrayList<>();
+        for (String text : List.of("Answer from tab A", "Answer from tab B")) {
+            submitters.add(() -> {
+                transaction.executeWithoutResult(status -> {
+                    Student student = studentRepository.findById(studentId).orElseThrow();
+                    await(bothRead);
+                    studentService.submitAssignment(assignmentId, student, text, null);
+                });
+                return null;
+            });
+        }
+
+        int rejected = 0;
+        for (Throwable failure : runConcurrently(submitters)) {
+            assertTrue(failure instanceof DataIntegrityViolationException, failure.toString());
+            rejected++;
+        }
+        assertEquals(1, rejected);
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM assignment_submissions " +
+                "WHERE assignment_id = ? AND student_id = ?", Integer.class, assignmentId, studentId));
+    }
+
+    @Test
+    void testStaleExpectedVersionIsRejected() {
+        Long readVersion = courseService.getLatestCourse(courseId).getVersion();
+        courseService.updateCourse(courseId, courseDto("First edit", readVersion));
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> courseService.updateCourse(courseId, courseDto("Edit from a stale form", readVersion)));
+        assertEquals("First edit", courseService.getLatestCourse(courseId).getTitle());
+    }
+
+    private CourseDto courseDto(String title, Long version) {
+        CourseDto dto = new CourseDto();
+        dto.setCourseCode(courseCode);
+        dto.setCourseName(title);
+        dto.setCredits(3);
+        dto.setDepartment("Testing");
+        dto.setVersion(version);
+        return dto;
+    }
+
+    private HotQueryFixture createFixture() {
+        HotQueryFixture created = new HotQueryFixture(jdbcTemplate);
+        created.create();
+        return created;
+    }
+
+    // Runs the writers at the same time and counts the ones that lost with a version conflict
+    private int countConflicts(Runnable... writers) throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Runnable writer : writers) {
+            tasks.add(() -> {
+                writer.run();
+                return null;
+            });
+        }
+        int conflicts = 0;
+        for (Throwable failure : runConcurrently(tasks)) {
+            assertTrue(failure instanceof OptimisticLockingFailureException, failure.toString());
+            conflicts++;
+        }
+        return conflicts;
+    }
+
+    private List<Throwable> runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            CyclicBarrier start = new CyclicBarrier(tasks.size());
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    await(start);
+                    return task.call();
+                }));
+            }
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Void> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return failures;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
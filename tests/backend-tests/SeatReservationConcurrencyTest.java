@@ -0,0 +1,117 @@
+package com.university.cms.service;
+
+import com.university.cms.dto.CourseDto;
+import com.university.cms.entity.Course;
+import com.university.cms.repository.CourseSeatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hammers one course's seat row from many threads and checks that exactly
+ * capacity reservations succeed. Needs the MySQL database from application.yml.
+ */
+@SpringBootTest
+class SeatReservationConcurrencyTest {
+
+    private static final int CAPACITY = 50;
+    private static final int ATTEMPTS = 2000;
+    private static final int THREADS = 64;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private SeatReservationService seatReservationService;
+
+    @Autowired
+    private CourseSeatsRepository courseSeatsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long courseId;
+
+    @BeforeEach
+    void setUp() {
+        CourseDto dto = new CourseDto();
+        dto.setCourseCode("STRESS-" + System.nanoTime());
+        dto.setCourseName("Seat reservation stress test");
+        dto.setCredits(3);
+        dto.setDepartment("Testing");
+        dto.setCapacity(CAPACITY);
+        Course course = courseService.createCourse(dto);
+        courseId = course.getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (courseId != null) {
+            courseService.deleteCourse(courseId);
+        }
+    }
+
+    @Test
+    void testNoOverbookingUnderContention() throws Exception {
+        assertEquals(CAPACITY, reserveConcurrently(ATTEMPTS));
+        assertEquals(CAPACITY, enrolledCount());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < 10; i++) {
+            transaction.executeWithoutResult(status -> seatReservationService.release(courseId));
+        }
+        assertEquals(CAPACITY - 10, enrolledCount());
+
+        // The fast-fail cache is cleared by the releases, so freed seats are taken again
+        assertEquals(10, reserveConcurrently(ATTEMPTS));
+        assertEquals(CAPACITY, enrolledCount());
+    }
+
+    private int reserveConcurrently(int attempts) throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                Callable<Boolean> attempt = () -> {
+                    start.await();
+                    return transaction.execute(status -> seatReservationService.tryReserve(courseId));
+                };
+                results.add(executor.submit(attempt));
+            }
+            start.countDown();
+
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                if (Boolean.TRUE.equals(result.get(60, TimeUnit.SECONDS))) {
+                    reserved++;
+                }
+            }
+            return reserved;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        }
+    }
+
+    private int enrolledCount() {
+        return courseSeatsRepository.findById(courseId).orElseThrow().getEnrolledCount();
+    }
+}
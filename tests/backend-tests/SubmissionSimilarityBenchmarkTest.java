@@ -0,0 +1,97 @@
+package com.university.cms.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MinHash + LSH over 5,000 synthetic submissions of ~300 words that all start with
+ * the same task statement, with 100 planted near-copies (3% of words changed).
+ * Every planted pair must be reported, no unrelated pair may be, and only a small
+ * fraction of the 12.5 million possible pairs may be compared. Runs without Spring
+ * or a database.
+ */
+class SubmissionSimilarityBenchmarkTest {
+
+    private static final int SUBMISSIONS = 5000;
+    private static final int PLANTED_PAIRS = 100;
+    private static final int WORDS = 300;
+    private static final int VOCABULARY = 5000;
+
+    @Test
+    void testFindsPlantedNearDuplicatesInNearLinearTime() {
+        Random random = new Random(42);
+        String template = randomText(random, 40);
+
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < SUBMISSIONS - PLANTED_PAIRS; i++) {
+            texts.add(template + " " + randomText(random, WORDS));
+        }
+        Set<String> planted = new HashSet<>();
+        for (int i = 0; i < PLANTED_PAIRS; i++) {
+            int original = random.nextInt(SUBMISSIONS - PLANTED_PAIRS);
+            texts.add(edit(random, texts.get(original), 0.03));
+            planted.add(original + "-" + (texts.size() - 1));
+        }
+
+        long started = System.nanoTime();
+        LshIndex index = new LshIndex(32, 4);
+        for (int i = 0; i < texts.size(); i++) {
+            index.add(i, MinHash.signature(MinHash.shingles(texts.get(i))));
+        }
+        long signedNanos = System.nanoTime() - started;
+
+        started = System.nanoTime();
+        LshIndex.Result result = index.similarPairs(0.5, 500);
+        long queryNanos = System.nanoTime() - started;
+
+        Set<String> found = new HashSet<>();
+        for (LshIndex.Pair pair : result.pairs()) {
+            found.add(pair.first() + "-" + pair.second());
+        }
+        long allPairs = (long) SUBMISSIONS * (SUBMISSIONS - 1) / 2;
+        System.out.printf("Signed %d submissions in %d ms; compared %d of %d pairs (%.3f%%) in %d ms; %d reported%n",
+                SUBMISSIONS, signedNanos / 1_000_000, result.candidates(), allPairs,
+                100.0 * result.candidates() / allPairs, queryNanos / 1_000_000, result.pairs().size());
+
+        assertEquals(planted, found);
+        assertEquals(0, result.skippedBuckets());
+        assertTrue(result.candidates() < allPairs / 100, "LSH should compare under 1% of all pairs");
+    }
+
+    @Test
+    void testSimilarityTracksShingleOverlap() {
+        Random random = new Random(7);
+        String text = randomText(random, 500);
+
+        int[] signature = MinHash.signature(MinHash.shingles(text));
+        assertEquals(1.0, MinHash.similarity(signature, MinHash.signature(MinHash.shingles(text.toUpperCase()))));
+        assertTrue(MinHash.similarity(signature, MinHash.signature(MinHash.shingles(edit(random, text, 0.03)))) > 0.6);
+        assertTrue(MinHash.similarity(signature, MinHash.signature(MinHash.shingles(randomText(random, 500)))) < 0.1);
+    }
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append("w").append(random.nextInt(VOCABULARY));
+        }
+        return text.toString();
+    }
+
+    private static String edit(Random random, String text, double fraction) {
+        String[] words = text.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            if (random.nextDouble() < fraction) {
+                words[i] = "x" + random.nextInt(VOCABULARY);
+            }
+        }
+        return String.join(" ", words);
+    }
+}